@@ -80,6 +80,17 @@ class LoanClient {
             rethrowApiError(err);
         }
     }
+    async createLoans(data, requestId) {
+        try {
+            const response = await this.http.post('/api/loans/batch', data, {
+                headers: requestId ? { [exports.REQUEST_ID_HEADER]: requestId } : {},
+            });
+            return { data: response.data, requestId: extractRequestId(response.headers) };
+        }
+        catch (err) {
+            rethrowApiError(err);
+        }
+    }
     async getLoan(id, requestId) {
         try {
             const response = await this.http.get(`/api/loans/${id}`, {
@@ -91,6 +102,18 @@ class LoanClient {
             rethrowApiError(err);
         }
     }
+    async listLoans(cursor, limit, requestId) {
+        try {
+            const response = await this.http.get('/api/loans', {
+                params: { cursor, limit },
+                headers: requestId ? { [exports.REQUEST_ID_HEADER]: requestId } : {},
+            });
+            return { data: response.data, requestId: extractRequestId(response.headers) };
+        }
+        catch (err) {
+            rethrowApiError(err);
+        }
+    }
     async updateLoan(id, data, requestId) {
         try {
             const response = await this.http.put(`/api/loans/${id}`, data, {
@@ -13,6 +13,7 @@ export interface Loan {
 export interface FieldViolation {
   field: string;
   message: string;
+  index?: number;
 }
 
 export interface ApiError {
@@ -37,6 +38,11 @@ export interface LoanResponse<T = Loan> {
   requestId: string;
 }
 
+export interface LoanPage {
+  items: Loan[];
+  nextCursor?: string;
+}
+
 export type CreateLoanPayload = Omit<Loan, 'id'>;
 export type UpdateLoanPayload = Omit<Loan, 'id'>;
 
@@ -80,6 +86,17 @@ export class LoanClient {
     }
   }
 
+  async createLoans(data: CreateLoanPayload[], requestId?: string): Promise<LoanResponse<Loan[]>> {
+    try {
+      const response = await this.http.post<Loan[]>('/api/loans/batch', data, {
+        headers: requestId ? { [REQUEST_ID_HEADER]: requestId } : {},
+      });
+      return { data: response.data, requestId: extractRequestId(response.headers) };
+    } catch (err) {
+      rethrowApiError(err);
+    }
+  }
+
   async getLoan(id: string, requestId?: string): Promise<LoanResponse> {
     try {
       const response = await this.http.get<Loan>(`/api/loans/${id}`, {
@@ -91,6 +108,18 @@ export class LoanClient {
     }
   }
 
+  async listLoans(cursor?: string, limit?: number, requestId?: string): Promise<LoanResponse<LoanPage>> {
+    try {
+      const response = await this.http.get<LoanPage>('/api/loans', {
+        params: { cursor, limit },
+        headers: requestId ? { [REQUEST_ID_HEADER]: requestId } : {},
+      });
+      return { data: response.data, requestId: extractRequestId(response.headers) };
+    } catch (err) {
+      rethrowApiError(err);
+    }
+  }
+
   async updateLoan(id: string, data: UpdateLoanPayload, requestId?: string): Promise<LoanResponse> {
     try {
       const response = await this.http.put<Loan>(`/api/loans/${id}`, data, {
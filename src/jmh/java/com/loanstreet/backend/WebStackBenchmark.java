@@ -0,0 +1,110 @@
+package com.loanstreet.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read-heavy getLoan and createLoan mix of {@link ThreadModeBenchmark}, served by
+ * the servlet stack (Tomcat, JPA on Hikari) and by the reactive profile (Netty, R2DBC),
+ * side by side. Each fork boots the application on a random port against the database
+ * in application.yml, so start Postgres first ({@code docker compose up postgres}).
+ * <p>
+ * Compare the {@code mixed} group scores, and the p0.99 of the sample-time run, between
+ * the two {@code stack} params. Both stacks get the same number of database connections.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebStackBenchmark {
+
+    private static final int SEED_LOANS = 1_000;
+    private static final int CONNECTIONS = 20;
+    private static final String CREATE_BODY = """
+            {"amount":10000.00,"interestRate":0.05,"lengthInMonths":36,"monthlyPaymentAmount":299.71}""";
+
+    @Param({"servlet", "reactive"})
+    public String stack;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI loansUri;
+    private List<URI> loanUris;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = SpringApplication.run(LoanstreetBackendApplication.class,
+                "--server.port=0",
+                "--spring.profiles.active=" + ("reactive".equals(stack) ? "reactive" : "default"),
+                "--spring.datasource.hikari.maximum-pool-size=" + CONNECTIONS,
+                "--spring.r2dbc.pool.max-size=" + CONNECTIONS,
+                "--spring.jpa.show-sql=false");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        loansUri = URI.create("http://localhost:" + port + "/api/loans");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        loanUris = new ArrayList<>(SEED_LOANS);
+        for (int i = 0; i < SEED_LOANS; i++) {
+            JsonNode created = objectMapper.readTree(postLoan().body());
+            loanUris.add(URI.create(loansUri + "/" + created.get("id").asText()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(240)
+    public int getLoan() throws Exception {
+        URI uri = loanUris.get(ThreadLocalRandom.current().nextInt(loanUris.size()));
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(60)
+    public int createLoan() throws Exception {
+        return postLoan().statusCode();
+    }
+
+    private HttpResponse<String> postLoan() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(loansUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(CREATE_BODY))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,78 @@
+package com.loanstreet.backend.dto;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response DTOs, with an ObjectMapper configured the
+ * way Spring Boot configures the one used by the message converters.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoSerializationBenchmark {
+
+    private ObjectWriter writer;
+    private Loan loan;
+    private ApiError notFound;
+    private ApiError validationFailed;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writer();
+
+        loan = new Loan()
+                .id(UUID.randomUUID())
+                .amount(new BigDecimal("250000.0000"))
+                .interestRate(new BigDecimal("0.065000"))
+                .lengthInMonths(360)
+                .monthlyPaymentAmount(new BigDecimal("1580.1700"));
+        notFound = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Resource not found");
+        validationFailed = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Validation failed")
+                .errors(List.of(
+                        new FieldViolation().field("amount").message("must be greater than 0"),
+                        new FieldViolation().field("interestRate").message("must be less than or equal to 1.0")));
+    }
+
+    @Benchmark
+    public byte[] loan() throws Exception {
+        return writer.writeValueAsBytes(loan);
+    }
+
+    @Benchmark
+    public byte[] notFoundError() throws Exception {
+        return writer.writeValueAsBytes(notFound);
+    }
+
+    @Benchmark
+    public byte[] validationError() throws Exception {
+        return writer.writeValueAsBytes(validationFailed);
+    }
+}
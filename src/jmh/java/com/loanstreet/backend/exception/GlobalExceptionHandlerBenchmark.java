@@ -0,0 +1,102 @@
+package com.loanstreet.backend.exception;
+
+import com.loanstreet.backend.api.LoansApi;
+import com.loanstreet.backend.dto.ApiError;
+import com.loanstreet.backend.dto.LoanCreateRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.math.BigDecimal;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The error paths of {@link GlobalExceptionHandler}. Exceptions are built once, so
+ * this measures turning an exception into a response, not throwing it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private MethodArgumentNotValidException invalidBody;
+    private ConstraintViolationException invalidBatch;
+    private NoSuchElementException notFound;
+    private MethodArgumentTypeMismatchException typeMismatch;
+    private RuntimeException unexpected;
+
+    @Setup
+    public void setUp() throws Exception {
+        handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+
+        LoanCreateRequest request = new LoanCreateRequest()
+                .amount(new BigDecimal("-1"))
+                .interestRate(new BigDecimal("1.5"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("188.71"));
+
+        MethodParameter body = new MethodParameter(
+                LoansApi.class.getMethod("createLoan", LoanCreateRequest.class, UUID.class), 0);
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(request, "loanCreateRequest");
+        bindingResult.addError(new FieldError("loanCreateRequest", "amount", "must be greater than 0"));
+        bindingResult.addError(new FieldError("loanCreateRequest", "interestRate", "must be less than or equal to 1.0"));
+        invalidBody = new MethodArgumentNotValidException(body, bindingResult);
+
+        invalidBatch = new ConstraintViolationException(
+                Validation.buildDefaultValidatorFactory().getValidator().validate(request));
+
+        notFound = new NoSuchElementException("Loan not found: " + UUID.randomUUID());
+        MethodParameter id = new MethodParameter(
+                LoansApi.class.getMethod("getLoan", UUID.class, UUID.class), 0);
+        typeMismatch = new MethodArgumentTypeMismatchException("not-a-uuid", UUID.class, "id", id,
+                new IllegalArgumentException("Invalid UUID string: not-a-uuid"));
+        unexpected = new IllegalStateException("Something went wrong");
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> validationErrors() {
+        return handler.handleValidationErrors(invalidBody);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> constraintViolations() {
+        return handler.handleConstraintViolations(invalidBatch);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> notFound() {
+        return handler.handleNotFound(notFound);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> typeMismatch() {
+        return handler.handleTypeMismatch(typeMismatch);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> unexpectedError() {
+        return handler.handleGenericException(unexpected);
+    }
+}
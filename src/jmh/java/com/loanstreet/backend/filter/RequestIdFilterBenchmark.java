@@ -0,0 +1,76 @@
+package com.loanstreet.backend.filter;
+
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RequestIdFilter} for each kind of X-Request-ID header a client can send.
+ * Requests are reused across invocations; the filter leaves nothing behind on them
+ * and overwrites the response header each time.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestIdFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private RequestIdFilter filter;
+    private MockHttpServletRequest validHeader;
+    private MockHttpServletRequest missingHeader;
+    private MockHttpServletRequest invalidHeader;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        filter = new RequestIdFilter();
+        validHeader = request(UUID.randomUUID().toString());
+        missingHeader = request(null);
+        invalidHeader = request("not-a-valid-uuid");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object validHeader() throws Exception {
+        filter.doFilter(validHeader, response, NO_OP_CHAIN);
+        return response.getHeader(RequestIdFilter.REQUEST_ID_HEADER);
+    }
+
+    @Benchmark
+    public Object missingHeader() throws Exception {
+        filter.doFilter(missingHeader, response, NO_OP_CHAIN);
+        return response.getHeader(RequestIdFilter.REQUEST_ID_HEADER);
+    }
+
+    @Benchmark
+    public Object invalidHeader() throws Exception {
+        filter.doFilter(invalidHeader, response, NO_OP_CHAIN);
+        return response.getHeader(RequestIdFilter.REQUEST_ID_HEADER);
+    }
+
+    private static MockHttpServletRequest request(String requestId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/loans/" + UUID.randomUUID());
+        if (requestId != null) {
+            request.addHeader(RequestIdFilter.REQUEST_ID_HEADER, requestId);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,153 @@
+package com.loanstreet.backend.model;
+
+import com.loanstreet.backend.LoanstreetBackendApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Insert throughput into a table that already holds {@code preloadedRows} rows keyed by
+ * random (v4) or time-ordered (v7) UUIDs, with the keys generated the way the application
+ * generates them. Each trial works on its own scratch table shaped like {@code loans} (no
+ * rollup triggers), preloaded in SQL and checkpointed. The first write to each index page
+ * after a checkpoint therefore logs a full page image, as in production.
+ * <p>
+ * After each trial it prints WAL bytes per inserted row, the size of the primary key
+ * index per row, and how many index blocks had to be read into shared buffers.
+ * Boots the application without a web server against the datasource in application.yml,
+ * so start Postgres first ({@code docker compose up postgres}). Preloading millions of
+ * rows takes a while; lower it with {@code -p preloadedRows=...}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanIdBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final String INSERT_SQL = """
+            INSERT INTO %s (id, amount, interest_rate, length_in_months, monthly_payment_amount)
+            VALUES (?, ?, ?, ?, ?)""";
+
+    @Param({"v4", "v7"})
+    public String idVersion;
+
+    @Param({"2000000"})
+    public int preloadedRows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private Connection connection;
+    private PreparedStatement insert;
+    private Supplier<UUID> ids;
+    private String table;
+    private String startLsn;
+    private long rowsBefore;
+    private Map<String, Object> ioBefore;
+
+    @Setup
+    public void setUp() throws SQLException {
+        context = SpringApplication.run(LoanstreetBackendApplication.class,
+                "--spring.main.web-application-type=none",
+                "--spring.jpa.show-sql=false");
+        DataSource dataSource = context.getBean(DataSource.class);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        table = "loan_id_benchmark_" + idVersion;
+        ids = "v7".equals(idVersion) ? LoanIdGenerator::next : UUID::randomUUID;
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("""
+                CREATE TABLE %s (
+                    id UUID PRIMARY KEY,
+                    amount NUMERIC(19, 4) NOT NULL,
+                    interest_rate NUMERIC(10, 6) NOT NULL,
+                    length_in_months INTEGER NOT NULL,
+                    monthly_payment_amount NUMERIC(19, 4) NOT NULL,
+                    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+                )""".formatted(table));
+        String idSql = "v7".equals(idVersion) ? "loan_uuid_v7()" : "gen_random_uuid()";
+        jdbcTemplate.update("INSERT INTO " + table + " (id, amount, interest_rate, length_in_months, "
+                + "monthly_payment_amount) SELECT " + idSql + ", 10000, 0.05, 36, 299.71 "
+                + "FROM generate_series(1, ?)", preloadedRows);
+        jdbcTemplate.execute("VACUUM ANALYZE " + table);
+        jdbcTemplate.execute("CHECKPOINT");
+
+        connection = dataSource.getConnection();
+        insert = connection.prepareStatement(INSERT_SQL.formatted(table));
+        rowsBefore = preloadedRows;
+        startLsn = jdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+        ioBefore = indexIo();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+        long inserted = rows - rowsBefore;
+        long walBytes = jdbcTemplate.queryForObject(
+                "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), ?::pg_lsn)::bigint", Long.class, startLsn);
+        long indexBytes = jdbcTemplate.queryForObject(
+                "SELECT pg_relation_size(?::regclass)", Long.class, table + "_pkey");
+        Map<String, Object> ioAfter = indexIo();
+        long blocksRead = ((Number) ioAfter.get("idx_blks_read")).longValue()
+                - ((Number) ioBefore.get("idx_blks_read")).longValue();
+        long blocksHit = ((Number) ioAfter.get("idx_blks_hit")).longValue()
+                - ((Number) ioBefore.get("idx_blks_hit")).longValue();
+
+        System.out.printf("%n  %s: inserted %,d rows onto %,d%n", idVersion, inserted, rowsBefore);
+        System.out.printf("  WAL bytes/row:          %,.0f%n", (double) walBytes / Math.max(1, inserted));
+        System.out.printf("  pkey size:              %,d MB (%.1f bytes/row)%n",
+                indexBytes >> 20, (double) indexBytes / rows);
+        System.out.printf("  pkey blocks read/row:   %.3f (%.1f%% of block accesses missed shared buffers)%n",
+                (double) blocksRead / Math.max(1, inserted), 100.0 * blocksRead / Math.max(1, blocksRead + blocksHit));
+
+        insert.close();
+        connection.close();
+        jdbcTemplate.execute("DROP TABLE " + table);
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setObject(1, ids.get());
+            insert.setBigDecimal(2, new BigDecimal("10000.00"));
+            insert.setBigDecimal(3, new BigDecimal("0.05"));
+            insert.setInt(4, 36);
+            insert.setBigDecimal(5, new BigDecimal("299.71"));
+            insert.addBatch();
+        }
+        return insert.executeBatch();
+    }
+
+    private Map<String, Object> indexIo() {
+        return jdbcTemplate.queryForMap(
+                "SELECT idx_blks_read, idx_blks_hit FROM pg_statio_user_indexes WHERE indexrelname = ?",
+                table + "_pkey");
+    }
+}
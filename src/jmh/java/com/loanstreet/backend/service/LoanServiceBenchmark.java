@@ -0,0 +1,125 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.LoanstreetBackendApplication;
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.repository.LoanRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping done for every loan returned by the API, and a loan lookup
+ * served from {@link LoanCache} against one read from the database.
+ * <p>
+ * The lookups boot the application without a web server against the datasource in
+ * application.yml, so start Postgres first ({@code docker compose up postgres}). The
+ * cache TTL is raised for the run so every cached lookup is a hit.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanServiceBenchmark {
+
+    private LoanEntity entity;
+
+    @Setup
+    public void setUp() {
+        entity = new LoanEntity();
+        entity.setId(UUID.randomUUID());
+        entity.setAmount(new BigDecimal("250000.0000"));
+        entity.setInterestRate(new BigDecimal("0.065000"));
+        entity.setLengthInMonths(360);
+        entity.setMonthlyPaymentAmount(new BigDecimal("1580.1700"));
+        entity.setVersion(3L);
+        entity.setCreatedAt(Instant.now());
+        entity.setUpdatedAt(Instant.now());
+    }
+
+    @Benchmark
+    public Loan toDto() {
+        return LoanService.toDto(entity);
+    }
+
+    @Benchmark
+    public Loan findByIdCached(Database database) {
+        return database.loanService.findById(database.randomLoanId()).orElseThrow();
+    }
+
+    @Benchmark
+    public Loan findByIdUncached(Database database) {
+        return database.loanRepository.findById(database.randomLoanId()).map(LoanService::toDto).orElseThrow();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        private static final int SEED_LOANS = 1_000;
+
+        /**
+         * Whether cache hits are checked against the loan's version in the database.
+         */
+        @Param({"false", "true"})
+        public boolean verifyVersion;
+
+        private ConfigurableApplicationContext context;
+        private LoanService loanService;
+        private LoanRepository loanRepository;
+        private List<UUID> loanIds;
+
+        @Setup
+        public void setUp() {
+            context = SpringApplication.run(LoanstreetBackendApplication.class,
+                    "--spring.main.web-application-type=none",
+                    "--spring.jpa.show-sql=false",
+                    "--loanstreet.cache.loans.ttl=1h",
+                    "--loanstreet.cache.loans.verify-version=" + verifyVersion);
+            loanService = context.getBean(LoanService.class);
+            loanRepository = context.getBean(LoanRepository.class);
+
+            List<LoanEntity> seed = new ArrayList<>(SEED_LOANS);
+            for (int i = 0; i < SEED_LOANS; i++) {
+                LoanEntity entity = new LoanEntity();
+                entity.setAmount(new BigDecimal("10000.00"));
+                entity.setInterestRate(new BigDecimal("0.05"));
+                entity.setLengthInMonths(36);
+                entity.setMonthlyPaymentAmount(new BigDecimal("299.71"));
+                seed.add(entity);
+            }
+            loanIds = loanRepository.saveAll(seed).stream().map(LoanEntity::getId).toList();
+            loanIds.forEach(loanService::findById);
+        }
+
+        @TearDown
+        public void tearDown() {
+            loanRepository.deleteAllById(loanIds);
+            context.close();
+        }
+
+        private UUID randomLoanId() {
+            return loanIds.get(ThreadLocalRandom.current().nextInt(loanIds.size()));
+        }
+    }
+}
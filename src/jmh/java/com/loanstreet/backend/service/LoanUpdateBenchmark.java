@@ -0,0 +1,188 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.LoanstreetBackendApplication;
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.dto.LoanUpdateRequest;
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.repository.LoanRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of updating a loan's terms through {@link LoanService#update}, which issues a
+ * single UPDATE ... RETURNING, against the previous load-mutate-flush path inside a
+ * transaction. Boots the application without a web server against the datasource in
+ * application.yml, so start Postgres first ({@code docker compose up postgres}).
+ * <p>
+ * Database round trips (statement executions plus commits and rollbacks) are counted on
+ * the pooled connections and printed per operation after each iteration.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanUpdateBenchmark {
+
+    private static final int SEED_LOANS = 1_000;
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong operations = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private LoanRepository loanRepository;
+    private PaymentCalculator paymentCalculator;
+    private TransactionTemplate transactionTemplate;
+    private List<UUID> loanIds;
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(LoanstreetBackendApplication.class,
+                "--spring.main.web-application-type=none",
+                "--spring.jpa.show-sql=false");
+        loanService = context.getBean(LoanService.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        paymentCalculator = context.getBean(PaymentCalculator.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        DelegatingDataSource dataSource = context.getBean(DelegatingDataSource.class);
+        dataSource.setTargetDataSource(countingRoundTrips(dataSource.getTargetDataSource()));
+
+        List<LoanEntity> seed = new ArrayList<>(SEED_LOANS);
+        for (int i = 0; i < SEED_LOANS; i++) {
+            LoanEntity entity = new LoanEntity();
+            entity.setAmount(new BigDecimal("10000.00"));
+            entity.setInterestRate(new BigDecimal("0.05"));
+            entity.setLengthInMonths(36);
+            entity.setMonthlyPaymentAmount(new BigDecimal("299.71"));
+            seed.add(entity);
+        }
+        loanIds = loanRepository.saveAll(seed).stream().map(LoanEntity::getId).toList();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        roundTrips.set(0);
+        operations.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRoundTrips() {
+        System.out.printf("%n  round trips/op: %.2f%n", (double) roundTrips.get() / Math.max(1, operations.get()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        loanRepository.deleteAllById(loanIds);
+        context.close();
+    }
+
+    @Benchmark
+    public Loan updateReturning() {
+        UUID id = randomLoanId();
+        operations.incrementAndGet();
+        return loanService.update(id, randomRequest()).orElseThrow();
+    }
+
+    @Benchmark
+    public Loan loadAndSave() {
+        UUID id = randomLoanId();
+        LoanUpdateRequest request = randomRequest();
+        operations.incrementAndGet();
+        return transactionTemplate.execute(status -> {
+            LoanEntity existing = loanRepository.findById(id).orElseThrow();
+            existing.setAmount(request.getAmount());
+            existing.setInterestRate(request.getInterestRate());
+            existing.setLengthInMonths(request.getLengthInMonths());
+            existing.setMonthlyPaymentAmount(paymentCalculator.resolve(request.getAmount(),
+                    request.getInterestRate(), request.getLengthInMonths(), request.getMonthlyPaymentAmount()));
+            return LoanService.toDto(loanRepository.saveAndFlush(existing));
+        });
+    }
+
+    private UUID randomLoanId() {
+        return loanIds.get(ThreadLocalRandom.current().nextInt(loanIds.size()));
+    }
+
+    /**
+     * A fresh amount every time, so the dirty check never skips the UPDATE. The payment is
+     * left to the lenient calculator.
+     */
+    private static LoanUpdateRequest randomRequest() {
+        return new LoanUpdateRequest()
+                .amount(BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(1_000_000, 2_000_000), 2))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(36)
+                .monthlyPaymentAmount(BigDecimal.ONE);
+    }
+
+    private DataSource countingRoundTrips(DataSource target) {
+        return proxy(DataSource.class, target, (method, result) ->
+                "getConnection".equals(method) ? proxy(Connection.class, (Connection) result, (m, r) -> {
+                    if ("commit".equals(m) || "rollback".equals(m)) {
+                        roundTrips.incrementAndGet();
+                    }
+                    return r instanceof Statement statement ? countingExecutions(statement) : r;
+                }) : result);
+    }
+
+    private Statement countingExecutions(Statement target) {
+        Class<?> type = target instanceof java.sql.CallableStatement ? java.sql.CallableStatement.class
+                : target instanceof java.sql.PreparedStatement ? java.sql.PreparedStatement.class
+                : Statement.class;
+        return (Statement) proxy(type, target, (method, result) -> {
+            if (method.startsWith("execute")) {
+                roundTrips.incrementAndGet();
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Object target, ResultMapper mapper) {
+        InvocationHandler handler = (p, method, args) -> {
+            try {
+                return mapper.map(method.getName(), method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(LoanUpdateBenchmark.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @FunctionalInterface
+    private interface ResultMapper {
+        Object map(String method, Object result) throws Throwable;
+    }
+}
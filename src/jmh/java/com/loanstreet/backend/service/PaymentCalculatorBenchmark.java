@@ -0,0 +1,57 @@
+package com.loanstreet.backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the payment calculation done on every write, against the
+ * {@code MathContext} path it falls back to. Run with {@code -prof gc} (the
+ * benchmarks profile default) to see bytes allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentCalculatorBenchmark {
+
+    @Param({"10000.00:0.05:36", "250000.00:0.065:360", "1500.00:0.1999:12"})
+    public String loan;
+
+    private PaymentCalculator calculator;
+    private BigDecimal amount;
+    private BigDecimal rate;
+    private int months;
+
+    @Setup
+    public void setUp() {
+        String[] parts = loan.split(":");
+        amount = new BigDecimal(parts[0]);
+        rate = new BigDecimal(parts[1]);
+        months = Integer.parseInt(parts[2]);
+        calculator = new PaymentCalculator(false, new BigDecimal("0.01"));
+    }
+
+    @Benchmark
+    public BigDecimal monthlyPayment() {
+        return calculator.monthlyPayment(amount, rate, months);
+    }
+
+    @Benchmark
+    public BigDecimal exactMonthlyPayment() {
+        return calculator.exactMonthlyPayment(amount, rate, months);
+    }
+}
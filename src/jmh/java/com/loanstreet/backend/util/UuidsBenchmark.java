@@ -0,0 +1,70 @@
+package com.loanstreet.backend.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Uuids} against the JDK calls it replaces in the request filter: validating by
+ * catching {@link UUID#fromString}'s exception, and {@link UUID#randomUUID()}, which
+ * draws from one shared {@code SecureRandom}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UuidsBenchmark {
+
+    private final String valid = UUID.randomUUID().toString();
+    private final String invalid = "not-a-valid-uuid";
+
+    @Benchmark
+    public boolean isValid_valid() {
+        return Uuids.isValid(valid);
+    }
+
+    @Benchmark
+    public boolean isValid_invalid() {
+        return Uuids.isValid(invalid);
+    }
+
+    @Benchmark
+    public boolean fromString_valid() {
+        return parses(valid);
+    }
+
+    @Benchmark
+    public boolean fromString_invalid() {
+        return parses(invalid);
+    }
+
+    @Benchmark
+    public String timeOrdered() {
+        return Uuids.timeOrdered().toString();
+    }
+
+    @Benchmark
+    public String randomUUID() {
+        return UUID.randomUUID().toString();
+    }
+
+    private static boolean parses(String value) {
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
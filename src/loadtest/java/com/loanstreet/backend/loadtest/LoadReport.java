@@ -0,0 +1,172 @@
+package com.loanstreet.backend.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution and outcomes of the requests of each scenario. Latency is
+ * recorded in nanoseconds, with three significant digits, into HdrHistogram recorders
+ * that any number of threads can write to at once.
+ */
+final class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final Map<Scenario, Recorder> latencies = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, Map<String, LongAdder>> outcomes = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, LongAdder> errors = new EnumMap<>(Scenario.class);
+
+    LoadReport() {
+        for (Scenario scenario : Scenario.values()) {
+            latencies.put(scenario, new Recorder(3));
+            outcomes.put(scenario, new ConcurrentHashMap<>());
+            errors.put(scenario, new LongAdder());
+        }
+    }
+
+    /**
+     * @param outcome the status code answered, or the exception that stood in for an answer
+     */
+    void record(Scenario scenario, long latencyNanos, String outcome, boolean error) {
+        latencies.get(scenario).recordValue(latencyNanos);
+        outcomes.get(scenario).computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        if (error) {
+            errors.get(scenario).increment();
+        }
+    }
+
+    /**
+     * Takes what was recorded so far, for a run that recorded over {@code duration}.
+     */
+    List<Result> results(Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        List<Result> results = new ArrayList<>();
+        for (Scenario scenario : Scenario.values()) {
+            Histogram histogram = latencies.get(scenario).getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            Map<String, Long> counts = new TreeMap<>();
+            outcomes.get(scenario).forEach((outcome, count) -> counts.put(outcome, count.sum()));
+            results.add(Result.of(scenario.key(), scenario.operation(), histogram, errors.get(scenario).sum(),
+                    counts, seconds));
+        }
+        return results;
+    }
+
+    /**
+     * The scenarios of each API operation together, such as getLoan with its missing and
+     * malformed IDs.
+     */
+    static List<Result> byOperation(List<Result> results, Duration duration) {
+        Map<String, List<Result>> operations = new LinkedHashMap<>();
+        for (Result result : results) {
+            operations.computeIfAbsent(result.operation(), operation -> new ArrayList<>()).add(result);
+        }
+        List<Result> merged = new ArrayList<>();
+        operations.forEach((operation, scenarios) -> merged.add(merge(operation, operation, scenarios, duration)));
+        return merged;
+    }
+
+    static Result total(List<Result> results, Duration duration) {
+        return merge("total", "", results, duration);
+    }
+
+    private static Result merge(String name, String operation, List<Result> results, Duration duration) {
+        Histogram histogram = new Histogram(3);
+        long errors = 0;
+        Map<String, Long> counts = new TreeMap<>();
+        for (Result result : results) {
+            histogram.add(result.histogram());
+            errors += result.errors();
+            result.outcomes().forEach((outcome, count) -> counts.merge(outcome, count, Long::sum));
+        }
+        return Result.of(name, operation, histogram, errors, counts, duration.toNanos() / 1e9);
+    }
+
+    static void print(PrintStream out, String title, List<Result> scenarios, List<Result> operations,
+                      Result total) {
+        out.println();
+        out.println(title);
+        String format = "%-20s %10s %9s %8s %7s %9s %9s %9s %9s  %s%n";
+        out.printf(format, "scenario", "requests", "req/s", "errors", "error%", "p50 ms", "p99 ms", "p99.9 ms",
+                "max ms", "outcomes");
+        scenarios.forEach(result -> print(out, format, result));
+        out.println();
+        out.printf(format, "operation", "", "", "", "", "", "", "", "", "");
+        operations.forEach(result -> print(out, format, result));
+        print(out, format, total);
+    }
+
+    private static void print(PrintStream out, String format, Result result) {
+        out.printf(format, result.scenario(), result.requests(), "%.1f".formatted(result.throughput()),
+                result.errors(), "%.2f".formatted(result.errorRate() * 100),
+                millis(result.p50()), millis(result.p99()), millis(result.p999()), millis(result.max()),
+                result.outcomes());
+    }
+
+    private static String millis(double value) {
+        return "%.2f".formatted(value);
+    }
+
+    /**
+     * Writes the report as JSON, and the full latency distribution of each scenario, in
+     * milliseconds, beside it as {@code <name>.<scenario>.hgrm} for HdrHistogram's plotter.
+     */
+    static void write(Path file, Map<String, Object> run, List<Result> scenarios, List<Result> operations,
+                      Result total) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Map<String, Object> report = new LinkedHashMap<>(run);
+        report.put("scenarios", scenarios);
+        report.put("operations", operations);
+        report.put("total", total);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+
+        String name = file.getFileName().toString().replaceFirst("\\.json$", "");
+        for (Result result : scenarios) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(
+                    directory.resolve(name + "." + result.scenario() + ".hgrm")))) {
+                result.histogram().outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+
+    /**
+     * One row of the report. Latencies are in milliseconds, throughput in requests per second.
+     */
+    record Result(String scenario, String operation, long requests, double throughput, long errors,
+                  double errorRate, double p50, double p90, double p99, double p999, double max,
+                  Map<String, Long> outcomes, @JsonIgnore Histogram histogram) {
+
+        static Result of(String scenario, String operation, Histogram histogram, long errors,
+                         Map<String, Long> outcomes, double seconds) {
+            long requests = histogram.getTotalCount();
+            return new Result(scenario, operation, requests, requests / seconds, errors,
+                    requests == 0 ? 0 : (double) errors / requests,
+                    percentile(histogram, 50), percentile(histogram, 90), percentile(histogram, 99),
+                    percentile(histogram, 99.9), histogram.getMaxValue() / NANOS_PER_MILLI, outcomes, histogram);
+        }
+
+        private static double percentile(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.loanstreet.backend.loadtest;
+
+import com.loanstreet.backend.LoanstreetBackendApplication;
+import com.loanstreet.backend.loadtest.LoadReport.Result;
+import com.loanstreet.backend.loadtest.LoadTestOptions.Model;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a weighted mix of loan traffic against the API and reports throughput, latency
+ * percentiles and error rates for each scenario and operation. See {@link LoadTestOptions}
+ * for the arguments.
+ * <p>
+ * The open model starts requests on a fixed schedule, whether or not earlier ones have
+ * been answered, as independent clients do, and measures each from when it was due to
+ * start. A server that falls behind therefore shows the wait its clients would see,
+ * rather than the generator quietly slowing down with it. The closed model keeps a fixed
+ * number of users each waiting for an answer before sending again, so its throughput is
+ * whatever the server sustains at that concurrency.
+ * <p>
+ * Without a {@code target}, the application is started in this JVM on a random port,
+ * against H2 (the test profile) or the Postgres in application.yml. It then shares the
+ * CPU with the generator, so for numbers to compare across releases start it on its own
+ * and pass its URL.
+ */
+public final class LoadTest {
+
+    private static final int SEED_CONCURRENCY = 16;
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(10);
+
+    private final LoadTestOptions options;
+    private final URI baseUri;
+    private final HttpClient client;
+    private final LoanTraffic traffic;
+    private final Scenario[] mix;
+    private final int[] cumulativeWeights;
+    private final LoadReport report = new LoadReport();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private long recordFrom;
+    private long recordUntil;
+
+    LoadTest(LoadTestOptions options, URI baseUri) {
+        this.options = options;
+        this.baseUri = baseUri;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.timeout())
+                .build();
+        this.traffic = new LoanTraffic(baseUri, options.timeout());
+
+        List<Scenario> scenarios = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Scenario, Integer> entry : options.mix().entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                scenarios.add(entry.getKey());
+                weights.add(total);
+            }
+        }
+        this.mix = scenarios.toArray(Scenario[]::new);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        ConfigurableApplicationContext context = null;
+        URI baseUri = options.target();
+        if (baseUri == null) {
+            context = startApplication(options);
+            baseUri = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+        }
+        try {
+            new LoadTest(options, baseUri).run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestOptions options) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.profiles.active=" + ("h2".equals(options.database()) ? "test" : "default"),
+                "--spring.jpa.show-sql=false"));
+        args.addAll(options.applicationArgs());
+        System.out.println("Starting the application on " + options.database());
+        return SpringApplication.run(LoanstreetBackendApplication.class, args.toArray(String[]::new));
+    }
+
+    void run() throws Exception {
+        seed();
+
+        long start = System.nanoTime();
+        recordFrom = start + options.warmup().toNanos();
+        recordUntil = recordFrom + options.duration().toNanos();
+        System.out.println("Running " + describe());
+
+        Thread progress = Thread.ofVirtual().start(this::printProgress);
+        try {
+            if (options.model() == Model.OPEN) {
+                runOpen(start);
+            } else {
+                runClosed();
+            }
+        } finally {
+            progress.interrupt();
+        }
+
+        List<Result> scenarios = report.results(options.duration());
+        List<Result> operations = LoadReport.byOperation(scenarios, options.duration());
+        Result total = LoadReport.total(scenarios, options.duration());
+        LoadReport.print(System.out, describe(), scenarios, operations, total);
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("target", baseUri.toString());
+        run.put("database", options.target() == null ? options.database() : null);
+        run.put("model", options.model().name().toLowerCase());
+        run.put(options.model() == Model.OPEN ? "rate" : "users",
+                options.model() == Model.OPEN ? options.rate() : options.users());
+        run.put("warmupSeconds", options.warmup().toMillis() / 1000.0);
+        run.put("durationSeconds", options.duration().toMillis() / 1000.0);
+        LoadReport.write(options.result(), run, scenarios, operations, total);
+        System.out.println();
+        System.out.println("Report written to " + options.result().toAbsolutePath());
+    }
+
+    /**
+     * Creates the loans the first reads and updates go to. These requests are not recorded.
+     */
+    private void seed() throws InterruptedException {
+        if (options.seedLoans() <= 0) {
+            return;
+        }
+        System.out.println("Creating " + options.seedLoans() + " loans");
+        Semaphore permits = new Semaphore(SEED_CONCURRENCY);
+        AtomicReference<String> failure = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.seedLoans() && failure.get() == null; i++) {
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        HttpResponse<String> response = client.send(traffic.request(Scenario.CREATE_LOAN),
+                                HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 201) {
+                            failure.compareAndSet(null, response.statusCode() + " " + response.body());
+                        }
+                        traffic.onResponse(Scenario.CREATE_LOAN, response);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e.toString());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Creating the seed loans failed: " + failure.get());
+        }
+    }
+
+    /**
+     * Starts a request every 1/rate seconds until the run ends. Only when
+     * {@code max-in-flight} requests are already waiting does the schedule slip, and
+     * those late starts still count their delay.
+     */
+    private void runOpen(long start) throws InterruptedException {
+        double interval = 1e9 / options.rate();
+        Semaphore inFlight = new Semaphore(options.maxInFlight());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long due = start + (long) (i * interval);
+                if (due - recordUntil >= 0) {
+                    break;
+                }
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        send(nextScenario(), due);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private void runClosed() {
+        long thinkNanos = options.thinkTime().toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < options.users(); user++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() - recordUntil < 0) {
+                        send(nextScenario(), System.nanoTime());
+                        if (thinkNanos > 0) {
+                            LockSupport.parkNanos(thinkNanos);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Sends one request and records it if it was due inside the recorded part of the run.
+     */
+    private void send(Scenario scenario, long due) {
+        String outcome;
+        boolean error;
+        try {
+            HttpResponse<String> response = client.send(traffic.request(scenario), HttpResponse.BodyHandlers.ofString());
+            traffic.onResponse(scenario, response);
+            outcome = Integer.toString(response.statusCode());
+            error = response.statusCode() != scenario.expectedStatus();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            outcome = e.getClass().getSimpleName();
+            error = true;
+        }
+        long latency = System.nanoTime() - due;
+        sent.increment();
+        if (error) {
+            failed.increment();
+        }
+        if (due - recordFrom >= 0 && due - recordUntil < 0) {
+            report.record(scenario, latency, outcome, error);
+        }
+    }
+
+    private Scenario nextScenario() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return mix[i];
+            }
+        }
+        throw new IllegalStateException("Weight " + pick + " beyond the mix");
+    }
+
+    private void printProgress() {
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                TimeUnit.NANOSECONDS.sleep(PROGRESS_INTERVAL.toNanos());
+                long now = System.nanoTime();
+                System.out.printf("%4ds %s  %d requests, %d errors%n", TimeUnit.NANOSECONDS.toSeconds(now - start),
+                        now - recordFrom < 0 ? "warming up" : "recording ", sent.sum(), failed.sum());
+            }
+        } catch (InterruptedException e) {
+            // The run is over
+        }
+    }
+
+    private String describe() {
+        String load = options.model() == Model.OPEN
+                ? "open model, %s requests/s".formatted(BigDecimal.valueOf(options.rate()).stripTrailingZeros()
+                .toPlainString())
+                : "closed model, %d users, %s think time".formatted(options.users(), print(options.thinkTime()));
+        return "%s against %s: %s warmup, %s recorded".formatted(load, baseUri, print(options.warmup()),
+                print(options.duration()));
+    }
+
+    private static String print(Duration duration) {
+        return DurationStyle.SIMPLE.print(duration,
+                duration.toMillis() % 1000 == 0 ? ChronoUnit.SECONDS : ChronoUnit.MILLIS);
+    }
+}
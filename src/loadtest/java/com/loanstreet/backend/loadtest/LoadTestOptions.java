@@ -0,0 +1,139 @@
+package com.loanstreet.backend.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of a run, from {@code key=value} arguments. Keys with a dot in them, such as
+ * {@code spring.datasource.url}, are passed on to the application when the harness
+ * starts it.
+ */
+record LoadTestOptions(URI target, String database, Model model, double rate, int maxInFlight, int users,
+                       Duration thinkTime, Duration warmup, Duration duration, Duration timeout, int seedLoans,
+                       Map<Scenario, Integer> mix, Path result, List<String> applicationArgs) {
+
+    enum Model {
+        /** Requests start at a fixed rate, however long earlier ones take. */
+        OPEN,
+        /** A fixed number of users each send a request, wait for it, and think before the next. */
+        CLOSED
+    }
+
+    static final String USAGE = """
+            Arguments, all optional, as key=value:
+              target=http://host:port   An application already running; without it, one is started in-process
+              database=h2|postgres      Database of the started application (default h2)
+              model=open|closed         Constant arrival rate, or a fixed number of users (default open)
+              rate=200                  Requests per second of the open model
+              max-in-flight=1000        Requests the open model lets wait for an answer before it holds back
+              users=50                  Users of the closed model
+              think-time=0ms            Pause of a closed-model user between requests
+              warmup=10s                Run time before recording starts
+              duration=60s              Recorded run time
+              timeout=10s               Answer time after which a request counts as failed
+              seed-loans=1000           Loans created before the run, for reads and updates to pick from
+              mix=getLoan=60,createLoan=15,...  Relative weights of the scenarios; unlisted ones are not sent
+              result=loadtest-result.json       JSON report; latency distributions go beside it
+              any.spring.property=value Passed to the started application
+            Scenarios: getLoan, createLoan, updateLoan, getLoan.missing, getLoan.malformedId,
+            createLoan.invalid, updateLoan.stale""";
+
+    static LoadTestOptions parse(String... args) {
+        URI target = null;
+        String database = "h2";
+        Model model = Model.OPEN;
+        double rate = 200;
+        int maxInFlight = 1000;
+        int users = 50;
+        Duration thinkTime = Duration.ZERO;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(60);
+        Duration timeout = Duration.ofSeconds(10);
+        int seedLoans = 1000;
+        Map<Scenario, Integer> mix = defaultMix();
+        Path result = Path.of("loadtest-result.json");
+        List<String> applicationArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            String key = arg.substring(0, equals);
+            String value = arg.substring(equals + 1);
+            switch (key) {
+                case "target" -> target = URI.create(value);
+                case "database" -> {
+                    if (!value.equals("h2") && !value.equals("postgres")) {
+                        throw new IllegalArgumentException("database must be h2 or postgres: " + value);
+                    }
+                    database = value;
+                }
+                case "model" -> model = Model.valueOf(value.toUpperCase());
+                case "rate" -> rate = positive(key, Double.parseDouble(value));
+                case "max-in-flight" -> maxInFlight = (int) positive(key, Integer.parseInt(value));
+                case "users" -> users = (int) positive(key, Integer.parseInt(value));
+                case "think-time" -> thinkTime = DurationStyle.detectAndParse(value);
+                case "warmup" -> warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> duration = DurationStyle.detectAndParse(value);
+                case "timeout" -> timeout = DurationStyle.detectAndParse(value);
+                case "seed-loans" -> seedLoans = Integer.parseInt(value);
+                case "mix" -> mix = parseMix(value);
+                case "result" -> result = Path.of(value);
+                default -> {
+                    if (!key.contains(".")) {
+                        throw new IllegalArgumentException("Unknown argument: " + key);
+                    }
+                    applicationArgs.add("--" + arg);
+                }
+            }
+        }
+        if (duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException("duration must be positive: " + duration);
+        }
+        return new LoadTestOptions(target, database, model, rate, maxInFlight, users, thinkTime, warmup, duration,
+                timeout, seedLoans, mix, result, List.copyOf(applicationArgs));
+    }
+
+    private static Map<Scenario, Integer> defaultMix() {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (Scenario scenario : Scenario.values()) {
+            mix.put(scenario, scenario.defaultWeight());
+        }
+        return Collections.unmodifiableMap(mix);
+    }
+
+    private static Map<Scenario, Integer> parseMix(String value) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected scenario=weight in mix: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in mix: " + entry);
+            }
+            mix.put(Scenario.of(parts[0].trim()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("mix sends nothing: " + value);
+        }
+        return Collections.unmodifiableMap(mix);
+    }
+
+    private static double positive(String key, double value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(key + " must be positive: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,111 @@
+package com.loanstreet.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loanstreet.backend.service.PaymentCalculator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Builds the requests of each scenario, with loans that look like real ones: amounts from
+ * a thousand to half a million, rates up to 25% and the usual terms, each with its
+ * correct monthly payment. Reads and updates go to loans created earlier in the run,
+ * picked at random from the most recent {@value #KNOWN_LOANS}.
+ */
+final class LoanTraffic {
+
+    private static final int KNOWN_LOANS = 100_000;
+    private static final int[] TERMS = {12, 24, 36, 48, 60, 84, 120, 180, 240, 360};
+    private static final String LOAN_BODY = """
+            {"amount":%s,"interestRate":%s,"lengthInMonths":%d,"monthlyPaymentAmount":%s}""";
+    private static final String INVALID_BODY = """
+            {"amount":-%s,"interestRate":1.5,"lengthInMonths":0}""";
+    private static final String STALE_ETAG = "\"999999999\"";
+
+    private final URI loansUri;
+    private final Duration timeout;
+    private final PaymentCalculator paymentCalculator = new PaymentCalculator(false, new BigDecimal("0.01"));
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReferenceArray<UUID> knownLoans = new AtomicReferenceArray<>(KNOWN_LOANS);
+    private final AtomicLong created = new AtomicLong();
+
+    LoanTraffic(URI baseUri, Duration timeout) {
+        this.loansUri = baseUri.resolve("/api/loans");
+        this.timeout = timeout;
+    }
+
+    HttpRequest request(Scenario scenario) {
+        return switch (scenario) {
+            case GET_LOAN -> builder(loanUri(knownLoan())).GET().build();
+            case GET_LOAN_MISSING -> builder(loanUri(UUID.randomUUID())).GET().build();
+            case GET_LOAN_MALFORMED_ID -> builder(URI.create(loansUri + "/not-a-uuid")).GET().build();
+            case CREATE_LOAN -> json(builder(loansUri)).POST(bodyOf(loanBody())).build();
+            case CREATE_LOAN_INVALID -> json(builder(loansUri))
+                    .POST(bodyOf(INVALID_BODY.formatted(randomAmount()))).build();
+            case UPDATE_LOAN -> json(builder(loanUri(knownLoan()))).PUT(bodyOf(loanBody())).build();
+            case UPDATE_LOAN_STALE -> json(builder(loanUri(knownLoan())))
+                    .header("If-Match", STALE_ETAG)
+                    .PUT(bodyOf(loanBody())).build();
+        };
+    }
+
+    /**
+     * Remembers the loan a successful create made, for later reads and updates.
+     */
+    void onResponse(Scenario scenario, HttpResponse<String> response) throws IOException {
+        if (scenario == Scenario.CREATE_LOAN && response.statusCode() == 201) {
+            JsonNode loan = objectMapper.readTree(response.body());
+            knownLoans.set((int) (created.getAndIncrement() % KNOWN_LOANS), UUID.fromString(loan.get("id").asText()));
+        }
+    }
+
+    private UUID knownLoan() {
+        long count = Math.min(created.get(), KNOWN_LOANS);
+        if (count == 0) {
+            return UUID.randomUUID();
+        }
+        UUID id = knownLoans.get(ThreadLocalRandom.current().nextInt((int) count));
+        // A slot claimed by a create that has not stored its ID yet
+        return id != null ? id : UUID.randomUUID();
+    }
+
+    private String loanBody() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BigDecimal amount = randomAmount();
+        BigDecimal rate = BigDecimal.valueOf(random.nextInt(100, 2500), 4);
+        int term = TERMS[random.nextInt(TERMS.length)];
+        BigDecimal payment = paymentCalculator.monthlyPayment(amount, rate, term);
+        return LOAN_BODY.formatted(amount.toPlainString(), rate.toPlainString(), term, payment.toPlainString());
+    }
+
+    private static BigDecimal randomAmount() {
+        return BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(10, 5000) * 100L, 0).setScale(2);
+    }
+
+    private URI loanUri(UUID id) {
+        return URI.create(loansUri + "/" + id);
+    }
+
+    private HttpRequest.Builder builder(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("X-Request-ID", UUID.randomUUID().toString());
+    }
+
+    private static HttpRequest.Builder json(HttpRequest.Builder builder) {
+        return builder.header("Content-Type", "application/json");
+    }
+
+    private static HttpRequest.BodyPublisher bodyOf(String body) {
+        return HttpRequest.BodyPublishers.ofString(body);
+    }
+}
@@ -0,0 +1,59 @@
+package com.loanstreet.backend.loadtest;
+
+/**
+ * The requests the harness sends, each an API operation with the status a healthy server
+ * answers it with. Anything else, or no answer at all, counts as an error of the scenario.
+ * The invalid ones go through {@code GlobalExceptionHandler}, as bad client input does in
+ * production. The default weights are the mix used when no {@code mix} is given.
+ */
+enum Scenario {
+
+    GET_LOAN("getLoan", "getLoan", 200, 60),
+    CREATE_LOAN("createLoan", "createLoan", 201, 15),
+    UPDATE_LOAN("updateLoan", "updateLoan", 200, 10),
+    // A random ID nobody created
+    GET_LOAN_MISSING("getLoan.missing", "getLoan", 404, 4),
+    // An ID that is not a UUID
+    GET_LOAN_MALFORMED_ID("getLoan.malformedId", "getLoan", 400, 2),
+    // Out of range amount, rate and term, and no payment
+    CREATE_LOAN_INVALID("createLoan.invalid", "createLoan", 400, 5),
+    // An If-Match naming a version the loan does not have
+    UPDATE_LOAN_STALE("updateLoan.stale", "updateLoan", 412, 4);
+
+    private final String key;
+    private final String operation;
+    private final int expectedStatus;
+    private final int defaultWeight;
+
+    Scenario(String key, String operation, int expectedStatus, int defaultWeight) {
+        this.key = key;
+        this.operation = operation;
+        this.expectedStatus = expectedStatus;
+        this.defaultWeight = defaultWeight;
+    }
+
+    String key() {
+        return key;
+    }
+
+    String operation() {
+        return operation;
+    }
+
+    int expectedStatus() {
+        return expectedStatus;
+    }
+
+    int defaultWeight() {
+        return defaultWeight;
+    }
+
+    static Scenario of(String key) {
+        for (Scenario scenario : values()) {
+            if (scenario.key.equals(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + key);
+    }
+}
@@ -3,9 +3,13 @@ package com.loanstreet.backend;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Slf4j
-@SpringBootApplication
+// The reactive profile builds its R2DBC pool itself; see ReactiveDatabaseConfig
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@EnableScheduling
 public class LoanstreetBackendApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,130 @@
+package com.loanstreet.backend.config;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits at most {@code permits} callers to the pool at once, normally the pool size.
+ * The rest wait in FIFO order on a semaphore, which is cheap for virtual threads, and
+ * give up after {@code maxWait} so an overloaded instance sheds load quickly instead of
+ * piling thousands of waiters onto the pool. A permit is held until the connection is
+ * closed.
+ * <p>
+ * Hikari's own {@code connection-timeout} alone would not do the same. A caller arriving
+ * while a connection is being returned can take it from the pool's shared list ahead of
+ * callers already waiting for the hand-off, so under overload some waiters time out while
+ * later arrivals are served. Behind a fair semaphore with exactly as many permits as
+ * connections, a permit holder finds a connection without competing, waits are served
+ * strictly in arrival order, and {@code connection-timeout} keeps bounding only what it
+ * is good at: opening and validating physical connections.
+ * <p>
+ * Closing this data source closes the pool behind it, since it replaces the pool's bean
+ * and with it the pool's inferred destroy method.
+ */
+public class AdmissionControlledDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final Duration maxWait;
+
+    public AdmissionControlledDataSource(DataSource targetDataSource, int permits, Duration maxWait) {
+        super(targetDataSource);
+        this.permits = new Semaphore(permits, true);
+        this.maxPermits = permits;
+        this.maxWait = maxWait;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquirePermit();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquirePermit();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable target) {
+            target.close();
+        }
+    }
+
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    private void acquirePermit() throws SQLException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+        if (!acquired) {
+            throw new SQLTransientConnectionException(
+                    "No database connection available within " + maxWait.toMillis() + "ms");
+        }
+    }
+
+    private Connection releasingOnClose(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "getTargetConnection" -> target;
+                    case "close" -> {
+                        try {
+                            target.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        yield null;
+                    }
+                    default -> {
+                        try {
+                            yield method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,69 @@
+package com.loanstreet.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts an {@link AdmissionControlledDataSource} sized to the Hikari pool in front of
+ * the auto-configured pool. This matters most with {@code spring.threads.virtual.enabled},
+ * where request concurrency is no longer capped by the Tomcat thread pool.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "loanstreet.datasource.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceAdmissionConfig {
+
+    // What Hikari falls back to when maximum-pool-size is not configured
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    static BeanPostProcessor dataSourceAdmissionPostProcessor(Environment environment) {
+        Duration maxWait = environment.getProperty("loanstreet.datasource.admission.max-wait",
+                Duration.class, Duration.ofSeconds(5));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    // Hikari only fills in its defaults when the pool starts
+                    int permits = hikari.getMaximumPoolSize() > 0
+                            ? hikari.getMaximumPoolSize()
+                            : HIKARI_DEFAULT_POOL_SIZE;
+                    log.info("Admitting at most {} concurrent connection holders to pool {}, max wait {}",
+                            permits, hikari.getPoolName(), maxWait);
+                    return new AdmissionControlledDataSource(hikari, permits, maxWait);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder dataSourceAdmissionMetrics(DataSource dataSource) {
+        return registry -> {
+            // With read replicas the pool sits behind ReplicaDataSourceConfig's routing proxy
+            if (unwrap(dataSource) instanceof AdmissionControlledDataSource admission) {
+                Gauge.builder("db.admission.available", admission, AdmissionControlledDataSource::getAvailablePermits)
+                        .description("Connection permits not currently held")
+                        .register(registry);
+                Gauge.builder("db.admission.waiting", admission, AdmissionControlledDataSource::getQueueLength)
+                        .description("Callers waiting for a connection permit")
+                        .register(registry);
+            }
+        };
+    }
+
+    private static DataSource unwrap(DataSource dataSource) {
+        return dataSource instanceof LazyConnectionDataSourceProxy proxy ? proxy.getTargetDataSource() : dataSource;
+    }
+}
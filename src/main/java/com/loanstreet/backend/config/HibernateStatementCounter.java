@@ -0,0 +1,37 @@
+package com.loanstreet.backend.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between
+ * {@link #begin()} and {@link #end()}. Statements issued through {@code JdbcTemplate}
+ * do not pass through Hibernate and are not counted.
+ */
+public final class HibernateStatementCounter implements StatementInspector {
+
+    static final HibernateStatementCounter INSTANCE = new HibernateStatementCounter();
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    private HibernateStatementCounter() {
+    }
+
+    public static void begin() {
+        COUNT.set(new long[1]);
+    }
+
+    public static long end() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
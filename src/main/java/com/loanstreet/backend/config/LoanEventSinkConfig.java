@@ -0,0 +1,39 @@
+package com.loanstreet.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loanstreet.backend.service.FileLoanEventSink;
+import com.loanstreet.backend.service.InMemoryLoanEventSink;
+import com.loanstreet.backend.service.LoanEventSink;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The {@link LoanEventSink} named by {@code loanstreet.outbox.sink}: {@code memory}, the
+ * default, or {@code file}. Any other value registers none, for a sink declared as a bean
+ * of its own.
+ */
+@Slf4j
+@Configuration
+public class LoanEventSinkConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "loanstreet.outbox.sink", havingValue = "memory", matchIfMissing = true)
+    InMemoryLoanEventSink inMemoryLoanEventSink(@Value("${loanstreet.outbox.memory.capacity:10000}") int capacity) {
+        log.info("Publishing loan events to memory, keeping the last {}", capacity);
+        return new InMemoryLoanEventSink(capacity);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "loanstreet.outbox.sink", havingValue = "file")
+    FileLoanEventSink fileLoanEventSink(@Value("${loanstreet.outbox.file.path:loan-events.ndjson}") Path path,
+                                        ObjectMapper objectMapper) throws IOException {
+        log.info("Publishing loan events to {}", path.toAbsolutePath());
+        return new FileLoanEventSink(path, objectMapper.writer());
+    }
+}
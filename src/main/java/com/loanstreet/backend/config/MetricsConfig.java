@@ -0,0 +1,91 @@
+package com.loanstreet.backend.config;
+
+import com.loanstreet.backend.filter.RequestIdFilter;
+import com.loanstreet.backend.filter.RequestMetricsFilter;
+import io.micrometer.common.KeyValues;
+import io.prometheus.metrics.tracer.common.SpanContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+
+/**
+ * Metrics that the actuator does not provide on its own. Request timers, servlet and
+ * reactive, gain an {@code operation} tag naming the API operation. Their histogram buckets in the
+ * Prometheus scrape carry the request ID as an exemplar, so a latency spike leads
+ * straight to the logs of a request that caused it. Hibernate also reports each
+ * statement it prepares to {@link HibernateStatementCounter}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    ServerRequestObservationConvention operationTaggingObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context)
+                        .and(RequestMetricsFilter.OPERATION_TAG, RequestMetricsFilter.operation(context.getCarrier()));
+            }
+        };
+    }
+
+    /**
+     * The same {@code operation} tag on the reactive profile's request timers.
+     */
+    @Bean
+    org.springframework.http.server.reactive.observation.ServerRequestObservationConvention
+    reactiveOperationTaggingObservationConvention() {
+        return new org.springframework.http.server.reactive.observation.DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(
+                    org.springframework.http.server.reactive.observation.ServerRequestObservationContext context) {
+                Object handler = context.getAttributes().get(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+                return super.getLowCardinalityKeyValues(context)
+                        .and(RequestMetricsFilter.OPERATION_TAG, handler instanceof HandlerMethod method
+                                ? method.getMethod().getName()
+                                : RequestMetricsFilter.NO_OPERATION);
+            }
+        };
+    }
+
+    /**
+     * Hands the request ID to the Prometheus exemplar sampler in place of a trace ID.
+     * Exemplars only appear when the scrape asks for the OpenMetrics format.
+     */
+    @Bean
+    SpanContext requestIdSpanContext() {
+        return new SpanContext() {
+            @Override
+            public String getCurrentTraceId() {
+                return MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY);
+            }
+
+            @Override
+            public String getCurrentSpanId() {
+                // The sampler wants both IDs; a request has only the one
+                return MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY);
+            }
+
+            @Override
+            public boolean isCurrentSpanSampled() {
+                return MDC.get(RequestIdFilter.REQUEST_ID_MDC_KEY) != null;
+            }
+
+            @Override
+            public void markCurrentSpanAsExemplar() {
+            }
+        };
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer statementCountingCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, HibernateStatementCounter.INSTANCE);
+    }
+}
@@ -0,0 +1,19 @@
+package com.loanstreet.backend.config;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.Size;
+import org.reactivestreams.Publisher;
+
+/**
+ * {@link Size} on a streamed request body, which the reactive API declares for the
+ * batch create. Its size is only known once it has been read, so it passes here and
+ * the controller checks the collected elements against the same bounds.
+ */
+public class PublisherSizeValidator implements ConstraintValidator<Size, Publisher<?>> {
+
+    @Override
+    public boolean isValid(Publisher<?> value, ConstraintValidatorContext context) {
+        return true;
+    }
+}
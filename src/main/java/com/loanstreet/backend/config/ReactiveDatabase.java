@@ -0,0 +1,52 @@
+package com.loanstreet.backend.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+/**
+ * The R2DBC connection pool the reactive profile serves requests from, with a client and
+ * transaction operators bound to it. None of these is a bean of its own: a
+ * {@code ConnectionFactory} bean would make Boot back off from the JDBC DataSource, and
+ * a second transaction manager from the JPA one, and the reactive profile keeps both
+ * for Flyway, imports and the scheduled jobs.
+ */
+public final class ReactiveDatabase {
+
+    private final ConnectionPool pool;
+    private final DatabaseClient client;
+    private final TransactionalOperator transactions;
+    private final TransactionalOperator readOnlyTransactions;
+
+    public ReactiveDatabase(ConnectionPool pool) {
+        this.pool = pool;
+        this.client = DatabaseClient.create(pool);
+        R2dbcTransactionManager transactionManager = new R2dbcTransactionManager(pool);
+        this.transactions = TransactionalOperator.create(transactionManager);
+        DefaultTransactionDefinition readOnly = new DefaultTransactionDefinition();
+        readOnly.setReadOnly(true);
+        this.readOnlyTransactions = TransactionalOperator.create(transactionManager, readOnly);
+    }
+
+    public ConnectionPool pool() {
+        return pool;
+    }
+
+    public DatabaseClient client() {
+        return client;
+    }
+
+    public TransactionalOperator transactions() {
+        return transactions;
+    }
+
+    public TransactionalOperator readOnlyTransactions() {
+        return readOnlyTransactions;
+    }
+
+    public void dispose() {
+        pool.dispose();
+    }
+}
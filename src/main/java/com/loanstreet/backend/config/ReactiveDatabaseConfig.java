@@ -0,0 +1,103 @@
+package com.loanstreet.backend.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.validation.constraints.Size;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.validator.HibernateValidatorConfiguration;
+import org.hibernate.validator.cfg.ConstraintMapping;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.actuate.r2dbc.ConnectionFactoryHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.autoconfigure.validation.ValidationConfigurationCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The reactive profile's serving stack: Netty, validation of streamed request bodies,
+ * and an R2DBC pool on the same database
+ * as {@code spring.datasource}. Boot's own R2DBC auto-configuration is excluded (see
+ * {@link ReactiveDatabase} for why), so the pool is built here from
+ * {@code spring.r2dbc.*}. An exhausted pool fails a request after
+ * {@code spring.r2dbc.pool.max-acquire-time}, as the admission limit does on the JDBC side.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveDatabaseConfig {
+
+    static final String POOL_NAME = "r2dbc";
+
+    /**
+     * Tomcat stays on the classpath for the servlet profile, and Boot would otherwise
+     * prefer it to Netty for a reactive server too.
+     */
+    @Bean
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Hibernate Validator has no {@link Size} validator for the {@code Flux} body of the
+     * generated batch create, and would fail the call instead of validating it.
+     */
+    @Bean
+    ValidationConfigurationCustomizer publisherSizeValidation() {
+        return configuration -> {
+            if (configuration instanceof HibernateValidatorConfiguration hibernate) {
+                ConstraintMapping mapping = hibernate.createConstraintMapping();
+                mapping.constraintDefinition(Size.class)
+                        .includeExistingValidators(true)
+                        .validatedBy(PublisherSizeValidator.class);
+                hibernate.addMapping(mapping);
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "dispose")
+    ReactiveDatabase reactiveDatabase(R2dbcProperties properties) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (properties.getUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (properties.getPassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        R2dbcProperties.Pool pool = properties.getPool();
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name(POOL_NAME)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .minIdle(pool.getMinIdle())
+                .maxIdleTime(pool.getMaxIdleTime());
+        if (pool.getMaxAcquireTime() != null) {
+            configuration.maxAcquireTime(pool.getMaxAcquireTime());
+        }
+        if (pool.getMaxCreateConnectionTime() != null) {
+            configuration.maxCreateConnectionTime(pool.getMaxCreateConnectionTime());
+        }
+        log.info("R2DBC pool of at most {} connections, max acquire time {}",
+                pool.getMaxSize(), pool.getMaxAcquireTime());
+        return new ReactiveDatabase(new ConnectionPool(configuration.build()));
+    }
+
+    @Bean
+    MeterBinder reactiveDatabaseMetrics(ReactiveDatabase database) {
+        return new ConnectionPoolMetrics(database.pool(), POOL_NAME, Tags.empty());
+    }
+
+    @Bean
+    ReactiveHealthIndicator r2dbcHealthIndicator(ReactiveDatabase database) {
+        return new ConnectionFactoryHealthIndicator(database.pool());
+    }
+}
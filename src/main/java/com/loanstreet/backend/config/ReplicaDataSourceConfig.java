@@ -0,0 +1,91 @@
+package com.loanstreet.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to the read replicas listed in
+ * {@code loanstreet.datasource.replicas.urls} and everything else to the primary. The
+ * primary pool is the one {@code spring.datasource} describes; it is built here because
+ * Boot backs off as soon as any DataSource bean exists. The DataSource everything else
+ * uses is a {@link LazyConnectionDataSourceProxy}, which only takes a real connection at
+ * the first statement, once the transaction has marked it read-only or not.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnExpression("'${loanstreet.datasource.replicas.urls:}' != ''")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    ReplicaRoutingDataSource replicaDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                               DataSourceProperties properties, MeterRegistry meterRegistry,
+                                               @Value("${loanstreet.datasource.replicas.urls}") List<String> urls,
+                                               @Value("${loanstreet.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+                                               @Value("${loanstreet.datasource.replicas.connection-timeout:1s}") Duration connectionTimeout,
+                                               @Value("${loanstreet.datasource.replicas.retry-after:30s}") Duration retryAfter) {
+        List<DataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i).trim())
+                    .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            // Fail over to the next replica or the primary quickly rather than after Hikari's 30s default
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            // Start even while a replica is down; it is retried every retryAfter
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        log.info("Routing read-only transactions to {} replica(s), falling back to the primary for {} after a failure",
+                replicas.size(), retryAfter);
+        return new ReplicaRoutingDataSource(primary, replicas, retryAfter);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, ReplicaRoutingDataSource replicas) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicas);
+        return dataSource;
+    }
+
+    @Bean
+    MeterBinder replicaDataSourceMetrics(ReplicaRoutingDataSource replicas) {
+        return registry -> {
+            Gauge.builder("db.replicas.available", replicas, ReplicaRoutingDataSource::getAvailableReplicas)
+                    .description("Read replicas not being skipped after a failed connection")
+                    .register(registry);
+            FunctionCounter.builder("db.replicas.fallbacks", replicas, ReplicaRoutingDataSource::getFallbacks)
+                    .description("Read-only connections taken from the primary because no replica could give one")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package com.loanstreet.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out connections from the read replicas in turn. A replica that fails to give a
+ * connection is skipped for {@code retryAfter}; when no replica can give one, the
+ * connection comes from the primary, so reads keep working while the replicas are down,
+ * at the primary's expense. A query that fails on a replica connection it already has is
+ * not retried elsewhere.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration retryAfter) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.retryAfterNanos = retryAfter.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (!replica.isAvailable()) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.skipUntil = System.nanoTime() + retryAfterNanos;
+                log.warn("Read replica {} unavailable, skipping it for {}ms: {}",
+                        replicas.indexOf(replica) + 1, retryAfterNanos / 1_000_000, e.getMessage());
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the credentials their pools were built with");
+    }
+
+    /**
+     * Replicas not currently being skipped after a failed connection.
+     */
+    public int getAvailableReplicas() {
+        return (int) replicas.stream().filter(Replica::isAvailable).count();
+    }
+
+    /**
+     * Read-only connections taken from the primary because no replica could give one.
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final DataSource dataSource;
+        private volatile long skipUntil = System.nanoTime();
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private boolean isAvailable() {
+            return System.nanoTime() - skipUntil >= 0;
+        }
+    }
+}
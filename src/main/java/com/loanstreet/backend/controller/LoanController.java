@@ -3,43 +3,235 @@ package com.loanstreet.backend.controller;
 import com.loanstreet.backend.api.LoansApi;
 import com.loanstreet.backend.dto.Loan;
 import com.loanstreet.backend.dto.LoanCreateRequest;
+import com.loanstreet.backend.dto.LoanImportReport;
+import com.loanstreet.backend.dto.LoanPage;
+import com.loanstreet.backend.dto.LoanStats;
 import com.loanstreet.backend.dto.LoanUpdateRequest;
+import com.loanstreet.backend.repository.LoanSearch;
+import com.loanstreet.backend.service.LoanChangeEvent;
+import com.loanstreet.backend.service.LoanChangeFeed;
+import com.loanstreet.backend.service.LoanChangeSubscription;
+import com.loanstreet.backend.service.LoanExportService;
+import com.loanstreet.backend.service.LoanImportService;
+import com.loanstreet.backend.service.LoanSchedule;
 import com.loanstreet.backend.service.LoanService;
+import com.loanstreet.backend.service.LoanStatsService;
+import com.loanstreet.backend.service.PortfolioCounters;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class LoanController implements LoansApi {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final LoanService loanService;
+    private final LoanExportService loanExportService;
+    private final LoanImportService loanImportService;
+    private final LoanStatsService loanStatsService;
+    private final PortfolioCounters portfolioCounters;
+    private final LoanChangeFeed loanChangeFeed;
 
-    public LoanController(LoanService loanService) {
+    public LoanController(LoanService loanService, LoanExportService loanExportService,
+                          LoanImportService loanImportService, LoanStatsService loanStatsService,
+                          PortfolioCounters portfolioCounters, LoanChangeFeed loanChangeFeed) {
         this.loanService = loanService;
+        this.loanExportService = loanExportService;
+        this.loanImportService = loanImportService;
+        this.loanStatsService = loanStatsService;
+        this.portfolioCounters = portfolioCounters;
+        this.loanChangeFeed = loanChangeFeed;
     }
 
     @Override
     public ResponseEntity<Loan> createLoan(LoanCreateRequest request, UUID xRequestID) {
-        Loan created = loanService.create(request);
+        Loan created = loanService.create(request, xRequestID);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(LoanETags.of(created.getVersion()))
+                .body(created);
+    }
+
+    @Override
+    public ResponseEntity<List<Loan>> createLoans(List<LoanCreateRequest> requests) {
+        List<Loan> created = loanService.createAll(requests);
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
     @Override
-    public ResponseEntity<Loan> getLoan(UUID id, UUID xRequestID) {
+    public ResponseEntity<StreamingResponseBody> exportLoans(String format, UUID xRequestID) {
+        // The body is written on an async executor thread, so carry the request ID across
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        boolean csv = "csv".equals(format);
+
+        StreamingResponseBody body = out -> {
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            try {
+                if (csv) {
+                    loanExportService.exportCsv(out);
+                } else {
+                    loanExportService.exportNdjson(out);
+                }
+            } finally {
+                MDC.clear();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "loans.csv" : "loans.ndjson")
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    @Override
+    public ResponseEntity<LoanImportReport> importLoans(InputStreamResource body, String format, UUID xRequestID) {
+        try (InputStream in = body.getInputStream()) {
+            LoanImportReport report = "ndjson".equals(format)
+                    ? loanImportService.importNdjson(in)
+                    : loanImportService.importCsv(in);
+            return ResponseEntity.ok(report);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import body", e);
+        }
+    }
+
+    @Override
+    public ResponseEntity<Loan> getLoan(UUID id, String ifNoneMatch, UUID xRequestID) {
+        if (ifNoneMatch != null) {
+            // Answer revalidation from the version column alone, without loading the loan
+            Long version = loanService.findVersion(id).orElse(null);
+            if (version != null && LoanETags.matchesIfNoneMatch(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(LoanETags.of(version))
+                        .build();
+            }
+        }
         Loan loan = loanService.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Loan not found: " + id));
-        return ResponseEntity.ok(loan);
+        return ResponseEntity.ok()
+                .eTag(LoanETags.of(loan.getVersion()))
+                .body(loan);
+    }
+
+    @Override
+    public ResponseEntity<LoanSchedule> getLoanSchedule(UUID id, Integer fromMonth, Integer toMonth, UUID xRequestID) {
+        LoanSchedule schedule = loanService.findSchedule(id, fromMonth, toMonth)
+                .orElseThrow(() -> new NoSuchElementException("Loan not found: " + id));
+        return ResponseEntity.ok(schedule);
+    }
+
+    @Override
+    public ResponseEntity<LoanStats> getLoanStats(UUID xRequestID) {
+        return ResponseEntity.ok(loanStatsService.stats());
+    }
+
+    @Override
+    public ResponseEntity<LoanStats> getLiveLoanStats(UUID xRequestID) {
+        return ResponseEntity.ok(portfolioCounters.stats());
     }
 
     @Override
-    public ResponseEntity<Loan> updateLoan(UUID id, LoanUpdateRequest request, UUID xRequestID) {
-        Loan loan = loanService.update(id, request)
-                .orElseThrow(() -> new NoSuchElementException("Loan not found for update: " + id));
-        return ResponseEntity.ok(loan);
+    public ResponseEntity<LoanPage> listLoans(String cursor, Integer limit, UUID xRequestID) {
+        return ResponseEntity.ok(loanService.findPage(cursor, limit));
+    }
+
+    @Override
+    public ResponseEntity<LoanPage> searchLoans(BigDecimal minAmount, BigDecimal maxAmount, BigDecimal minInterestRate,
+                                                BigDecimal maxInterestRate, Integer lengthInMonths,
+                                                OffsetDateTime createdFrom, OffsetDateTime createdTo, String cursor,
+                                                Integer limit, UUID xRequestID) {
+        LoanSearch search = new LoanSearch(minAmount, maxAmount, minInterestRate, maxInterestRate, lengthInMonths,
+                createdFrom == null ? null : createdFrom.toInstant(), createdTo == null ? null : createdTo.toInstant());
+        return ResponseEntity.ok(loanService.search(search, cursor, limit));
+    }
+
+    @Override
+    public ResponseEntity<Loan> updateLoan(UUID id, LoanUpdateRequest request, String ifMatch, UUID xRequestID) {
+        Set<Long> expectedVersions = ifMatch == null ? null : LoanETags.ifMatchVersions(ifMatch);
+        Loan loan = loanService.update(id, request, expectedVersions)
+                .orElseThrow(() -> LoanETags.missingForUpdate(id, ifMatch));
+        return ResponseEntity.ok()
+                .eTag(LoanETags.of(loan.getVersion()))
+                .body(loan);
+    }
+
+    /**
+     * Each stream is written by a virtual thread of its own, which blocks on the
+     * subscription between changes, so hundreds of streams hold no request threads.
+     */
+    @Override
+    public ResponseEntity<SseEmitter> streamLoanChanges(String after, String lastEventID, UUID xRequestID) {
+        LoanChangeSubscription subscription = loanChangeFeed.subscribe(lastEventID != null ? lastEventID : after);
+        SseEmitter emitter = new SseEmitter();
+        emitter.onCompletion(subscription::close);
+        emitter.onError(e -> subscription.close());
+
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        Thread.ofVirtual().name("loan-changes").start(() -> {
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            try {
+                sendChanges(subscription, emitter);
+            } finally {
+                MDC.clear();
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    private static void sendChanges(LoanChangeSubscription subscription, SseEmitter emitter) {
+        try {
+            while (!subscription.isClosed()) {
+                LoanChangeEvent change = subscription.next();
+                if (change == null) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    emitter.send(SseEmitter.event()
+                            .id(change.position().encode())
+                            .name(change.type().getValue())
+                            .data(change.data(), MediaType.APPLICATION_JSON));
+                }
+            }
+            emitter.complete();
+        } catch (InterruptedException e) {
+            // Closed while waiting for a change
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, or the stream timed out
+            log.debug("Change stream ended: {}", e.toString());
+            subscription.close();
+        } catch (RuntimeException e) {
+            log.error("Change stream failed", e);
+            subscription.close();
+            emitter.completeWithError(e);
+        }
     }
 }
@@ -0,0 +1,67 @@
+package com.loanstreet.backend.controller;
+
+import com.loanstreet.backend.exception.PreconditionFailedException;
+import org.springframework.http.ETag;
+
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Loan entity tags are the loan's {@code @Version}, so conditional requests can be
+ * answered from the version alone. {@link #of} is the one place the tag is formatted,
+ * including for the 412 that {@code GlobalExceptionHandler} answers.
+ */
+public final class LoanETags {
+
+    private LoanETags() {
+    }
+
+    public static String of(long version) {
+        return ETag.quoteETagIfNecessary(Long.toString(version));
+    }
+
+    /**
+     * Whether an If-None-Match header names this version, so the client's copy is current.
+     * If-None-Match uses weak comparison, so {@code W/"3"} matches version 3.
+     */
+    static boolean matchesIfNoneMatch(String ifNoneMatch, long version) {
+        String tag = Long.toString(version);
+        return ETag.parse(ifNoneMatch).stream()
+                .anyMatch(etag -> etag.isWildcard() || etag.tag().equals(tag));
+    }
+
+    /**
+     * Versions an If-Match header accepts, or null for {@code *}, which any version of an
+     * existing loan satisfies. If-Match uses strong comparison, so weak and non-numeric
+     * tags accept nothing.
+     */
+    static Set<Long> ifMatchVersions(String ifMatch) {
+        if (isWildcard(ifMatch)) {
+            return null;
+        }
+        return ETag.parse(ifMatch).stream()
+                .filter(etag -> !etag.weak())
+                .map(ETag::tag)
+                .filter(tag -> !tag.isEmpty() && tag.chars().allMatch(Character::isDigit) && tag.length() < 19)
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * The error for an update that found no loan. With {@code If-Match: *} that is a failed
+     * precondition rather than a 404, since {@code *} only holds for an existing
+     * representation (RFC 9110, section 13.1.1).
+     */
+    static RuntimeException missingForUpdate(UUID id, String ifMatch) {
+        if (ifMatch != null && isWildcard(ifMatch)) {
+            return new PreconditionFailedException("If-Match: * but loan " + id + " does not exist", null);
+        }
+        return new NoSuchElementException("Loan not found for update: " + id);
+    }
+
+    private static boolean isWildcard(String ifMatch) {
+        return ETag.parse(ifMatch).stream().anyMatch(ETag::isWildcard);
+    }
+}
@@ -0,0 +1,261 @@
+package com.loanstreet.backend.controller;
+
+import com.loanstreet.backend.api.reactive.LoansApi;
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.dto.LoanCreateRequest;
+import com.loanstreet.backend.dto.LoanImportReport;
+import com.loanstreet.backend.dto.LoanPage;
+import com.loanstreet.backend.dto.LoanStats;
+import com.loanstreet.backend.dto.LoanUpdateRequest;
+import com.loanstreet.backend.repository.LoanSearch;
+import com.loanstreet.backend.service.LoanChangeEvent;
+import com.loanstreet.backend.service.LoanChangeFeed;
+import com.loanstreet.backend.service.LoanChangeSubscription;
+import com.loanstreet.backend.service.LoanImportService;
+import com.loanstreet.backend.service.LoanSchedule;
+import com.loanstreet.backend.service.PortfolioCounters;
+import com.loanstreet.backend.service.ReactiveLoanService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Size;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link LoanController} for the reactive profile: the same operations from swagger.yaml,
+ * answered with the same statuses, headers and bodies.
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoanController implements LoansApi {
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    // How many request body buffers the import may read ahead of the parser
+    private static final int IMPORT_PREFETCH = 16;
+
+    // Change streams block between changes, each for as long as its client stays connected
+    private static final Scheduler CHANGE_STREAMS =
+            Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "loan-changes");
+
+    private final ReactiveLoanService loanService;
+    private final LoanImportService loanImportService;
+    private final PortfolioCounters portfolioCounters;
+    private final LoanChangeFeed loanChangeFeed;
+    private final Validator validator;
+
+    public ReactiveLoanController(ReactiveLoanService loanService, LoanImportService loanImportService,
+                                  PortfolioCounters portfolioCounters, LoanChangeFeed loanChangeFeed,
+                                  Validator validator) {
+        this.loanService = loanService;
+        this.loanImportService = loanImportService;
+        this.portfolioCounters = portfolioCounters;
+        this.loanChangeFeed = loanChangeFeed;
+        this.validator = validator;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Loan>> createLoan(Mono<LoanCreateRequest> request, UUID xRequestID,
+                                                 ServerWebExchange exchange) {
+        return request
+                .flatMap(body -> loanService.create(body, xRequestID))
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED)
+                        .eTag(LoanETags.of(created.getVersion()))
+                        .body(created));
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<Loan>>> createLoans(Flux<LoanCreateRequest> requests,
+                                                        ServerWebExchange exchange) {
+        // One transaction for the whole batch, as on the servlet stack
+        return requests.collectList()
+                .doOnNext(this::checkBatchSize)
+                .flatMap(loanService::createAll)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(Flux.fromIterable(created)));
+    }
+
+    /**
+     * The {@code @Size} of the generated signature, which cannot be checked on the stream
+     * itself; see {@code PublisherSizeValidator}.
+     */
+    private void checkBatchSize(List<LoanCreateRequest> requests) {
+        Set<ConstraintViolation<CreateLoansBody>> violations =
+                validator.validateValue(CreateLoansBody.class, "loanCreateRequest", requests);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+    }
+
+    /**
+     * The generated signature only allows a single buffer as the body, so the export is
+     * written to the response directly, as it is read, and no entity is returned.
+     */
+    @Override
+    public Mono<ResponseEntity<DataBuffer>> exportLoans(String format, UUID xRequestID, ServerWebExchange exchange) {
+        boolean csv = "csv".equals(format);
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setContentType(csv ? TEXT_CSV : APPLICATION_NDJSON);
+        response.getHeaders().setContentDisposition(ContentDisposition.attachment()
+                .filename(csv ? "loans.csv" : "loans.ndjson")
+                .build());
+
+        Flux<DataBuffer> body = csv
+                ? loanService.exportCsv(response.bufferFactory())
+                : loanService.exportNdjson(response.bufferFactory());
+        return response.writeWith(body).then(Mono.empty());
+    }
+
+    /**
+     * The import runs through {@link LoanImportService}'s COPY on JDBC, on a bounded
+     * elastic thread, reading the request body as it arrives. The body argument would
+     * join the whole upload in memory first, so it is left unread.
+     */
+    @Override
+    public Mono<ResponseEntity<LoanImportReport>> importLoans(Mono<DataBuffer> body, String format, UUID xRequestID,
+                                                             ServerWebExchange exchange) {
+        boolean ndjson = "ndjson".equals(format);
+        return Mono.fromCallable(() -> {
+                    try (InputStream in = DataBufferUtils.subscriberInputStream(
+                            exchange.getRequest().getBody(), IMPORT_PREFETCH)) {
+                        return ndjson ? loanImportService.importNdjson(in) : loanImportService.importCsv(in);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok);
+    }
+
+    @Override
+    public Mono<ResponseEntity<Loan>> getLoan(UUID id, String ifNoneMatch, UUID xRequestID,
+                                              ServerWebExchange exchange) {
+        Mono<ResponseEntity<Loan>> loan = loanService.findById(id)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Loan not found: " + id)))
+                .map(found -> ResponseEntity.ok()
+                        .eTag(LoanETags.of(found.getVersion()))
+                        .body(found));
+        if (ifNoneMatch == null) {
+            return loan;
+        }
+        // Answer revalidation from the version column alone, without loading the loan
+        return loanService.findVersion(id)
+                .filter(version -> LoanETags.matchesIfNoneMatch(ifNoneMatch, version))
+                .map(version -> ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(LoanETags.of(version))
+                        .<Loan>build())
+                .switchIfEmpty(loan);
+    }
+
+    @Override
+    public Mono<ResponseEntity<LoanSchedule>> getLoanSchedule(UUID id, Integer fromMonth, Integer toMonth,
+                                                              UUID xRequestID, ServerWebExchange exchange) {
+        return loanService.findSchedule(id, fromMonth, toMonth)
+                .switchIfEmpty(Mono.error(() -> new NoSuchElementException("Loan not found: " + id)))
+                .map(ResponseEntity::ok);
+    }
+
+    @Override
+    public Mono<ResponseEntity<LoanStats>> getLoanStats(UUID xRequestID, ServerWebExchange exchange) {
+        return loanService.stats().map(ResponseEntity::ok);
+    }
+
+    @Override
+    public Mono<ResponseEntity<LoanStats>> getLiveLoanStats(UUID xRequestID, ServerWebExchange exchange) {
+        return Mono.fromSupplier(() -> ResponseEntity.ok(portfolioCounters.stats()));
+    }
+
+    @Override
+    public Mono<ResponseEntity<LoanPage>> listLoans(String cursor, Integer limit, UUID xRequestID,
+                                                    ServerWebExchange exchange) {
+        return loanService.findPage(cursor, limit).map(ResponseEntity::ok);
+    }
+
+    @Override
+    public Mono<ResponseEntity<LoanPage>> searchLoans(BigDecimal minAmount, BigDecimal maxAmount,
+                                                      BigDecimal minInterestRate, BigDecimal maxInterestRate,
+                                                      Integer lengthInMonths, OffsetDateTime createdFrom,
+                                                      OffsetDateTime createdTo, String cursor, Integer limit,
+                                                      UUID xRequestID, ServerWebExchange exchange) {
+        LoanSearch search = new LoanSearch(minAmount, maxAmount, minInterestRate, maxInterestRate, lengthInMonths,
+                createdFrom == null ? null : createdFrom.toInstant(), createdTo == null ? null : createdTo.toInstant());
+        return loanService.search(search, cursor, limit).map(ResponseEntity::ok);
+    }
+
+    /**
+     * As with the export, the events are written to the response directly, each flushed
+     * as it is sent. The subscription is read on a virtual thread of its own.
+     */
+    @Override
+    public Mono<ResponseEntity<DataBuffer>> streamLoanChanges(String after, String lastEventID, UUID xRequestID,
+                                                              ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        return Mono.fromCallable(() -> loanChangeFeed.subscribe(lastEventID != null ? lastEventID : after))
+                .subscribeOn(CHANGE_STREAMS)
+                .flatMap(subscription -> {
+                    response.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+                    Flux<Flux<DataBuffer>> events = Flux.<String>generate(sink -> {
+                                try {
+                                    LoanChangeEvent change = subscription.next();
+                                    if (subscription.isClosed()) {
+                                        sink.complete();
+                                    } else {
+                                        sink.next(change == null ? ":heartbeat\n\n" : toServerSentEvent(change));
+                                    }
+                                } catch (InterruptedException e) {
+                                    sink.complete();
+                                }
+                            })
+                            .subscribeOn(CHANGE_STREAMS)
+                            .doFinally(signal -> subscription.close())
+                            .map(event -> Flux.just(response.bufferFactory()
+                                    .wrap(event.getBytes(StandardCharsets.UTF_8))));
+                    return response.writeAndFlushWith(events);
+                })
+                .then(Mono.empty());
+    }
+
+    private static String toServerSentEvent(LoanChangeEvent change) {
+        return "id:" + change.position().encode() + "\n"
+                + "event:" + change.type().getValue() + "\n"
+                + "data:" + change.data() + "\n\n";
+    }
+
+    @Override
+    public Mono<ResponseEntity<Loan>> updateLoan(UUID id, Mono<LoanUpdateRequest> request, String ifMatch,
+                                                 UUID xRequestID, ServerWebExchange exchange) {
+        Set<Long> expectedVersions = ifMatch == null ? null : LoanETags.ifMatchVersions(ifMatch);
+        return request
+                .flatMap(body -> loanService.update(id, body, expectedVersions))
+                .switchIfEmpty(Mono.error(() -> LoanETags.missingForUpdate(id, ifMatch)))
+                .map(loan -> ResponseEntity.ok()
+                        .eTag(LoanETags.of(loan.getVersion()))
+                        .body(loan));
+    }
+
+    private record CreateLoansBody(@Size(min = 1, max = 10000) List<LoanCreateRequest> loanCreateRequest) {
+    }
+}
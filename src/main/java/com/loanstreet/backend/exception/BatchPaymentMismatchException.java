@@ -0,0 +1,20 @@
+package com.loanstreet.backend.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Every element of a batch request whose monthly payment is off, each attributed to its
+ * index, so a client can correct them all at once.
+ */
+@Getter
+public class BatchPaymentMismatchException extends RuntimeException {
+
+    private final List<PaymentMismatchException> mismatches;
+
+    public BatchPaymentMismatchException(List<PaymentMismatchException> mismatches) {
+        super(mismatches.size() + " monthly payments do not match the calculated payment");
+        this.mismatches = List.copyOf(mismatches);
+    }
+}
@@ -0,0 +1,8 @@
+package com.loanstreet.backend.exception;
+
+public class ChangeFeedFullException extends RuntimeException {
+
+    public ChangeFeedFullException(String message) {
+        super(message);
+    }
+}
@@ -1,17 +1,31 @@
 package com.loanstreet.backend.exception;
 
+import com.loanstreet.backend.controller.LoanETags;
 import com.loanstreet.backend.dto.ApiError;
 import com.loanstreet.backend.dto.FieldViolation;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.ElementKind;
+import jakarta.validation.Path;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ServerWebInputException;
 
 import java.time.OffsetDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
@@ -20,15 +34,83 @@ import java.util.stream.Collectors;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiError> handleValidationErrors(MethodArgumentNotValidException ex) {
-        List<FieldViolation> violations = ex.getBindingResult().getFieldErrors().stream()
+        return validationFailed(ex, ex.getBindingResult().getFieldErrors());
+    }
+
+    /**
+     * The reactive profile's counterpart of {@link MethodArgumentNotValidException}.
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiError> handleBindErrors(WebExchangeBindException ex) {
+        return validationFailed(ex, ex.getBindingResult().getFieldErrors());
+    }
+
+    private ResponseEntity<ApiError> validationFailed(Exception ex, List<FieldError> fieldErrors) {
+        List<FieldViolation> violations = fieldErrors.stream()
                 .map(error -> new FieldViolation()
                         .field(error.getField())
                         .message(error.getDefaultMessage()))
                 .collect(Collectors.toList());
 
         log.warn("Validation failed: {}", violations);
+        countError(ex, HttpStatus.BAD_REQUEST);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Validation failed")
+                .errors(violations);
+
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ApiError> handleConstraintViolations(ConstraintViolationException ex) {
+        List<FieldViolation> violations = ex.getConstraintViolations().stream()
+                .map(this::toFieldViolation)
+                .sorted(Comparator.comparing(FieldViolation::getIndex, Comparator.nullsFirst(Comparator.naturalOrder()))
+                        .thenComparing(FieldViolation::getField, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+
+        log.warn("Validation failed: {}", violations);
+        countError(ex, HttpStatus.BAD_REQUEST);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Validation failed")
+                .errors(violations);
+
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(PaymentMismatchException.class)
+    public ResponseEntity<ApiError> handlePaymentMismatch(PaymentMismatchException ex) {
+        log.warn("Monthly payment mismatch: index={}, calculated={}", ex.getIndex(), ex.getCalculated());
+        countError(ex, HttpStatus.BAD_REQUEST);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Validation failed")
+                .errors(List.of(toFieldViolation(ex)));
+
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(BatchPaymentMismatchException.class)
+    public ResponseEntity<ApiError> handleBatchPaymentMismatch(BatchPaymentMismatchException ex) {
+        List<FieldViolation> violations = ex.getMismatches().stream()
+                .map(this::toFieldViolation)
+                .collect(Collectors.toList());
+
+        log.warn("Monthly payment mismatch: indexes={}", violations.stream().map(FieldViolation::getIndex).toList());
+        countError(ex, HttpStatus.BAD_REQUEST);
 
         ApiError error = new ApiError()
                 .timestamp(OffsetDateTime.now())
@@ -41,6 +123,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<ApiError> handleNotFound(NoSuchElementException ex) {
         log.warn("Resource not found: {}", ex.getMessage());
+        countError(ex, HttpStatus.NOT_FOUND);
 
         ApiError error = new ApiError()
                 .timestamp(OffsetDateTime.now())
@@ -52,6 +135,23 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ApiError> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
         log.warn("Type mismatch for parameter '{}': {}", ex.getName(), ex.getValue());
+        countError(ex, HttpStatus.BAD_REQUEST);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Invalid parameter format");
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    /**
+     * On the reactive profile, a parameter of the wrong type, a missing one, or a body
+     * that cannot be read.
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ApiError> handleServerWebInput(ServerWebInputException ex) {
+        log.warn("Invalid request input: {}", ex.getReason());
+        countError(ex, HttpStatus.BAD_REQUEST);
 
         ApiError error = new ApiError()
                 .timestamp(OffsetDateTime.now())
@@ -60,9 +160,127 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiError> handleInvalidCursor(InvalidCursorException ex) {
+        log.warn("Invalid cursor: {}", ex.getMessage());
+        countError(ex, HttpStatus.BAD_REQUEST);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Invalid cursor");
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<ApiError> handleInvalidImport(InvalidImportException ex) {
+        log.warn("Invalid import: {}", ex.getMessage());
+        countError(ex, HttpStatus.BAD_REQUEST);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(ImportFailedException.class)
+    public ResponseEntity<ApiError> handleImportFailed(ImportFailedException ex) {
+        log.error("Import failed in chunk {} after {} loans were imported", ex.getChunk(), ex.getImported(),
+                ex.getCause());
+        countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    }
+
+    @ExceptionHandler(InvalidScheduleRangeException.class)
+    public ResponseEntity<ApiError> handleInvalidScheduleRange(InvalidScheduleRangeException ex) {
+        log.warn("Invalid schedule range: {}", ex.getMessage());
+        countError(ex, HttpStatus.BAD_REQUEST);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidSearchException.class)
+    public ResponseEntity<ApiError> handleInvalidSearch(InvalidSearchException ex) {
+        log.warn("Invalid search: {}", ex.getMessage());
+        countError(ex, HttpStatus.BAD_REQUEST);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ApiError> handlePreconditionFailed(PreconditionFailedException ex) {
+        log.warn("Precondition failed: {}", ex.getMessage());
+        countError(ex, HttpStatus.PRECONDITION_FAILED);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Loan has been modified");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+        if (ex.getCurrentVersion() != null) {
+            response.eTag(LoanETags.of(ex.getCurrentVersion()));
+        }
+        return response.body(error);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        log.warn("Concurrent modification: {}", ex.getMessage());
+        countError(ex, HttpStatus.CONFLICT);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Loan was modified concurrently");
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ApiError> handleDatabaseUnavailable(Exception ex) {
+        log.warn("Database unavailable: {}", ex.getMessage());
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Service temporarily unavailable");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @ExceptionHandler(ChangeFeedFullException.class)
+    public ResponseEntity<ApiError> handleChangeFeedFull(ChangeFeedFullException ex) {
+        log.warn("Change feed full: {}", ex.getMessage());
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+
+        ApiError error = new ApiError()
+                .timestamp(OffsetDateTime.now())
+                .error("Too many change streams open");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleGenericException(Exception ex) {
         log.error("Unexpected error occurred", ex);
+        countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
 
         ApiError error = new ApiError()
                 .timestamp(OffsetDateTime.now())
@@ -70,4 +288,33 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
+
+    private void countError(Exception ex, HttpStatus status) {
+        Counter.builder("api.errors")
+                .description("Requests answered by GlobalExceptionHandler, by exception type and status")
+                .tag("error", ex.getClass().getSimpleName())
+                .tag("status", Integer.toString(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private FieldViolation toFieldViolation(PaymentMismatchException mismatch) {
+        return new FieldViolation()
+                .field("monthlyPaymentAmount")
+                .message(mismatch.getMessage())
+                .index(mismatch.getIndex());
+    }
+
+    private FieldViolation toFieldViolation(ConstraintViolation<?> violation) {
+        FieldViolation fieldViolation = new FieldViolation().message(violation.getMessage());
+        for (Path.Node node : violation.getPropertyPath()) {
+            if (node.getIndex() != null) {
+                fieldViolation.setIndex(node.getIndex());
+            }
+            if (node.getKind() == ElementKind.PROPERTY || node.getKind() == ElementKind.PARAMETER) {
+                fieldViolation.setField(node.getName());
+            }
+        }
+        return fieldViolation;
+    }
 }
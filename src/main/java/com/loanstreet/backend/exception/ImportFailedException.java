@@ -0,0 +1,19 @@
+package com.loanstreet.backend.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ImportFailedException extends RuntimeException {
+
+    private final int chunk;
+    private final long firstLine;
+    private final long imported;
+
+    public ImportFailedException(int chunk, long firstLine, long imported, Throwable cause) {
+        super("Import failed in chunk " + chunk + ", which starts at line " + firstLine + "; the " + imported
+                + " loans of the earlier chunks were imported, resend the rows from line " + firstLine + " on", cause);
+        this.chunk = chunk;
+        this.firstLine = firstLine;
+        this.imported = imported;
+    }
+}
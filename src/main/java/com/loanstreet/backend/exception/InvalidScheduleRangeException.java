@@ -0,0 +1,8 @@
+package com.loanstreet.backend.exception;
+
+public class InvalidScheduleRangeException extends RuntimeException {
+
+    public InvalidScheduleRangeException(String message) {
+        super(message);
+    }
+}
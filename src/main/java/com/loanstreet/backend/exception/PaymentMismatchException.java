@@ -0,0 +1,30 @@
+package com.loanstreet.backend.exception;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class PaymentMismatchException extends RuntimeException {
+
+    private final BigDecimal calculated;
+    private final Integer index;
+
+    public PaymentMismatchException(BigDecimal calculated, BigDecimal tolerance) {
+        this(calculated, null, "must be within " + tolerance.toPlainString()
+                + " of the calculated payment " + calculated.toPlainString());
+    }
+
+    private PaymentMismatchException(BigDecimal calculated, Integer index, String message) {
+        super(message);
+        this.calculated = calculated;
+        this.index = index;
+    }
+
+    /**
+     * The same mismatch, attributed to an element of a batch request.
+     */
+    public PaymentMismatchException atIndex(int index) {
+        return new PaymentMismatchException(calculated, index, getMessage());
+    }
+}
@@ -0,0 +1,14 @@
+package com.loanstreet.backend.exception;
+
+import lombok.Getter;
+
+@Getter
+public class PreconditionFailedException extends RuntimeException {
+
+    private final Long currentVersion;
+
+    public PreconditionFailedException(String message, Long currentVersion) {
+        super(message);
+        this.currentVersion = currentVersion;
+    }
+}
@@ -0,0 +1,51 @@
+package com.loanstreet.backend.filter;
+
+import io.micrometer.context.ContextRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link RequestIdFilter} for the reactive profile. A request hops between event loop,
+ * driver and worker threads, so the request ID travels in the Reactor context instead
+ * of a thread's MDC. With {@code spring.reactor.context-propagation=auto}, Reactor copies
+ * it into the MDC of whichever thread runs the request's operators, so log lines and
+ * exemplars carry it as they do on the servlet stack.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveRequestIdFilter implements WebFilter {
+
+    /** The Reactor context key, which is also the MDC key it is restored to. */
+    public static final String REQUEST_ID_CONTEXT_KEY = RequestIdFilter.REQUEST_ID_MDC_KEY;
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(REQUEST_ID_CONTEXT_KEY,
+                () -> MDC.get(REQUEST_ID_CONTEXT_KEY),
+                requestId -> MDC.put(REQUEST_ID_CONTEXT_KEY, requestId),
+                () -> MDC.remove(REQUEST_ID_CONTEXT_KEY));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String requestId = RequestIdFilter.requestId(
+                exchange.getRequest().getHeaders().getFirst(RequestIdFilter.REQUEST_ID_HEADER));
+        exchange.getResponse().getHeaders().set(RequestIdFilter.REQUEST_ID_HEADER, requestId);
+
+        return Mono.defer(() -> {
+                    log.debug("Request {} {} - ID: {}",
+                            exchange.getRequest().getMethod(), exchange.getRequest().getPath(), requestId);
+                    return chain.filter(exchange);
+                })
+                .contextWrite(context -> context.put(REQUEST_ID_CONTEXT_KEY, requestId));
+    }
+}
@@ -1,19 +1,21 @@
 package com.loanstreet.backend.filter;
 
+import com.loanstreet.backend.util.Uuids;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.UUID;
 
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Slf4j
 public class RequestIdFilter implements Filter {
 
@@ -27,14 +29,7 @@ public class RequestIdFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        String requestId = httpRequest.getHeader(REQUEST_ID_HEADER);
-        if (requestId == null || requestId.isBlank()) {
-            requestId = generateRequestId();
-        } else if (!isValidUuid(requestId)) {
-            String generated = generateRequestId();
-            log.warn("Invalid X-Request-ID '{}' from client, replacing with {}", requestId, generated);
-            requestId = generated;
-        }
+        String requestId = requestId(httpRequest.getHeader(REQUEST_ID_HEADER));
 
         MDC.put(REQUEST_ID_MDC_KEY, requestId);
         httpResponse.setHeader(REQUEST_ID_HEADER, requestId);
@@ -48,16 +43,23 @@ public class RequestIdFilter implements Filter {
         }
     }
 
-    private boolean isValidUuid(String value) {
-        try {
-            UUID.fromString(value);
-            return true;
-        } catch (IllegalArgumentException e) {
-            return false;
+    /**
+     * The client's request ID if it is a valid one, otherwise a new one.
+     */
+    static String requestId(String header) {
+        if (header == null || header.isBlank()) {
+            return generateRequestId();
+        }
+        if (!Uuids.isValid(header)) {
+            String generated = generateRequestId();
+            log.warn("Invalid X-Request-ID '{}' from client, replacing with {}", header, generated);
+            return generated;
         }
+        return header;
     }
 
-    private String generateRequestId() {
-        return UUID.randomUUID().toString();
+    private static String generateRequestId() {
+        // Time-ordered, so request IDs in logs and exemplars sort by arrival
+        return Uuids.timeOrdered().toString();
     }
 }
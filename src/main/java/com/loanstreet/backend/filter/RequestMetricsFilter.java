@@ -0,0 +1,91 @@
+package com.loanstreet.backend.filter;
+
+import com.loanstreet.backend.config.HibernateStatementCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how many statements Hibernate ran for each request and logs requests slower
+ * than {@code loanstreet.metrics.slow-request-threshold}. The log line carries the
+ * request ID like every other line logged for the request. Runs inside the actuator's
+ * request observation, which times the request itself.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Slf4j
+public class RequestMetricsFilter implements Filter {
+
+    public static final String OPERATION_TAG = "operation";
+
+    public static final String NO_OPERATION = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final long slowRequestNanos;
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry,
+                                @Value("${loanstreet.metrics.slow-request-threshold:500ms}") Duration slowRequestThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowRequestNanos = slowRequestThreshold.toNanos();
+    }
+
+    /**
+     * The name of the controller method that handled the request, which for the API is
+     * its OpenAPI operation ID.
+     */
+    public static String operation(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        return handler instanceof HandlerMethod method ? method.getMethod().getName() : NO_OPERATION;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        long start = System.nanoTime();
+        HibernateStatementCounter.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long statements = HibernateStatementCounter.end();
+            long elapsed = System.nanoTime() - start;
+            String operation = operation(httpRequest);
+
+            DistributionSummary.builder("hibernate.statements.per.request")
+                    .description("SQL statements Hibernate prepared while handling a request")
+                    .tag(OPERATION_TAG, operation)
+                    .register(meterRegistry)
+                    .record(statements);
+
+            if (elapsed >= slowRequestNanos) {
+                Counter.builder("http.slow.requests")
+                        .description("Requests slower than loanstreet.metrics.slow-request-threshold")
+                        .tag(OPERATION_TAG, operation)
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("Slow request {} {} took {} ms: status={}, hibernateStatements={}",
+                        httpRequest.getMethod(), httpRequest.getRequestURI(),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), httpResponse.getStatus(), statements);
+            }
+        }
+    }
+}
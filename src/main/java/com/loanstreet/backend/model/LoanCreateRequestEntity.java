@@ -0,0 +1,67 @@
+package com.loanstreet.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The loan a client's X-Request-ID created, as it was returned. The request ID is
+ * assigned rather than generated, so {@link #isNew()} keeps Spring Data from merging
+ * a new row into one another request has just committed.
+ */
+@Entity
+@Table(name = "loan_create_requests", indexes = {
+        @Index(name = "idx_loan_create_requests_created_at", columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class LoanCreateRequestEntity implements Persistable<UUID> {
+
+    @Id
+    @Column(name = "request_id", updatable = false, nullable = false)
+    private UUID requestId;
+
+    @Column(name = "loan_id", nullable = false)
+    private UUID loanId;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(name = "interest_rate", nullable = false, precision = 10, scale = 6)
+    private BigDecimal interestRate;
+
+    @Column(name = "length_in_months", nullable = false)
+    private Integer lengthInMonths;
+
+    @Column(name = "monthly_payment_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal monthlyPaymentAmount;
+
+    @Column(name = "loan_version", nullable = false)
+    private Long loanVersion;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Override
+    public UUID getId() {
+        return requestId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return createdAt == null;
+    }
+}
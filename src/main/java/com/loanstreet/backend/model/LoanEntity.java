@@ -3,29 +3,34 @@ package com.loanstreet.backend.model;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.persistence.Id;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Index;
 import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.UUID;
 
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+        @Index(name = "idx_loans_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_loans_length_created_at_id", columnList = "length_in_months, created_at, id"),
+        @Index(name = "idx_loans_amount", columnList = "amount"),
+        @Index(name = "idx_loans_interest_rate", columnList = "interest_rate")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 public class LoanEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = LoanIdGenerator.class)
     @Column(name = "id", updatable = false, nullable = false)
     private UUID id;
 
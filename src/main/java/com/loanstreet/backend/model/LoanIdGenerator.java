@@ -0,0 +1,28 @@
+package com.loanstreet.backend.model;
+
+import com.loanstreet.backend.util.Uuids;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Loan IDs are version 7 UUIDs, so new loans land at the right-hand edge of the primary
+ * key index instead of on a random page of it. Anyone holding a loan's ID can read it, so
+ * the 74 random bits come from a {@link SecureRandom}, as {@link UUID#randomUUID()} does.
+ * Existing version 4 IDs stay valid and simply stay scattered across the index.
+ */
+public class LoanIdGenerator implements UuidValueGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public static UUID next() {
+        return Uuids.timeOrdered(RANDOM);
+    }
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+}
@@ -0,0 +1,33 @@
+package com.loanstreet.backend.repository;
+
+import com.loanstreet.backend.model.LoanCreateRequestEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface LoanCreateRequestRepository extends JpaRepository<LoanCreateRequestEntity, UUID> {
+
+    Optional<LoanCreateRequestEntity> findByRequestIdAndCreatedAtAfter(UUID requestId, Instant createdAfter);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LoanCreateRequestEntity r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+
+    /**
+     * Deletes the row of a request ID that is no longer remembered but not purged yet,
+     * so the ID can be recorded again.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LoanCreateRequestEntity r WHERE r.requestId = :requestId AND r.createdAt <= :cutoff")
+    int deleteExpired(@Param("requestId") UUID requestId, @Param("cutoff") Instant cutoff);
+}
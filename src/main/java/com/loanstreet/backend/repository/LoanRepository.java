@@ -1,11 +1,34 @@
 package com.loanstreet.backend.repository;
 
 import com.loanstreet.backend.model.LoanEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface LoanRepository extends JpaRepository<LoanEntity, UUID> {
+public interface LoanRepository extends JpaRepository<LoanEntity, UUID>, LoanRepositoryCustom {
+
+    /**
+     * Implemented by {@link LoanRepositoryCustom#findById}; redeclared to pick it over
+     * {@link JpaRepository}'s.
+     */
+    @Override
+    Optional<LoanEntity> findById(UUID id);
+
+    @Query("SELECT l FROM LoanEntity l ORDER BY l.createdAt, l.id")
+    List<LoanEntity> findFirstPage(Limit limit);
+
+    @Query("""
+            SELECT l FROM LoanEntity l
+            WHERE l.createdAt >= :createdAt AND (l.createdAt, l.id) > (:createdAt, :id)
+            ORDER BY l.createdAt, l.id
+            """)
+    List<LoanEntity> findPageAfter(@Param("createdAt") Instant createdAt, @Param("id") UUID id, Limit limit);
 }
@@ -0,0 +1,53 @@
+package com.loanstreet.backend.repository;
+
+import com.loanstreet.backend.model.LoanEntity;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+public interface LoanRepositoryCustom {
+
+    /**
+     * Replaces {@link org.springframework.data.repository.CrudRepository#findById} so that on
+     * Postgres the read goes straight to the loan's partition. The loan is read with plain
+     * JDBC and is not attached to the persistence context.
+     */
+    Optional<LoanEntity> findById(UUID id);
+
+    /**
+     * The loan's current version, read like {@link #findById}.
+     */
+    Optional<Long> findVersionById(UUID id);
+
+    /**
+     * Persists new loans in JDBC batches of {@code hibernate.jdbc.batch_size}, flushing and
+     * clearing the persistence context after each, so a large batch is neither held nor
+     * dirty-checked as a whole. Must run inside a transaction; anything else it had loaded
+     * is detached too. The loans are returned as they were inserted, in order.
+     */
+    List<LoanEntity> insertAll(List<LoanEntity> loans);
+
+    /**
+     * Overwrites a loan's terms and bumps its version in a single statement, returning
+     * the row as it was before and after. Empty when no row has {@code id} or, if
+     * {@code expectedVersions} is non-null, when the row's version is not one of them.
+     * <p>
+     * This bypasses the persistence context, so a loan already loaded in the calling
+     * transaction is not refreshed.
+     */
+    Optional<LoanUpdate> updateReturning(UUID id, BigDecimal amount, BigDecimal interestRate,
+                                         int lengthInMonths, BigDecimal monthlyPaymentAmount,
+                                         Set<Long> expectedVersions);
+
+    /**
+     * Loans matching {@code search} in (createdAt, id) order, starting after the given
+     * position, or from the start when {@code afterCreatedAt} is null. Only the filters
+     * that are set become conditions, so each combination gets its own plan; see
+     * V8__add_loan_search_indexes.sql for the indexes behind them.
+     */
+    List<LoanEntity> search(LoanSearch search, Instant afterCreatedAt, UUID afterId, int limit);
+}
@@ -0,0 +1,261 @@
+package com.loanstreet.backend.repository;
+
+import com.loanstreet.backend.model.LoanEntity;
+import jakarta.persistence.EntityManager;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+    static final String COLUMNS = """
+            id, amount, interest_rate, length_in_months, monthly_payment_amount, version, created_at, updated_at""";
+    /**
+     * Matches the loan with the ID bound to the single {@code ?}. On Postgres, loans is
+     * partitioned by created_at (see V12 migration): looking the ID's created_at up in
+     * loan_ids lets the executor skip every other partition instead of probing each one's
+     * primary key.
+     */
+    static final String ID_MATCH = "(id, created_at) = (SELECT id, created_at FROM loan_ids WHERE id = ?)";
+    private static final String SET_TERMS = """
+            SET amount = ?, interest_rate = ?, length_in_months = ?, monthly_payment_amount = ?,
+                version = loans.version + 1, updated_at = ?""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    LoanRepositoryCustomImpl(DataSource dataSource, EntityManager entityManager,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public List<LoanEntity> insertAll(List<LoanEntity> loans) {
+        for (int i = 0; i < loans.size(); i++) {
+            entityManager.persist(loans.get(i));
+            if ((i + 1) % batchSize == 0 || i == loans.size() - 1) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return loans;
+    }
+
+    @Override
+    public Optional<LoanEntity> findById(UUID id) {
+        return jdbcTemplate.execute((ConnectionCallback<Optional<LoanEntity>>) connection ->
+                findOne(connection, "SELECT " + COLUMNS + " FROM loans WHERE ", id, LoanRepositoryCustomImpl::toEntity));
+    }
+
+    @Override
+    public Optional<Long> findVersionById(UUID id) {
+        return jdbcTemplate.execute((ConnectionCallback<Optional<Long>>) connection ->
+                findOne(connection, "SELECT version FROM loans WHERE ", id, rs -> rs.getLong(1)));
+    }
+
+    private static <T> Optional<T> findOne(Connection connection, String select, UUID id, RowReader<T> reader)
+            throws SQLException {
+        String match = connection.isWrapperFor(PGConnection.class) ? ID_MATCH : "id = ?";
+        try (PreparedStatement statement = connection.prepareStatement(select + match)) {
+            statement.setObject(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? Optional.of(reader.read(rs)) : Optional.empty();
+            }
+        }
+    }
+
+    private interface RowReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    @Override
+    public Optional<LoanUpdate> updateReturning(UUID id, BigDecimal amount, BigDecimal interestRate,
+                                                int lengthInMonths, BigDecimal monthlyPaymentAmount,
+                                                Set<Long> expectedVersions) {
+        if (expectedVersions != null && expectedVersions.isEmpty()) {
+            return Optional.empty();
+        }
+        // Hibernate stamps updated_at from the application clock too, at the column's precision
+        OffsetDateTime updatedAt = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MICROS);
+
+        return jdbcTemplate.execute((ConnectionCallback<Optional<LoanUpdate>>) connection -> {
+            boolean postgres = connection.isWrapperFor(PGConnection.class);
+            try (PreparedStatement statement = connection.prepareStatement(postgres
+                    ? postgresUpdate(match(ID_MATCH, expectedVersions))
+                    : h2Update(match("id = ?", expectedVersions)))) {
+                int i = 1;
+                if (postgres) {
+                    i = bindMatch(statement, i, id, expectedVersions);
+                }
+                statement.setBigDecimal(i++, amount);
+                statement.setBigDecimal(i++, interestRate);
+                statement.setInt(i++, lengthInMonths);
+                statement.setBigDecimal(i++, monthlyPaymentAmount);
+                statement.setObject(i++, updatedAt);
+                if (!postgres) {
+                    bindMatch(statement, i, id, expectedVersions);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        return Optional.empty();
+                    }
+                    if (postgres) {
+                        LoanEntity updated = toEntity(rs);
+                        LoanEntity previous = copyTerms(updated, rs.getBigDecimal(9), rs.getBigDecimal(10),
+                                rs.getInt(11), rs.getBigDecimal(12), rs.getLong(13), rs.getObject(14, OffsetDateTime.class));
+                        return Optional.of(new LoanUpdate(previous, updated));
+                    }
+                    LoanEntity previous = toEntity(rs);
+                    LoanEntity updated = copyTerms(previous, amount.setScale(4, RoundingMode.HALF_UP),
+                            interestRate.setScale(6, RoundingMode.HALF_UP), lengthInMonths,
+                            monthlyPaymentAmount.setScale(4, RoundingMode.HALF_UP), previous.getVersion() + 1,
+                            updatedAt);
+                    return Optional.of(new LoanUpdate(previous, updated));
+                }
+            }
+        });
+    }
+
+    /**
+     * {@code idMatch}, narrowed to {@code expectedVersions} unless null.
+     */
+    static String match(String idMatch, Set<Long> expectedVersions) {
+        return expectedVersions == null
+                ? idMatch
+                : idMatch + " AND version IN (" + "?, ".repeat(expectedVersions.size() - 1) + "?)";
+    }
+
+    @Override
+    public List<LoanEntity> search(LoanSearch search, Instant afterCreatedAt, UUID afterId, int limit) {
+        SearchQuery query = searchQuery(search, afterCreatedAt, afterId, limit);
+        return jdbcTemplate.query(query.sql(), (rs, rowNum) -> toEntity(rs), query.args().toArray());
+    }
+
+    /**
+     * Only the filters that are set become conditions, with the keyset position as a row
+     * comparison so Postgres can start an index scan on (..., created_at, id) right there.
+     * The position's created_at is repeated as a plain bound: partition pruning does not
+     * look inside row comparisons, and without it later pages would visit every earlier month.
+     */
+    static SearchQuery searchQuery(LoanSearch search, Instant afterCreatedAt, UUID afterId, int limit) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        condition(conditions, args, "amount >= ?", search.minAmount());
+        condition(conditions, args, "amount <= ?", search.maxAmount());
+        condition(conditions, args, "interest_rate >= ?", search.minInterestRate());
+        condition(conditions, args, "interest_rate <= ?", search.maxInterestRate());
+        condition(conditions, args, "length_in_months = ?", search.lengthInMonths());
+        condition(conditions, args, "created_at >= ?", timestamp(search.createdFrom()));
+        condition(conditions, args, "created_at < ?", timestamp(search.createdTo()));
+        if (afterCreatedAt != null) {
+            conditions.add("created_at >= ?");
+            args.add(timestamp(afterCreatedAt));
+            conditions.add("(created_at, id) > (?, ?)");
+            args.add(timestamp(afterCreatedAt));
+            args.add(afterId);
+        }
+        args.add(limit);
+
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return new SearchQuery("SELECT " + COLUMNS + " FROM loans" + where + " ORDER BY created_at, id LIMIT ?",
+                args);
+    }
+
+    record SearchQuery(String sql, List<Object> args) {
+    }
+
+    private static void condition(List<String> conditions, List<Object> args, String condition, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            args.add(value);
+        }
+    }
+
+    private static OffsetDateTime timestamp(Instant instant) {
+        return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
+    }
+
+    /**
+     * Locks and reads the current row in a CTE so RETURNING can hand back the old terms
+     * alongside the new ones; a plain UPDATE ... RETURNING only sees the new row. The row
+     * also moves to this transaction's position in the change feed. The row to update is
+     * matched through a subquery rather than a join so that, whatever join the planner
+     * picks, only the partition the CTE found it in is scanned.
+     */
+    static String postgresUpdate(String match) {
+        return "WITH previous AS (SELECT " + COLUMNS + " FROM loans WHERE " + match + " FOR UPDATE) "
+                + "UPDATE loans " + SET_TERMS + ", change_txid = pg_current_xact_id() "
+                + "FROM previous WHERE (loans.id, loans.created_at) = (SELECT id, created_at FROM previous) RETURNING "
+                + "loans.id, loans.amount, loans.interest_rate, loans.length_in_months, loans.monthly_payment_amount, "
+                + "loans.version, loans.created_at, loans.updated_at, previous.amount, previous.interest_rate, "
+                + "previous.length_in_months, previous.monthly_payment_amount, previous.version, previous.updated_at";
+    }
+
+    /**
+     * H2, used by the tests, has no RETURNING but reads the replaced row through a delta
+     * table; the new row is rebuilt from what the statement wrote, at the columns' scale.
+     */
+    private static String h2Update(String match) {
+        return "SELECT " + COLUMNS + " FROM OLD TABLE (UPDATE loans " + SET_TERMS + " WHERE " + match + ")";
+    }
+
+    private static int bindMatch(PreparedStatement statement, int i, UUID id, Set<Long> expectedVersions)
+            throws SQLException {
+        statement.setObject(i++, id);
+        if (expectedVersions != null) {
+            for (Long version : expectedVersions) {
+                statement.setLong(i++, version);
+            }
+        }
+        return i;
+    }
+
+    private static LoanEntity toEntity(ResultSet rs) throws SQLException {
+        LoanEntity entity = new LoanEntity();
+        entity.setId(rs.getObject(1, UUID.class));
+        entity.setAmount(rs.getBigDecimal(2));
+        entity.setInterestRate(rs.getBigDecimal(3));
+        entity.setLengthInMonths(rs.getInt(4));
+        entity.setMonthlyPaymentAmount(rs.getBigDecimal(5));
+        entity.setVersion(rs.getLong(6));
+        entity.setCreatedAt(rs.getObject(7, OffsetDateTime.class).toInstant());
+        entity.setUpdatedAt(rs.getObject(8, OffsetDateTime.class).toInstant());
+        return entity;
+    }
+
+    private static LoanEntity copyTerms(LoanEntity row, BigDecimal amount, BigDecimal interestRate,
+                                        int lengthInMonths, BigDecimal monthlyPaymentAmount, long version,
+                                        OffsetDateTime updatedAt) {
+        LoanEntity entity = new LoanEntity();
+        entity.setId(row.getId());
+        entity.setAmount(amount);
+        entity.setInterestRate(interestRate);
+        entity.setLengthInMonths(lengthInMonths);
+        entity.setMonthlyPaymentAmount(monthlyPaymentAmount);
+        entity.setVersion(version);
+        entity.setCreatedAt(row.getCreatedAt());
+        entity.setUpdatedAt(updatedAt.toInstant());
+        return entity;
+    }
+}
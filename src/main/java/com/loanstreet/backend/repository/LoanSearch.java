@@ -0,0 +1,14 @@
+package com.loanstreet.backend.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Filters for {@link LoanRepositoryCustom#search}; null means unfiltered. Amount and rate
+ * bounds are inclusive, and the creation window includes {@code createdFrom} but not
+ * {@code createdTo}.
+ */
+public record LoanSearch(BigDecimal minAmount, BigDecimal maxAmount,
+                         BigDecimal minInterestRate, BigDecimal maxInterestRate,
+                         Integer lengthInMonths, Instant createdFrom, Instant createdTo) {
+}
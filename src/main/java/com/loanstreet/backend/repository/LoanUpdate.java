@@ -0,0 +1,9 @@
+package com.loanstreet.backend.repository;
+
+import com.loanstreet.backend.model.LoanEntity;
+
+/**
+ * A loan as it was read by an update and as the update left it. Both are detached.
+ */
+public record LoanUpdate(LoanEntity previous, LoanEntity updated) {
+}
@@ -0,0 +1,258 @@
+package com.loanstreet.backend.repository;
+
+import com.loanstreet.backend.config.ReactiveDatabase;
+import com.loanstreet.backend.model.LoanCreateRequestEntity;
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.model.LoanIdGenerator;
+import com.loanstreet.backend.repository.LoanRepositoryCustomImpl.SearchQuery;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The statements {@link LoanRepository} runs, on R2DBC, for the reactive profile. Like
+ * the rest of that profile this is Postgres only. Search and update reuse the SQL of
+ * {@link LoanRepositoryCustomImpl}, renumbered from {@code ?} to Postgres' {@code $n}
+ * markers. As Hibernate does for JPA inserts, IDs come from {@link LoanIdGenerator} and
+ * timestamps from the application clock at the columns' microsecond precision.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoanRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO loans (" + LoanRepositoryCustomImpl.COLUMNS
+            + ") VALUES ($1, $2, $3, $4, $5, $6, $7, $8)";
+    private static final String FIND_SQL = numbered("SELECT " + LoanRepositoryCustomImpl.COLUMNS
+            + " FROM loans WHERE " + LoanRepositoryCustomImpl.ID_MATCH);
+    private static final String FIND_VERSION_SQL = numbered("SELECT version FROM loans WHERE "
+            + LoanRepositoryCustomImpl.ID_MATCH);
+    private static final String INSERT_CREATE_REQUEST_SQL = """
+            INSERT INTO loan_create_requests (request_id, loan_id, amount, interest_rate, length_in_months,
+                                              monthly_payment_amount, loan_version, created_at)
+            VALUES ($1, $2, $3, $4, $5, $6, $7, $8)
+            ON CONFLICT (request_id) DO UPDATE
+                SET loan_id = EXCLUDED.loan_id,
+                    amount = EXCLUDED.amount,
+                    interest_rate = EXCLUDED.interest_rate,
+                    length_in_months = EXCLUDED.length_in_months,
+                    monthly_payment_amount = EXCLUDED.monthly_payment_amount,
+                    loan_version = EXCLUDED.loan_version,
+                    created_at = EXCLUDED.created_at
+                WHERE loan_create_requests.created_at <= $9
+            """;
+    private static final String FIND_CREATE_REQUEST_SQL = """
+            SELECT request_id, loan_id, amount, interest_rate, length_in_months, monthly_payment_amount,
+                   loan_version, created_at
+            FROM loan_create_requests
+            WHERE request_id = $1 AND created_at > $2
+            """;
+
+    private final DatabaseClient client;
+
+    public ReactiveLoanRepository(ReactiveDatabase database) {
+        this.client = database.client();
+    }
+
+    /**
+     * Inserts the loan, filling in its ID, version and timestamps.
+     */
+    public Mono<LoanEntity> insert(LoanEntity loan) {
+        stamp(loan);
+        return client.sql(INSERT_SQL)
+                .filter(statement -> bind(statement, loan))
+                .fetch()
+                .rowsUpdated()
+                .thenReturn(loan);
+    }
+
+    /**
+     * Inserts the loans as one batch, which the driver pipelines on a single connection.
+     */
+    public Mono<List<LoanEntity>> insertAll(List<LoanEntity> loans) {
+        loans.forEach(ReactiveLoanRepository::stamp);
+        return client.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(INSERT_SQL);
+                    for (int i = 0; i < loans.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        bind(statement, loans.get(i));
+                    }
+                    return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+                })
+                .then(Mono.just(loans));
+    }
+
+    public Mono<LoanEntity> findById(UUID id) {
+        return client.sql(FIND_SQL)
+                .bind(0, id)
+                .map(ReactiveLoanRepository::toEntity)
+                .one();
+    }
+
+    public Mono<Long> findVersionById(UUID id) {
+        return client.sql(FIND_VERSION_SQL)
+                .bind(0, id)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Flux<LoanEntity> search(LoanSearch search, Instant afterCreatedAt, UUID afterId, int limit) {
+        SearchQuery query = LoanRepositoryCustomImpl.searchQuery(search, afterCreatedAt, afterId, limit);
+        DatabaseClient.GenericExecuteSpec spec = client.sql(numbered(query.sql()));
+        for (int i = 0; i < query.args().size(); i++) {
+            spec = spec.bind(i, query.args().get(i));
+        }
+        return spec.map(ReactiveLoanRepository::toEntity).all();
+    }
+
+    /**
+     * See {@link LoanRepositoryCustom#updateReturning}; empty when no row matched.
+     */
+    public Mono<LoanUpdate> updateReturning(UUID id, BigDecimal amount, BigDecimal interestRate,
+                                            int lengthInMonths, BigDecimal monthlyPaymentAmount,
+                                            Set<Long> expectedVersions) {
+        if (expectedVersions != null && expectedVersions.isEmpty()) {
+            return Mono.empty();
+        }
+        String match = LoanRepositoryCustomImpl.match(LoanRepositoryCustomImpl.ID_MATCH, expectedVersions);
+        OffsetDateTime updatedAt = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MICROS);
+
+        DatabaseClient.GenericExecuteSpec spec = client.sql(numbered(LoanRepositoryCustomImpl.postgresUpdate(match)))
+                .bind(0, id);
+        int i = 1;
+        if (expectedVersions != null) {
+            for (Long version : expectedVersions) {
+                spec = spec.bind(i++, version);
+            }
+        }
+        return spec.bind(i++, amount)
+                .bind(i++, interestRate)
+                .bind(i++, lengthInMonths)
+                .bind(i++, monthlyPaymentAmount)
+                .bind(i, updatedAt)
+                .map(row -> {
+                    LoanEntity updated = toEntity(row);
+                    LoanEntity previous = toEntity(row);
+                    previous.setAmount(row.get(8, BigDecimal.class));
+                    previous.setInterestRate(row.get(9, BigDecimal.class));
+                    previous.setLengthInMonths(row.get(10, Integer.class));
+                    previous.setMonthlyPaymentAmount(row.get(11, BigDecimal.class));
+                    previous.setVersion(row.get(12, Long.class));
+                    previous.setUpdatedAt(row.get(13, OffsetDateTime.class).toInstant());
+                    return new LoanUpdate(previous, updated);
+                })
+                .one();
+    }
+
+    /**
+     * Records the request, replacing the row of the same ID if it was created at or before
+     * {@code cutoff} and is only waiting to be purged. A live row with the same ID fails
+     * the insert with {@link DuplicateKeyException}, as the primary key does on the servlet stack.
+     */
+    public Mono<Void> insertCreateRequest(LoanCreateRequestEntity request, Instant cutoff) {
+        request.setCreatedAt(now().toInstant());
+        return client.sql(INSERT_CREATE_REQUEST_SQL)
+                .bind(0, request.getRequestId())
+                .bind(1, request.getLoanId())
+                .bind(2, request.getAmount())
+                .bind(3, request.getInterestRate())
+                .bind(4, request.getLengthInMonths())
+                .bind(5, request.getMonthlyPaymentAmount())
+                .bind(6, request.getLoanVersion())
+                .bind(7, request.getCreatedAt().atOffset(ZoneOffset.UTC))
+                .bind(8, cutoff.atOffset(ZoneOffset.UTC))
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new DuplicateKeyException("Request " + request.getRequestId() + " already recorded"))
+                        : Mono.empty());
+    }
+
+    public Mono<LoanCreateRequestEntity> findCreateRequest(UUID requestId, Instant createdAfter) {
+        return client.sql(FIND_CREATE_REQUEST_SQL)
+                .bind(0, requestId)
+                .bind(1, createdAfter.atOffset(ZoneOffset.UTC))
+                .map(row -> {
+                    LoanCreateRequestEntity entity = new LoanCreateRequestEntity();
+                    entity.setRequestId(row.get(0, UUID.class));
+                    entity.setLoanId(row.get(1, UUID.class));
+                    entity.setAmount(row.get(2, BigDecimal.class));
+                    entity.setInterestRate(row.get(3, BigDecimal.class));
+                    entity.setLengthInMonths(row.get(4, Integer.class));
+                    entity.setMonthlyPaymentAmount(row.get(5, BigDecimal.class));
+                    entity.setLoanVersion(row.get(6, Long.class));
+                    entity.setCreatedAt(row.get(7, OffsetDateTime.class).toInstant());
+                    return entity;
+                })
+                .one();
+    }
+
+    /**
+     * Rewrites JDBC's {@code ?} placeholders as {@code $1, $2, ...} in order.
+     */
+    static String numbered(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int marker = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                numbered.append('$').append(++marker);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private static void stamp(LoanEntity loan) {
+        OffsetDateTime now = now();
+        loan.setId(LoanIdGenerator.next());
+        loan.setVersion(0L);
+        loan.setCreatedAt(now.toInstant());
+        loan.setUpdatedAt(now.toInstant());
+    }
+
+    private static OffsetDateTime now() {
+        return OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static Statement bind(Statement statement, LoanEntity loan) {
+        return statement.bind(0, loan.getId())
+                .bind(1, loan.getAmount())
+                .bind(2, loan.getInterestRate())
+                .bind(3, loan.getLengthInMonths())
+                .bind(4, loan.getMonthlyPaymentAmount())
+                .bind(5, loan.getVersion())
+                .bind(6, loan.getCreatedAt().atOffset(ZoneOffset.UTC))
+                .bind(7, loan.getUpdatedAt().atOffset(ZoneOffset.UTC));
+    }
+
+    private static LoanEntity toEntity(Readable row) {
+        LoanEntity entity = new LoanEntity();
+        entity.setId(row.get(0, UUID.class));
+        entity.setAmount(row.get(1, BigDecimal.class));
+        entity.setInterestRate(row.get(2, BigDecimal.class));
+        entity.setLengthInMonths(row.get(3, Integer.class));
+        entity.setMonthlyPaymentAmount(row.get(4, BigDecimal.class));
+        entity.setVersion(row.get(5, Long.class));
+        entity.setCreatedAt(row.get(6, OffsetDateTime.class).toInstant());
+        entity.setUpdatedAt(row.get(7, OffsetDateTime.class).toInstant());
+        return entity;
+    }
+}
@@ -0,0 +1,100 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.ScheduleEntry;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Level-payment amortization of a fixed-rate loan. Interest accrues on the unrounded
+ * balance, which has a closed form for every month, so a month range can be produced
+ * without walking the schedule from month one. Amounts are rounded to cents only when
+ * a row is emitted.
+ */
+final class AmortizationSchedule {
+
+    private static final MathContext MC = MathContext.DECIMAL128;
+    private static final BigDecimal MONTHS_PER_YEAR = BigDecimal.valueOf(12);
+    private static final int CENTS = 2;
+
+    private final BigDecimal amount;
+    private final BigDecimal monthlyRate;
+    private final int lengthInMonths;
+    private final BigDecimal payment;
+
+    AmortizationSchedule(BigDecimal amount, BigDecimal annualRate, int lengthInMonths, BigDecimal monthlyPayment) {
+        this.amount = amount;
+        this.monthlyRate = annualRate.divide(MONTHS_PER_YEAR, MC);
+        this.lengthInMonths = lengthInMonths;
+        this.payment = monthlyPayment;
+    }
+
+    BigDecimal monthlyPayment() {
+        return payment;
+    }
+
+    /**
+     * Rows for months {@code fromMonth} through {@code toMonth} inclusive, computed
+     * one at a time as the returned iterable is walked.
+     */
+    Iterable<ScheduleEntry> entries(int fromMonth, int toMonth) {
+        return () -> new Iterator<>() {
+            private int month = fromMonth;
+            private BigDecimal balance = balanceAfter(fromMonth - 1);
+
+            @Override
+            public boolean hasNext() {
+                return month <= toMonth;
+            }
+
+            @Override
+            public ScheduleEntry next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                BigDecimal interest = balance.multiply(monthlyRate, MC).setScale(CENTS, RoundingMode.HALF_UP);
+                ScheduleEntry entry;
+                if (month == lengthInMonths) {
+                    BigDecimal principal = balance.setScale(CENTS, RoundingMode.HALF_UP);
+                    entry = entry(principal.add(interest), principal, interest, BigDecimal.ZERO.setScale(CENTS));
+                    balance = BigDecimal.ZERO;
+                } else {
+                    balance = balance.add(balance.multiply(monthlyRate, MC), MC).subtract(payment, MC);
+                    entry = entry(payment, payment.subtract(interest), interest,
+                            balance.setScale(CENTS, RoundingMode.HALF_UP));
+                }
+                month++;
+                return entry;
+            }
+
+            private ScheduleEntry entry(BigDecimal paid, BigDecimal principal, BigDecimal interest,
+                                        BigDecimal remaining) {
+                return new ScheduleEntry()
+                        .month(month)
+                        .payment(paid)
+                        .principal(principal)
+                        .interest(interest)
+                        .balance(remaining);
+            }
+        };
+    }
+
+    /**
+     * Unrounded balance left after {@code month} payments:
+     * B(k) = A(1+r)^k - P((1+r)^k - 1) / r.
+     */
+    BigDecimal balanceAfter(int month) {
+        if (month <= 0) {
+            return amount;
+        }
+        if (monthlyRate.signum() == 0) {
+            return amount.subtract(payment.multiply(BigDecimal.valueOf(month)));
+        }
+        BigDecimal growth = BigDecimal.ONE.add(monthlyRate).pow(month, MC);
+        BigDecimal repaid = payment.multiply(growth.subtract(BigDecimal.ONE), MC).divide(monthlyRate, MC);
+        return amount.multiply(growth, MC).subtract(repaid, MC);
+    }
+}
@@ -0,0 +1,56 @@
+package com.loanstreet.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a file as NDJSON, one line per event, and syncs the file before a
+ * batch counts as published.
+ */
+public class FileLoanEventSink implements LoanEventSink, AutoCloseable {
+
+    private final ObjectWriter writer;
+    private final FileChannel channel;
+
+    public FileLoanEventSink(Path file, ObjectWriter writer) throws IOException {
+        this.writer = writer;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publish(List<LoanEvent> events) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 256);
+        try {
+            for (LoanEvent event : events) {
+                writer.writeValue(lines, event);
+                lines.write('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,36 @@
+package com.loanstreet.backend.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent events in memory, dropping the oldest beyond {@code capacity}.
+ * Nothing outlives the process, so this is for development and tests.
+ */
+public class InMemoryLoanEventSink implements LoanEventSink {
+
+    private final int capacity;
+    private final Deque<LoanEvent> events = new ArrayDeque<>();
+
+    public InMemoryLoanEventSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<LoanEvent> batch) {
+        for (LoanEvent event : batch) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    /**
+     * The events held, oldest first.
+     */
+    public synchronized List<LoanEvent> events() {
+        return List.copyOf(events);
+    }
+}
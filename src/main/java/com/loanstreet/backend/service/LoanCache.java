@@ -0,0 +1,84 @@
+package com.loanstreet.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.loanstreet.backend.dto.Loan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded read cache for loans keyed by id. Each entry remembers the row version it
+ * was built from, and writers only ever replace an entry with a newer version, so an
+ * update committed on this instance is never hidden by the copy it replaced.
+ * <p>
+ * Hits are served without touching the database. An update committed by another
+ * instance is not seen until the entry expires, so the TTL is kept within the
+ * read-your-writes window: no longer than a read routed to a replica may already lag.
+ * Deployments that cannot accept that can turn on {@code verify-version}, which checks
+ * every hit against the current version in the database at the cost of a round trip
+ * per read.
+ */
+@Component
+public class LoanCache {
+
+    static final String CACHE_NAME = "loans";
+
+    private final Cache<UUID, CachedLoan> cache;
+    private final boolean verifyVersion;
+    private final Counter staleHits;
+
+    public LoanCache(@Value("${loanstreet.cache.loans.maximum-size:10000}") long maximumSize,
+                     @Value("${loanstreet.cache.loans.ttl:5s}") Duration ttl,
+                     @Value("${loanstreet.cache.loans.verify-version:false}") boolean verifyVersion,
+                     MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.verifyVersion = verifyVersion;
+        this.staleHits = Counter.builder("cache.stale")
+                .description("Cache hits discarded because the loan has a newer version in the database")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached loan, or null on a miss or when the cached copy is no longer current.
+     */
+    public Loan get(UUID id, Function<UUID, Optional<Long>> currentVersion) {
+        CachedLoan cached = cache.getIfPresent(id);
+        if (cached == null) {
+            return null;
+        }
+        if (verifyVersion) {
+            Optional<Long> version = currentVersion.apply(id);
+            if (version.isEmpty() || version.get() != cached.version()) {
+                staleHits.increment();
+                cache.asMap().remove(id, cached);
+                return null;
+            }
+        }
+        return cached.loan();
+    }
+
+    public void put(UUID id, Long version, Loan loan) {
+        if (version == null) {
+            return;
+        }
+        cache.asMap().merge(id, new CachedLoan(version, loan),
+                (existing, candidate) -> candidate.version() >= existing.version() ? candidate : existing);
+    }
+
+    private record CachedLoan(long version, Loan loan) {
+    }
+}
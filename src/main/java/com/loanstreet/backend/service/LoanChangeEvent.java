@@ -0,0 +1,10 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.LoanChange;
+
+/**
+ * One change feed event: its position, and the {@link LoanChange} serialized once for
+ * every subscriber it goes to.
+ */
+public record LoanChangeEvent(LoanChangePosition position, LoanChange.TypeEnum type, String data) {
+}
@@ -0,0 +1,163 @@
+package com.loanstreet.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.dto.LoanChange;
+import com.loanstreet.backend.exception.ChangeFeedFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The change feed behind GET /api/loans/changes, on Postgres. Loans are read in
+ * (change_txid, id) order, and only up to the oldest transaction still running, so a
+ * position a subscriber has passed never gains rows later (see V9 migration).
+ * <p>
+ * One poller per instance reads what was written since the last poll and offers it to
+ * every subscriber's bounded buffer, so the database sees one query per poll however
+ * many subscribers there are. A subscriber that resumes from an older position, or whose
+ * buffer overflowed because it reads too slowly, reads from the database at its own pace
+ * until it is back at the live edge; see {@link LoanChangeSubscription}.
+ */
+@Slf4j
+@Service
+public class LoanChangeFeed {
+
+    static final String CHANGES_SQL = """
+            SELECT change_txid::text, id, amount, interest_rate, length_in_months, monthly_payment_amount, version
+            FROM loans
+            WHERE (change_txid, id) > (?::text::xid8, ?)
+              AND change_txid < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY change_txid, id
+            LIMIT ?
+            """;
+    private static final String OLDEST_RUNNING_SQL = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final Duration heartbeatInterval;
+    private final Set<LoanChangeSubscription> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter overflows;
+
+    // Where the poller continues from; null while nobody is subscribed. Guarded by this.
+    private LoanChangePosition head;
+
+    public LoanChangeFeed(DataSource dataSource, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                          @Value("${loanstreet.changes.page-size:500}") int pageSize,
+                          @Value("${loanstreet.changes.subscriber-buffer:1000}") int bufferSize,
+                          @Value("${loanstreet.changes.max-subscribers:1000}") int maxSubscribers,
+                          @Value("${loanstreet.changes.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatInterval = heartbeatInterval;
+        Gauge.builder("loan.changes.subscribers", subscribers, Set::size)
+                .description("Open change feed streams on this instance")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("loan.changes.overflows")
+                .description("Times a change feed subscriber fell a whole buffer behind and went back to reading the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes after the given position token, or from the live edge when it is null.
+     */
+    public LoanChangeSubscription subscribe(String after) {
+        LoanChangePosition from = after == null || after.isBlank() ? null : LoanChangePosition.decode(after);
+        synchronized (this) {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new ChangeFeedFullException("Change feed already has " + maxSubscribers + " subscribers");
+            }
+            // Everything before the head is in the database by now, and everything after
+            // it will be offered to the new subscriber
+            if (head == null) {
+                head = LoanChangePosition.before(oldestRunningTxid());
+            }
+            LoanChangeSubscription subscription = new LoanChangeSubscription(this, from == null ? head : from,
+                    bufferSize, heartbeatInterval);
+            subscribers.add(subscription);
+            log.debug("Change feed subscriber added after {}: {} subscribers", from == null ? "head" : after,
+                    subscribers.size());
+            return subscription;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${loanstreet.changes.poll-interval:500ms}")
+    public synchronized void poll() {
+        if (subscribers.isEmpty()) {
+            head = null;
+            return;
+        }
+        List<LoanChangeEvent> page;
+        do {
+            page = read(head, pageSize);
+            if (!page.isEmpty()) {
+                for (LoanChangeSubscription subscription : subscribers) {
+                    subscription.offer(page);
+                }
+                head = page.getLast().position();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    List<LoanChangeEvent> read(LoanChangePosition after, int limit) {
+        return jdbcTemplate.query(CHANGES_SQL, (rs, rowNum) -> toEvent(rs),
+                Long.toString(after.txid()), after.id(), limit);
+    }
+
+    int pageSize() {
+        return pageSize;
+    }
+
+    void unsubscribe(LoanChangeSubscription subscription) {
+        if (subscribers.remove(subscription)) {
+            log.debug("Change feed subscriber removed: {} subscribers", subscribers.size());
+        }
+    }
+
+    void overflowed() {
+        overflows.increment();
+    }
+
+    private long oldestRunningTxid() {
+        return Long.parseLong(jdbcTemplate.queryForObject(OLDEST_RUNNING_SQL, String.class));
+    }
+
+    private LoanChangeEvent toEvent(ResultSet rs) throws SQLException {
+        Loan loan = new Loan()
+                .id(rs.getObject(2, UUID.class))
+                .amount(rs.getBigDecimal(3))
+                .interestRate(rs.getBigDecimal(4))
+                .lengthInMonths(rs.getInt(5))
+                .monthlyPaymentAmount(rs.getBigDecimal(6))
+                .version(rs.getLong(7));
+        LoanChange.TypeEnum type = loan.getVersion() == 0 ? LoanChange.TypeEnum.CREATED : LoanChange.TypeEnum.UPDATED;
+        try {
+            String data = objectMapper.writeValueAsString(new LoanChange().type(type).loan(loan));
+            return new LoanChangeEvent(new LoanChangePosition(Long.parseLong(rs.getString(1)), loan.getId()), type, data);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
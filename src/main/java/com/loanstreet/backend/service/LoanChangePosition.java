@@ -0,0 +1,60 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.exception.InvalidCursorException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the change feed's (change_txid, id) ordering of the loans table, serialized
+ * as an opaque URL-safe token. Compares as Postgres does, with UUIDs byte by byte.
+ */
+public record LoanChangePosition(long txid, UUID id) implements Comparable<LoanChangePosition> {
+
+    /** Before every loan, written as {@code 0}. */
+    public static final LoanChangePosition START = new LoanChangePosition(0, new UUID(0, 0));
+
+    private static final int ENCODED_BYTES = 3 * Long.BYTES;
+
+    static LoanChangePosition decode(String token) {
+        if ("0".equals(token)) {
+            return START;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.remaining() != ENCODED_BYTES) {
+                throw new InvalidCursorException("Malformed change position: " + token, null);
+            }
+            return new LoanChangePosition(buffer.getLong(), new UUID(buffer.getLong(), buffer.getLong()));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new InvalidCursorException("Malformed change position: " + token, e);
+        }
+    }
+
+    /**
+     * Before every loan written by transaction {@code txid} or a later one.
+     */
+    static LoanChangePosition before(long txid) {
+        return new LoanChangePosition(txid, START.id());
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(txid)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    @Override
+    public int compareTo(LoanChangePosition other) {
+        int byTxid = Long.compare(txid, other.txid);
+        if (byTxid != 0) {
+            return byTxid;
+        }
+        int byHigh = Long.compareUnsigned(id.getMostSignificantBits(), other.id.getMostSignificantBits());
+        return byHigh != 0 ? byHigh : Long.compareUnsigned(id.getLeastSignificantBits(), other.id.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,122 @@
+package com.loanstreet.backend.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One subscriber's view of the {@link LoanChangeFeed}, read by a single thread through
+ * {@link #next()}.
+ * <p>
+ * Until it reaches the live edge, the subscription reads pages from the database after
+ * the last position it returned. Meanwhile the poller fills its buffer, which it drains
+ * once caught up, skipping whatever the database reads already returned. When the
+ * buffer fills up, the poller stops offering to it; the subscription then drops what it
+ * holds and reads from the database again, so a slow subscriber costs a bounded amount
+ * of memory and still misses nothing.
+ */
+public final class LoanChangeSubscription implements AutoCloseable {
+
+    private final LoanChangeFeed feed;
+    private final BlockingQueue<LoanChangeEvent> live;
+    private final Deque<LoanChangeEvent> backlog = new ArrayDeque<>();
+    private final long heartbeatNanos;
+
+    private volatile boolean overflowed;
+    private volatile boolean closed;
+    private volatile Thread waiting;
+
+    // Only touched by the reading thread
+    private LoanChangePosition position;
+    private boolean caughtUp;
+
+    LoanChangeSubscription(LoanChangeFeed feed, LoanChangePosition after, int bufferSize,
+                           Duration heartbeatInterval) {
+        this.feed = feed;
+        this.live = new ArrayBlockingQueue<>(bufferSize);
+        this.position = after;
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+    }
+
+    /**
+     * The next change after the last one returned. Returns null when nothing changed for a
+     * heartbeat interval, or once the subscription is closed.
+     *
+     * @throws InterruptedException when the subscription is closed while waiting
+     */
+    public LoanChangeEvent next() throws InterruptedException {
+        while (!closed) {
+            if (overflowed) {
+                // Whatever was dropped is still in the database after our position
+                caughtUp = false;
+                live.clear();
+                overflowed = false;
+            }
+            LoanChangeEvent event = backlog.poll();
+            if (event == null && !caughtUp) {
+                List<LoanChangeEvent> page = feed.read(position, feed.pageSize());
+                caughtUp = page.size() < feed.pageSize();
+                backlog.addAll(page);
+                continue;
+            }
+            if (event == null) {
+                // Only a wait on the buffer is interrupted by close(): an interrupt during
+                // a database read could close the connection under the driver
+                waiting = Thread.currentThread();
+                try {
+                    if (closed) {
+                        return null;
+                    }
+                    event = live.poll(heartbeatNanos, TimeUnit.NANOSECONDS);
+                } finally {
+                    waiting = null;
+                }
+                if (event == null) {
+                    return null;
+                }
+            }
+            if (event.position().compareTo(position) > 0) {
+                position = event.position();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        feed.unsubscribe(this);
+        Thread thread = waiting;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Called by the poller with each page it reads.
+     */
+    void offer(List<LoanChangeEvent> events) {
+        if (overflowed || closed) {
+            return;
+        }
+        for (LoanChangeEvent event : events) {
+            if (!live.offer(event)) {
+                overflowed = true;
+                feed.overflowed();
+                return;
+            }
+        }
+    }
+}
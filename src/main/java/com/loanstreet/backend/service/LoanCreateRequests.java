@@ -0,0 +1,188 @@
+package com.loanstreet.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.model.LoanCreateRequestEntity;
+import com.loanstreet.backend.repository.LoanCreateRequestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the loan each client X-Request-ID created, so a client retrying a create
+ * after a timeout gets the original loan back instead of a second one. Recent requests
+ * are answered from a bounded in-memory cache; the loan_create_requests table keeps them
+ * across restarts and instances. Requests older than {@code ttl} are forgotten, and their
+ * rows are purged on a schedule.
+ * <p>
+ * The request is recorded in the transaction that inserts the loan. A concurrent
+ * duplicate blocks on the request ID's primary key until the first one commits, then
+ * fails and rolls back its own loan, and answers with the first one's. An ID reused after
+ * {@code ttl} replaces its expired row, purged or not, and creates a new loan.
+ */
+@Slf4j
+@Component
+public class LoanCreateRequests {
+
+    static final String CACHE_NAME = "loan-create-requests";
+
+    private final LoanCreateRequestRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<UUID, RecordedLoan> recent;
+    private final Duration ttl;
+    private final Counter replays;
+
+    public LoanCreateRequests(LoanCreateRequestRepository repository, PlatformTransactionManager transactionManager,
+                              @Value("${loanstreet.idempotency.maximum-size:100000}") long maximumSize,
+                              @Value("${loanstreet.idempotency.ttl:24h}") Duration ttl,
+                              MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireWithRow())
+                .recordStats()
+                .build();
+        this.replays = Counter.builder("loan.create.replays")
+                .description("Loan creations answered with the loan an earlier request with the same X-Request-ID created")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, CACHE_NAME);
+    }
+
+    /**
+     * Returns the loan an earlier request with this ID created or, if there was none,
+     * runs {@code create} and records its result in the same transaction.
+     */
+    public Loan createOnce(UUID requestId, Supplier<Loan> create) {
+        Optional<Loan> original = find(requestId);
+        if (original.isPresent()) {
+            return replay(requestId, original.get());
+        }
+
+        Instant createdAt = Instant.now();
+        Loan created;
+        try {
+            created = transactionTemplate.execute(status -> {
+                Loan loan = create.get();
+                // A reused ID whose expired row the purge has not reached yet
+                repository.deleteExpired(requestId, cutoff());
+                repository.saveAndFlush(toEntity(requestId, loan));
+                return loan;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Either a concurrent request with this ID committed first, or the loan itself was rejected
+            Loan first = find(requestId).orElseThrow(() -> e);
+            return replay(requestId, first);
+        }
+        remember(requestId, created, createdAt);
+        return created;
+    }
+
+    Optional<Loan> find(UUID requestId) {
+        Loan cached = cached(requestId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return repository.findByRequestIdAndCreatedAtAfter(requestId, cutoff())
+                .map(entity -> {
+                    Loan loan = toDto(entity);
+                    remember(requestId, loan, entity.getCreatedAt());
+                    return loan;
+                });
+    }
+
+    /**
+     * The loan a request with this ID created, if it is still held in memory. The
+     * reactive stack reads loan_create_requests itself when this is null.
+     */
+    Loan cached(UUID requestId) {
+        RecordedLoan cached = recent.getIfPresent(requestId);
+        return cached == null ? null : cached.loan();
+    }
+
+    void remember(UUID requestId, Loan loan, Instant createdAt) {
+        recent.put(requestId, new RecordedLoan(loan, createdAt.plus(ttl)));
+    }
+
+    /**
+     * Requests recorded before this are forgotten.
+     */
+    Instant cutoff() {
+        return Instant.now().minus(ttl);
+    }
+
+    @Scheduled(initialDelayString = "${loanstreet.idempotency.purge-interval:10m}",
+            fixedDelayString = "${loanstreet.idempotency.purge-interval:10m}")
+    public void purgeExpired() {
+        int purged = repository.deleteCreatedBefore(cutoff());
+        if (purged > 0) {
+            log.info("Purged {} loan create requests older than {}", purged, ttl);
+        }
+    }
+
+    Loan replay(UUID requestId, Loan loan) {
+        replays.increment();
+        log.info("Replaying loan id={} for repeated request {}", loan.getId(), requestId);
+        return loan;
+    }
+
+    static LoanCreateRequestEntity toEntity(UUID requestId, Loan loan) {
+        LoanCreateRequestEntity entity = new LoanCreateRequestEntity();
+        entity.setRequestId(requestId);
+        entity.setLoanId(loan.getId());
+        entity.setAmount(loan.getAmount());
+        entity.setInterestRate(loan.getInterestRate());
+        entity.setLengthInMonths(loan.getLengthInMonths());
+        entity.setMonthlyPaymentAmount(loan.getMonthlyPaymentAmount());
+        entity.setLoanVersion(loan.getVersion());
+        return entity;
+    }
+
+    static Loan toDto(LoanCreateRequestEntity entity) {
+        return new Loan()
+                .id(entity.getLoanId())
+                .amount(entity.getAmount())
+                .interestRate(entity.getInterestRate())
+                .lengthInMonths(entity.getLengthInMonths())
+                .monthlyPaymentAmount(entity.getMonthlyPaymentAmount())
+                .version(entity.getLoanVersion());
+    }
+
+    private record RecordedLoan(Loan loan, Instant expiresAt) {
+    }
+
+    // Cached entries expire with their row, not a full TTL after they were loaded from it
+    private static final class ExpireWithRow implements Expiry<UUID, RecordedLoan> {
+
+        @Override
+        public long expireAfterCreate(UUID key, RecordedLoan value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID key, RecordedLoan value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(UUID key, RecordedLoan value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
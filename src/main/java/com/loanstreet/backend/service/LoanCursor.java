@@ -0,0 +1,42 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.exception.InvalidCursorException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in the (created_at, id) ordering of the loans table,
+ * serialized as an opaque URL-safe token.
+ */
+record LoanCursor(Instant createdAt, UUID id) {
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+    static LoanCursor decode(String token) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            if (buffer.remaining() != ENCODED_BYTES) {
+                throw new InvalidCursorException("Malformed cursor: " + token, null);
+            }
+            Instant createdAt = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            UUID id = new UUID(buffer.getLong(), buffer.getLong());
+            return new LoanCursor(createdAt, id);
+        } catch (IllegalArgumentException | BufferUnderflowException | DateTimeException e) {
+            throw new InvalidCursorException("Malformed cursor: " + token, e);
+        }
+    }
+
+    String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(createdAt.getEpochSecond())
+                .putInt(createdAt.getNano())
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+}
@@ -0,0 +1,14 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.dto.LoanChange;
+
+import java.time.Instant;
+
+/**
+ * A loan write as {@link LoanOutboxRelay} publishes it: the loan as that write left it.
+ * {@code id} rises with the order the writes were made in, and a sink may see an event
+ * more than once, so consumers should keep the highest {@code loan.version} per loan.
+ */
+public record LoanEvent(long id, LoanChange.TypeEnum type, Instant occurredAt, Loan loan) {
+}
@@ -0,0 +1,16 @@
+package com.loanstreet.backend.service;
+
+import java.util.List;
+
+/**
+ * Where {@link LoanOutboxRelay} publishes loan events; selected with
+ * {@code loanstreet.outbox.sink}, see {@code LoanEventSinkConfig}.
+ */
+public interface LoanEventSink {
+
+    /**
+     * Publishes the batch, in order, returning once it is durable wherever the sink puts
+     * it. Throwing leaves every event of the batch in the outbox to be published again.
+     */
+    void publish(List<LoanEvent> events);
+}
@@ -0,0 +1,140 @@
+package com.loanstreet.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams the whole loans table to an output stream without going through the
+ * persistence context. Rows are read from a server-side cursor in chunks of
+ * {@link #FETCH_SIZE} and written out one at a time, so memory use does not
+ * depend on table size.
+ */
+@Slf4j
+@Service
+public class LoanExportService {
+
+    public static final String CSV_HEADER = "id,amount,interestRate,lengthInMonths,monthlyPaymentAmount";
+
+    static final int FETCH_SIZE = 1000;
+
+    static final String EXPORT_SQL = """
+            SELECT id, amount, interest_rate, length_in_months, monthly_payment_amount
+            FROM loans
+            ORDER BY created_at, id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonFactory jsonFactory;
+
+    public LoanExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        // The Postgres driver only uses a cursor for fetchSize when autocommit is off
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public long exportNdjson(OutputStream out) throws IOException {
+        log.info("Starting NDJSON loan export");
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            long rows = stream(rs -> {
+                try {
+                    writeNdjson(generator, rs.getString(1), rs.getBigDecimal(2), rs.getBigDecimal(3), rs.getInt(4),
+                            rs.getBigDecimal(5));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Finished NDJSON loan export: {} rows", rows);
+            return rows;
+        }
+    }
+
+    public long exportCsv(OutputStream out) throws IOException {
+        log.info("Starting CSV loan export");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long rows = stream(rs -> {
+            try {
+                writeCsv(writer, rs.getString(1), rs.getBigDecimal(2), rs.getBigDecimal(3), rs.getInt(4),
+                        rs.getBigDecimal(5));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        log.info("Finished CSV loan export: {} rows", rows);
+        return rows;
+    }
+
+    /**
+     * Writes one loan as an NDJSON line. The reactive stack writes its export with this
+     * too, so both stacks produce the same bytes.
+     */
+    static void writeNdjson(JsonGenerator generator, String id, BigDecimal amount, BigDecimal interestRate,
+                            int lengthInMonths, BigDecimal monthlyPaymentAmount) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("id", id);
+        generator.writeNumberField("amount", amount);
+        generator.writeNumberField("interestRate", interestRate);
+        generator.writeNumberField("lengthInMonths", lengthInMonths);
+        generator.writeNumberField("monthlyPaymentAmount", monthlyPaymentAmount);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    static void writeCsv(Writer writer, String id, BigDecimal amount, BigDecimal interestRate, int lengthInMonths,
+                         BigDecimal monthlyPaymentAmount) throws IOException {
+        writer.write(id);
+        writer.write(',');
+        writer.write(amount.toPlainString());
+        writer.write(',');
+        writer.write(interestRate.toPlainString());
+        writer.write(',');
+        writer.write(Integer.toString(lengthInMonths));
+        writer.write(',');
+        writer.write(monthlyPaymentAmount.toPlainString());
+        writer.write('\n');
+    }
+
+    private long stream(RowCallbackHandler rowWriter) throws IOException {
+        try {
+            Long rows = transactionTemplate.execute(status -> {
+                long[] count = {0};
+                jdbcTemplate.query(EXPORT_SQL, rs -> {
+                    rowWriter.processRow(rs);
+                    count[0]++;
+                });
+                return count[0];
+            });
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
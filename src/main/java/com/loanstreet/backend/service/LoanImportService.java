@@ -0,0 +1,492 @@
+package com.loanstreet.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.loanstreet.backend.dto.ImportRejection;
+import com.loanstreet.backend.dto.LoanCreateRequest;
+import com.loanstreet.backend.dto.LoanImportReport;
+import com.loanstreet.backend.exception.ImportFailedException;
+import com.loanstreet.backend.exception.InvalidImportException;
+import com.loanstreet.backend.exception.PaymentMismatchException;
+import com.loanstreet.backend.model.LoanIdGenerator;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bulk-loads loans from CSV or NDJSON. Input is read line by line, each row is
+ * validated against the {@link LoanCreateRequest} constraints and has its monthly
+ * payment resolved by the {@link PaymentCalculator}, and valid rows are streamed to
+ * Postgres with {@code COPY ... FROM STDIN}. Other databases (H2 in the test profile)
+ * fall back to JDBC batch inserts.
+ * <p>
+ * Rows are committed in chunks of {@code loanstreet.import.chunk-size} written rows,
+ * so a large import does not hold its locks and WAL until the last row. A failure
+ * rolls back only the chunk it happened in; once earlier chunks have been committed it
+ * is reported as an {@link ImportFailedException} naming the chunk and the line to
+ * resend from.
+ */
+@Slf4j
+@Service
+public class LoanImportService {
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+    static final int BATCH_SIZE = 500;
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+    // Integer digits that fit NUMERIC(19, 4); a larger value would abort the whole COPY
+    private static final int MAX_INTEGER_DIGITS = 15;
+    private static final List<String> CSV_COLUMNS =
+            List.of("amount", "interestRate", "lengthInMonths", "monthlyPaymentAmount");
+    private static final String COPY_SQL = """
+            COPY loans (id, amount, interest_rate, length_in_months, monthly_payment_amount, \
+            version, created_at, updated_at) FROM STDIN WITH (FORMAT csv)""";
+    private static final String INSERT_SQL = """
+            INSERT INTO loans (id, amount, interest_rate, length_in_months, monthly_payment_amount,
+                               version, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, 0, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader requestReader;
+    private final Validator validator;
+    private final PaymentCalculator paymentCalculator;
+    private final PortfolioCounters portfolioCounters;
+    private final int chunkSize;
+
+    public LoanImportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper, Validator validator, PaymentCalculator paymentCalculator,
+                             PortfolioCounters portfolioCounters,
+                             @Value("${loanstreet.import.chunk-size:50000}") int chunkSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requestReader = objectMapper.readerFor(LoanCreateRequest.class);
+        this.validator = validator;
+        this.paymentCalculator = paymentCalculator;
+        this.portfolioCounters = portfolioCounters;
+        this.chunkSize = chunkSize;
+    }
+
+    public LoanImportReport importCsv(InputStream in) throws IOException {
+        BufferedReader reader = newReader(in);
+        String header = reader.readLine();
+        if (header == null || header.isBlank()) {
+            throw new InvalidImportException("CSV import must start with a header row");
+        }
+        return importRows("CSV", reader, 1, csvParser(header));
+    }
+
+    public LoanImportReport importNdjson(InputStream in) throws IOException {
+        return importRows("NDJSON", newReader(in), 0, this::parseNdjson);
+    }
+
+    private LoanImportReport importRows(String format, BufferedReader reader, long linesRead,
+                                        RowParser parser) throws IOException {
+        log.info("Starting {} loan import", format);
+        ImportReport report = new ImportReport(linesRead);
+        Instant importedAt = Instant.now();
+
+        int chunkNumber = 0;
+        boolean moreRows = true;
+        while (moreRows) {
+            chunkNumber++;
+            long firstLine = report.lineNumber + 1;
+            ImportChunk chunk = new ImportChunk();
+            try {
+                moreRows = Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                        jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+                            try (RowSink sink = openSink(connection, importedAt)) {
+                                boolean full = readRows(reader, parser, sink, report, chunk);
+                                sink.finish();
+                                return full;
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        })));
+            } catch (RuntimeException e) {
+                Throwable cause = e instanceof UncheckedIOException unchecked ? unchecked.getCause() : e;
+                if (report.imported > 0) {
+                    throw new ImportFailedException(chunkNumber, firstLine, report.imported, cause);
+                }
+                // Nothing has been committed, so the import can simply be resent
+                if (cause instanceof IOException io) {
+                    throw io;
+                }
+                throw e;
+            }
+            report.imported += chunk.imported;
+            if (chunk.imported > 0) {
+                portfolioCounters.loansAdded(chunk.totals);
+            }
+        }
+
+        log.info("Finished {} loan import: imported={}, rejected={}, chunks={}",
+                format, report.imported, report.rejected, chunkNumber);
+        return report.toDto();
+    }
+
+    /**
+     * Writes rows to the sink until the chunk is full or the input ends.
+     *
+     * @return whether the chunk filled up, so more input may follow
+     */
+    private boolean readRows(BufferedReader reader, RowParser parser, RowSink sink,
+                             ImportReport report, ImportChunk chunk) throws IOException, SQLException {
+        String line;
+        while (chunk.imported < chunkSize && (line = reader.readLine()) != null) {
+            long lineNumber = ++report.lineNumber;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            LoanCreateRequest request;
+            try {
+                request = parser.parse(line);
+            } catch (IllegalArgumentException e) {
+                report.reject(List.of(new ImportRejection().line(lineNumber).message(e.getMessage())));
+                continue;
+            }
+
+            List<ImportRejection> problems = validate(lineNumber, request);
+            if (!problems.isEmpty()) {
+                report.reject(problems);
+                continue;
+            }
+
+            try {
+                request.setMonthlyPaymentAmount(paymentCalculator.resolve(request.getAmount(),
+                        request.getInterestRate(), request.getLengthInMonths(), request.getMonthlyPaymentAmount()));
+            } catch (PaymentMismatchException e) {
+                report.reject(List.of(new ImportRejection()
+                        .line(lineNumber)
+                        .field("monthlyPaymentAmount")
+                        .message(e.getMessage())));
+                continue;
+            }
+
+            sink.write(LoanIdGenerator.next(), request);
+            chunk.imported++;
+            chunk.totals.add(request.getAmount(), request.getInterestRate(), request.getLengthInMonths(), 1);
+        }
+        return chunk.imported == chunkSize;
+    }
+
+    private List<ImportRejection> validate(long lineNumber, LoanCreateRequest request) {
+        List<ImportRejection> problems = new ArrayList<>();
+        validator.validate(request).forEach(violation -> problems.add(new ImportRejection()
+                .line(lineNumber)
+                .field(violation.getPropertyPath().toString())
+                .message(violation.getMessage())));
+        checkFitsColumn(lineNumber, "amount", request.getAmount(), problems);
+        checkFitsColumn(lineNumber, "monthlyPaymentAmount", request.getMonthlyPaymentAmount(), problems);
+        problems.sort(Comparator.comparing(ImportRejection::getField));
+        return problems;
+    }
+
+    private void checkFitsColumn(long lineNumber, String field, BigDecimal value, List<ImportRejection> problems) {
+        if (value != null && value.precision() - value.scale() > MAX_INTEGER_DIGITS) {
+            problems.add(new ImportRejection().line(lineNumber).field(field).message("numeric value out of range"));
+        }
+    }
+
+    private RowParser csvParser(String header) {
+        List<String> names;
+        try {
+            names = splitCsv(header);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImportException("CSV header is malformed: " + e.getMessage());
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            positions.put(names.get(i).trim(), i);
+        }
+        List<String> missing = CSV_COLUMNS.stream()
+                .filter(column -> !positions.containsKey(column))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new InvalidImportException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+
+        int columnCount = names.size();
+        int amount = positions.get("amount");
+        int interestRate = positions.get("interestRate");
+        int lengthInMonths = positions.get("lengthInMonths");
+        int monthlyPaymentAmount = positions.get("monthlyPaymentAmount");
+        return line -> {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != columnCount) {
+                throw new IllegalArgumentException("expected " + columnCount + " columns but found " + fields.size());
+            }
+            return new LoanCreateRequest()
+                    .amount(parseDecimal("amount", fields.get(amount)))
+                    .interestRate(parseDecimal("interestRate", fields.get(interestRate)))
+                    .lengthInMonths(parseInteger("lengthInMonths", fields.get(lengthInMonths)))
+                    .monthlyPaymentAmount(parseDecimal("monthlyPaymentAmount", fields.get(monthlyPaymentAmount)));
+        };
+    }
+
+    /**
+     * Splits one CSV record as RFC 4180 does: a field may be quoted, and {@code ""} inside
+     * quotes is a literal quote. A record must fit on one line, so a quote left open at the
+     * end of the line is rejected like a stray quote in an unquoted field.
+     */
+    static List<String> splitCsv(String line) {
+        if (line.indexOf('"') < 0) {
+            return Arrays.asList(line.split(",", -1));
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int length = line.length();
+        int i = 0;
+        while (true) {
+            field.setLength(0);
+            int column = fields.size() + 1;
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i == length) {
+                        throw new IllegalArgumentException("quoted field in column " + column + " is not closed");
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("unexpected text after the quoted field in column " + column);
+                }
+            } else {
+                for (; i < length && line.charAt(i) != ','; i++) {
+                    if (line.charAt(i) == '"') {
+                        throw new IllegalArgumentException("unquoted field in column " + column + " contains a quote");
+                    }
+                    field.append(line.charAt(i));
+                }
+            }
+            fields.add(field.toString());
+            if (i == length) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private LoanCreateRequest parseNdjson(String line) {
+        try {
+            return requestReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static BigDecimal parseDecimal(String field, String value) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: '" + trimmed + "'");
+        }
+    }
+
+    private static Integer parseInteger(String field, String value) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not an integer: '" + trimmed + "'");
+        }
+    }
+
+    private static BufferedReader newReader(InputStream in) {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_CHARS);
+    }
+
+    private RowSink openSink(Connection connection, Instant importedAt) throws SQLException {
+        if (connection.isWrapperFor(PGConnection.class)) {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            return new CopySink(copyIn, importedAt);
+        }
+        return new BatchSink(connection.prepareStatement(INSERT_SQL), importedAt);
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        LoanCreateRequest parse(String line);
+    }
+
+    private interface RowSink extends AutoCloseable {
+
+        void write(UUID id, LoanCreateRequest request) throws SQLException;
+
+        void finish() throws SQLException;
+
+        @Override
+        void close() throws SQLException;
+    }
+
+    /**
+     * Encodes rows as COPY CSV into a reusable buffer and hands it to the driver
+     * whenever it fills up, so only one buffer's worth of rows is held in memory.
+     */
+    private static final class CopySink implements RowSink {
+
+        private final CopyIn copyIn;
+        private final String rowSuffix;
+        private final StringBuilder buffer = new StringBuilder(BUFFER_CHARS + 256);
+
+        CopySink(CopyIn copyIn, Instant importedAt) {
+            this.copyIn = copyIn;
+            this.rowSuffix = ",0," + importedAt + "," + importedAt + "\n";
+        }
+
+        @Override
+        public void write(UUID id, LoanCreateRequest request) throws SQLException {
+            buffer.append(id).append(',')
+                    .append(request.getAmount().toPlainString()).append(',')
+                    .append(request.getInterestRate().toPlainString()).append(',')
+                    .append(request.getLengthInMonths()).append(',')
+                    .append(request.getMonthlyPaymentAmount().toPlainString())
+                    .append(rowSuffix);
+            if (buffer.length() >= BUFFER_CHARS) {
+                flush();
+            }
+        }
+
+        @Override
+        public void finish() throws SQLException {
+            flush();
+            copyIn.endCopy();
+        }
+
+        private void flush() throws SQLException {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            // Row content is ASCII only, so chars map 1:1 to bytes
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.US_ASCII);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static final class BatchSink implements RowSink {
+
+        private final PreparedStatement statement;
+        private final Timestamp importedAt;
+        private int pending;
+
+        BatchSink(PreparedStatement statement, Instant importedAt) {
+            this.statement = statement;
+            this.importedAt = Timestamp.from(importedAt);
+        }
+
+        @Override
+        public void write(UUID id, LoanCreateRequest request) throws SQLException {
+            statement.setObject(1, id);
+            statement.setBigDecimal(2, request.getAmount());
+            statement.setBigDecimal(3, request.getInterestRate());
+            statement.setInt(4, request.getLengthInMonths());
+            statement.setBigDecimal(5, request.getMonthlyPaymentAmount());
+            statement.setTimestamp(6, importedAt);
+            statement.setTimestamp(7, importedAt);
+            statement.addBatch();
+            if (++pending == BATCH_SIZE) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void finish() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+
+    private static final class ImportChunk {
+
+        private long imported;
+        private final PortfolioTotals totals = new PortfolioTotals();
+    }
+
+    private static final class ImportReport {
+
+        private long lineNumber;
+        private long imported;
+        private long rejected;
+        private final List<ImportRejection> errors = new ArrayList<>();
+
+        ImportReport(long linesRead) {
+            this.lineNumber = linesRead;
+        }
+
+        void reject(List<ImportRejection> problems) {
+            rejected++;
+            for (ImportRejection problem : problems) {
+                if (errors.size() == MAX_REPORTED_ERRORS) {
+                    return;
+                }
+                errors.add(problem);
+            }
+        }
+
+        LoanImportReport toDto() {
+            return new LoanImportReport().imported(imported).rejected(rejected).errors(errors);
+        }
+    }
+}
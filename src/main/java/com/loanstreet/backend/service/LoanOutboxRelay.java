@@ -0,0 +1,167 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.dto.LoanChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Publishes the loan_outbox rows written by every loan insert and update (see V11
+ * migration) to the {@link LoanEventSink}, oldest first, in batches.
+ * <p>
+ * Each batch is claimed by deleting it, with {@code SKIP LOCKED} so that relays on other
+ * instances claim the rows after it instead of waiting, and is published before the
+ * delete commits. A batch the sink fails on rolls back into the outbox and is retried on
+ * the next poll, so every event is published at least once. Batches claimed by different
+ * instances may be published out of order; {@link LoanEvent#loan()}'s version orders the
+ * writes of a loan.
+ * <p>
+ * The outbox is filled by Postgres triggers. On other databases, H2 in the tests, the
+ * relay does nothing.
+ */
+@Slf4j
+@Component
+public class LoanOutboxRelay {
+
+    static final String CLAIM_SQL = """
+            DELETE FROM loan_outbox
+            WHERE id IN (SELECT id FROM loan_outbox ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+            RETURNING id, type, created_at, loan_id, amount, interest_rate, length_in_months,
+                      monthly_payment_amount, loan_version
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LoanEventSink sink;
+    private final int batchSize;
+    private final Counter published;
+    private final Counter failures;
+    private final Timer lag;
+
+    private Boolean postgres;
+    // Written when the oldest unpublished event this relay knows of was; null when caught up
+    private volatile Instant backlogSince;
+
+    public LoanOutboxRelay(DataSource dataSource, PlatformTransactionManager transactionManager, LoanEventSink sink,
+                           MeterRegistry meterRegistry, @Value("${loanstreet.outbox.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.published = Counter.builder("loan.outbox.published")
+                .description("Loan events published to the sink")
+                .register(meterRegistry);
+        this.failures = Counter.builder("loan.outbox.failures")
+                .description("Batches of loan events the sink failed to publish; each is retried")
+                .register(meterRegistry);
+        this.lag = Timer.builder("loan.outbox.lag")
+                .description("Time from a loan write to the publication of its event")
+                .register(meterRegistry);
+        Gauge.builder("loan.outbox.backlog.age", this, LoanOutboxRelay::backlogAgeSeconds)
+                .description("Age of the oldest loan event this instance has yet to publish")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes batches until the outbox is drained or the sink fails.
+     */
+    @Scheduled(fixedDelayString = "${loanstreet.outbox.poll-interval:200ms}")
+    public synchronized void relay() {
+        if (!isPostgres()) {
+            return;
+        }
+        int relayed;
+        do {
+            try {
+                relayed = relayBatch();
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Publishing loan events failed, retrying in the next poll: {}", e.toString());
+                return;
+            }
+        } while (relayed == batchSize);
+    }
+
+    /**
+     * Claims, publishes and deletes one batch in a transaction; returns its size.
+     */
+    int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<LoanEvent> events = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> toEvent(rs), batchSize);
+            if (events.isEmpty()) {
+                backlogSince = null;
+                return 0;
+            }
+            // RETURNING gives the rows in no particular order
+            events = events.stream().sorted(Comparator.comparingLong(LoanEvent::id)).toList();
+            try {
+                sink.publish(events);
+            } catch (RuntimeException e) {
+                Instant oldest = events.getFirst().occurredAt();
+                if (backlogSince == null || oldest.isBefore(backlogSince)) {
+                    backlogSince = oldest;
+                }
+                throw e;
+            }
+            Instant now = Instant.now();
+            for (LoanEvent event : events) {
+                lag.record(Duration.between(event.occurredAt(), now));
+            }
+            // A full batch may have more behind it, written after its last event
+            backlogSince = events.size() < batchSize ? null : events.getLast().occurredAt();
+            return events.size();
+        });
+        published.increment(relayed);
+        return relayed;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.isWrapperFor(PGConnection.class));
+            if (!postgres) {
+                log.info("Not on Postgres: loan events are not recorded or published");
+            }
+        }
+        return postgres;
+    }
+
+    private double backlogAgeSeconds() {
+        Instant since = backlogSince;
+        return since == null ? 0 : Math.max(0, Duration.between(since, Instant.now()).toMillis() / 1000.0);
+    }
+
+    private static LoanEvent toEvent(ResultSet rs) throws SQLException {
+        Loan loan = new Loan()
+                .id(rs.getObject(4, UUID.class))
+                .amount(rs.getBigDecimal(5))
+                .interestRate(rs.getBigDecimal(6))
+                .lengthInMonths(rs.getInt(7))
+                .monthlyPaymentAmount(rs.getBigDecimal(8))
+                .version(rs.getLong(9));
+        return new LoanEvent(rs.getLong(1), LoanChange.TypeEnum.fromValue(rs.getString(2)),
+                rs.getObject(3, OffsetDateTime.class).toInstant(), loan);
+    }
+}
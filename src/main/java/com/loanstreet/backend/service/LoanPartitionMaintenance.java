@@ -0,0 +1,94 @@
+package com.loanstreet.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+/**
+ * Keeps a monthly partition of loans (see V12 migration) ready for every month from now
+ * through {@code months-ahead} months on, so new loans never land in the default
+ * partition. Creating a partition briefly locks loans against every other statement; the
+ * lock is only waited for up to {@code lock-timeout}, and a run that gives up is retried
+ * on the next one, well before the month it was for.
+ * <p>
+ * Only Postgres is partitioned. On other databases, H2 in the tests, this does nothing.
+ */
+@Slf4j
+@Component
+public class LoanPartitionMaintenance {
+
+    static final String CREATE_SQL = "SELECT loan_partitions_create('loans', now(), now() + make_interval(months => ?))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final Duration lockTimeout;
+
+    private Boolean postgres;
+    // The end of the last partition known to exist; null until the first run succeeds
+    private volatile Instant coveredUntil;
+
+    public LoanPartitionMaintenance(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${loanstreet.partitions.months-ahead:3}") int monthsAhead,
+                                    @Value("${loanstreet.partitions.lock-timeout:5s}") Duration lockTimeout) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.lockTimeout = lockTimeout;
+        Gauge.builder("loan.partitions.ahead", this, LoanPartitionMaintenance::daysAhead)
+                .description("Time until new loans would fall past the last monthly partition of loans")
+                .baseUnit("days")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the partitions missing between now and {@code months-ahead} months on.
+     */
+    @Scheduled(fixedDelayString = "${loanstreet.partitions.check-interval:6h}")
+    public synchronized void createPartitions() {
+        if (!isPostgres()) {
+            return;
+        }
+        try {
+            OffsetDateTime until = transactionTemplate.execute(status -> {
+                jdbcTemplate.queryForObject("SELECT set_config('lock_timeout', ?, true)", String.class,
+                        lockTimeout.toMillis() + "ms");
+                return jdbcTemplate.queryForObject(CREATE_SQL, OffsetDateTime.class, monthsAhead);
+            });
+            coveredUntil = until.toInstant();
+            log.debug("Loan partitions exist until {}", coveredUntil);
+        } catch (RuntimeException e) {
+            log.warn("Creating loan partitions failed, retrying in the next run: {}", e.toString());
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.isWrapperFor(PGConnection.class));
+            if (!postgres) {
+                log.info("Not on Postgres: loans are not partitioned");
+            }
+        }
+        return postgres;
+    }
+
+    private double daysAhead() {
+        Instant until = coveredUntil;
+        return until == null ? Double.NaN : Duration.between(Instant.now(), until).toSeconds() / 86400.0;
+    }
+}
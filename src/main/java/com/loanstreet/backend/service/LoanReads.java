@@ -0,0 +1,75 @@
+package com.loanstreet.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Decides where loan reads run when read replicas are configured (see
+ * {@code ReplicaDataSourceConfig}). A read runs in a read-only transaction, which is
+ * routed to a replica, unless it is of a loan this instance wrote within
+ * {@code read-your-writes-window}: a replica may not have replayed that write yet, so
+ * the read runs in a read-write transaction, on the primary. Writes made by other
+ * instances are seen once the replicas catch up. Without replicas reads run as given.
+ */
+@Component
+public class LoanReads {
+
+    private final TransactionTemplate replica;
+    private final TransactionTemplate primary;
+    private final Cache<UUID, Boolean> recentlyWritten;
+
+    public LoanReads(PlatformTransactionManager transactionManager,
+                     @Value("${loanstreet.datasource.replicas.urls:}") List<String> replicaUrls,
+                     @Value("${loanstreet.datasource.replicas.read-your-writes-window:5s}") Duration window,
+                     @Value("${loanstreet.datasource.replicas.read-your-writes-maximum-size:100000}") long maximumSize) {
+        if (replicaUrls.isEmpty()) {
+            this.replica = null;
+            this.primary = null;
+            this.recentlyWritten = null;
+            return;
+        }
+        this.replica = new TransactionTemplate(transactionManager);
+        this.replica.setReadOnly(true);
+        this.primary = new TransactionTemplate(transactionManager);
+        this.recentlyWritten = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    /**
+     * Runs a read that need not see this instance's latest writes.
+     */
+    public <T> T read(Supplier<T> query) {
+        return replica == null ? query.get() : replica.execute(status -> query.get());
+    }
+
+    /**
+     * Runs a read of one loan, on the primary if this instance wrote it recently.
+     */
+    public <T> T read(UUID id, Supplier<T> query) {
+        if (replica == null) {
+            return query.get();
+        }
+        TransactionTemplate target = recentlyWritten.getIfPresent(id) != null ? primary : replica;
+        return target.execute(status -> query.get());
+    }
+
+    /**
+     * Records a committed write, so reads of the loan stay on the primary for the window.
+     */
+    public void written(UUID id) {
+        if (recentlyWritten != null) {
+            recentlyWritten.put(id, Boolean.TRUE);
+        }
+    }
+}
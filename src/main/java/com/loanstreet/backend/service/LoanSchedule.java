@@ -0,0 +1,14 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.ScheduleEntry;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Response body for the schedule endpoint. Entries are computed as they are
+ * serialized rather than collected up front.
+ */
+public record LoanSchedule(UUID loanId, BigDecimal monthlyPayment, int lengthInMonths,
+                           Iterable<ScheduleEntry> entries) {
+}
@@ -2,14 +2,29 @@ package com.loanstreet.backend.service;
 
 import com.loanstreet.backend.dto.Loan;
 import com.loanstreet.backend.dto.LoanCreateRequest;
+import com.loanstreet.backend.dto.LoanPage;
 import com.loanstreet.backend.dto.LoanUpdateRequest;
+import com.loanstreet.backend.exception.InvalidScheduleRangeException;
+import com.loanstreet.backend.exception.InvalidSearchException;
+import com.loanstreet.backend.exception.BatchPaymentMismatchException;
+import com.loanstreet.backend.exception.PaymentMismatchException;
+import com.loanstreet.backend.exception.PreconditionFailedException;
 import com.loanstreet.backend.model.LoanEntity;
 import com.loanstreet.backend.repository.LoanRepository;
+import com.loanstreet.backend.repository.LoanSearch;
+import com.loanstreet.backend.repository.LoanUpdate;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -17,56 +32,243 @@ import java.util.UUID;
 public class LoanService {
 
     private final LoanRepository loanRepository;
+    private final LoanCache loanCache;
+    private final PaymentCalculator paymentCalculator;
+    private final PortfolioCounters portfolioCounters;
+    private final LoanCreateRequests createRequests;
+    private final LoanReads loanReads;
 
-    public LoanService(LoanRepository loanRepository) {
+    public LoanService(LoanRepository loanRepository, LoanCache loanCache, PaymentCalculator paymentCalculator,
+                       PortfolioCounters portfolioCounters, LoanCreateRequests createRequests, LoanReads loanReads) {
         this.loanRepository = loanRepository;
+        this.loanCache = loanCache;
+        this.paymentCalculator = paymentCalculator;
+        this.portfolioCounters = portfolioCounters;
+        this.createRequests = createRequests;
+        this.loanReads = loanReads;
     }
 
     public Loan create(LoanCreateRequest request) {
         log.info("Creating loan: amount={}, interestRate={}, lengthInMonths={}",
                 request.getAmount(), request.getInterestRate(), request.getLengthInMonths());
 
-        LoanEntity entity = new LoanEntity();
-        entity.setAmount(request.getAmount());
-        entity.setInterestRate(request.getInterestRate());
-        entity.setLengthInMonths(request.getLengthInMonths());
-        entity.setMonthlyPaymentAmount(request.getMonthlyPaymentAmount());
-
-        LoanEntity saved = loanRepository.save(entity);
+        LoanEntity saved = loanRepository.save(toEntity(request, paymentCalculator));
         log.info("Loan created with id={}", saved.getId());
-        return toDto(saved);
+        Loan created = toDto(saved);
+        afterCommit(() -> {
+            loanCache.put(saved.getId(), saved.getVersion(), created);
+            loanReads.written(saved.getId());
+            portfolioCounters.loanCreated(saved);
+        });
+        return created;
+    }
+
+    /**
+     * Creates the loan once per client request ID: a retry with the same ID gets the loan
+     * the first request created, as it was created, without inserting another. Without
+     * a request ID every call creates a loan.
+     */
+    public Loan create(LoanCreateRequest request, UUID requestId) {
+        if (requestId == null) {
+            return create(request);
+        }
+        return createRequests.createOnce(requestId, () -> create(request));
+    }
+
+    @Transactional
+    public List<Loan> createAll(List<LoanCreateRequest> requests) {
+        log.info("Creating {} loans in bulk", requests.size());
+
+        List<LoanEntity> saved = loanRepository.insertAll(toEntities(requests, paymentCalculator));
+        List<Loan> created = saved.stream()
+                .map(LoanService::toDto)
+                .toList();
+        afterCommit(() -> {
+            for (int i = 0; i < saved.size(); i++) {
+                LoanEntity entity = saved.get(i);
+                loanCache.put(entity.getId(), entity.getVersion(), created.get(i));
+                loanReads.written(entity.getId());
+                portfolioCounters.loanCreated(entity);
+            }
+        });
+        log.info("Created {} loans in bulk", created.size());
+        return created;
     }
 
     public Optional<Loan> findById(UUID id) {
         log.debug("Fetching loan id={}", id);
+        return loanReads.read(id, () -> findByIdIn(id));
+    }
+
+    private Optional<Loan> findByIdIn(UUID id) {
+        Loan cached = loanCache.get(id, loanRepository::findVersionById);
+        if (cached != null) {
+            log.debug("Loan served from cache id={}", id);
+            return Optional.of(cached);
+        }
         return loanRepository.findById(id)
                 .map(entity -> {
                     log.debug("Loan found id={}", id);
-                    return toDto(entity);
+                    Loan loan = toDto(entity);
+                    loanCache.put(id, entity.getVersion(), loan);
+                    return loan;
                 });
     }
 
-    @Transactional
+    public LoanPage findPage(String cursor, int limit) {
+        log.debug("Fetching loan page cursor={}, limit={}", cursor, limit);
+
+        // Fetch one extra row to learn whether another page exists without a count query
+        List<LoanEntity> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = loanReads.read(() -> loanRepository.findFirstPage(Limit.of(limit + 1)));
+        } else {
+            LoanCursor after = LoanCursor.decode(cursor);
+            rows = loanReads.read(() -> loanRepository.findPageAfter(after.createdAt(), after.id(), Limit.of(limit + 1)));
+        }
+        return toPage(rows, limit);
+    }
+
+    public LoanPage search(LoanSearch search, String cursor, int limit) {
+        log.debug("Searching loans {}, cursor={}, limit={}", search, cursor, limit);
+        checkRange(search.minAmount(), search.maxAmount(), "minAmount must not exceed maxAmount");
+        checkRange(search.minInterestRate(), search.maxInterestRate(),
+                "minInterestRate must not exceed maxInterestRate");
+        checkRange(search.createdFrom(), search.createdTo(), "createdFrom must not be after createdTo");
+
+        LoanCursor after = cursor == null || cursor.isBlank() ? null : LoanCursor.decode(cursor);
+        List<LoanEntity> rows = loanReads.read(() -> loanRepository.search(search,
+                after == null ? null : after.createdAt(), after == null ? null : after.id(), limit + 1));
+        return toPage(rows, limit);
+    }
+
+    private LoanPage toPage(List<LoanEntity> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<LoanEntity> pageRows = hasMore ? rows.subList(0, limit) : rows;
+
+        LoanPage page = new LoanPage().items(pageRows.stream().map(LoanService::toDto).toList());
+        if (hasMore) {
+            LoanEntity last = pageRows.get(pageRows.size() - 1);
+            page.nextCursor(new LoanCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        return page;
+    }
+
+    public Optional<LoanSchedule> findSchedule(UUID id, int fromMonth, Integer toMonth) {
+        log.debug("Fetching schedule id={}, fromMonth={}, toMonth={}", id, fromMonth, toMonth);
+        return findById(id).map(loan -> schedule(loan, fromMonth, toMonth, paymentCalculator));
+    }
+
+    static LoanSchedule schedule(Loan loan, int fromMonth, Integer toMonth, PaymentCalculator paymentCalculator) {
+        int length = loan.getLengthInMonths();
+        int lastMonth = toMonth == null ? length : Math.min(toMonth, length);
+        if (fromMonth > length) {
+            throw new InvalidScheduleRangeException("fromMonth must not exceed the loan term of " + length + " months");
+        }
+        if (fromMonth > lastMonth) {
+            throw new InvalidScheduleRangeException("fromMonth must not be after toMonth");
+        }
+        BigDecimal monthlyPayment = paymentCalculator.monthlyPayment(loan.getAmount(), loan.getInterestRate(), length);
+        AmortizationSchedule schedule = new AmortizationSchedule(
+                loan.getAmount(), loan.getInterestRate(), length, monthlyPayment);
+        return new LoanSchedule(loan.getId(), schedule.monthlyPayment(), length, schedule.entries(fromMonth, lastMonth));
+    }
+
+    public Optional<Long> findVersion(UUID id) {
+        return loanReads.read(id, () -> loanRepository.findVersionById(id));
+    }
+
     public Optional<Loan> update(UUID id, LoanUpdateRequest request) {
+        return update(id, request, null);
+    }
+
+    /**
+     * Updates the loan only if its current version is one of {@code expectedVersions};
+     * null means unconditional. The write is a single UPDATE that returns the new row, so
+     * outside a transaction it costs one round trip. Only when nothing was updated is the
+     * version read again, to tell a missing loan from a precondition failure.
+     */
+    public Optional<Loan> update(UUID id, LoanUpdateRequest request, Set<Long> expectedVersions) {
         log.info("Updating loan id={}", id);
-        return loanRepository.findById(id)
-                .map(existing -> {
-                    existing.setAmount(request.getAmount());
-                    existing.setInterestRate(request.getInterestRate());
-                    existing.setLengthInMonths(request.getLengthInMonths());
-                    existing.setMonthlyPaymentAmount(request.getMonthlyPaymentAmount());
-                    LoanEntity updated = loanRepository.save(existing);
-                    log.info("Loan updated id={}", updated.getId());
-                    return toDto(updated);
+        BigDecimal monthlyPayment = paymentCalculator.resolve(request.getAmount(), request.getInterestRate(),
+                request.getLengthInMonths(), request.getMonthlyPaymentAmount());
+        Optional<LoanUpdate> updated = loanRepository.updateReturning(id, request.getAmount(),
+                request.getInterestRate(), request.getLengthInMonths(), monthlyPayment, expectedVersions);
+        if (updated.isEmpty()) {
+            if (expectedVersions != null) {
+                loanRepository.findVersionById(id).ifPresent(version -> {
+                    throw new PreconditionFailedException("Loan " + id + " is at version " + version, version);
                 });
+            }
+            return Optional.empty();
+        }
+        LoanEntity entity = updated.get().updated();
+        log.info("Loan updated id={}, version={}", id, entity.getVersion());
+        Loan loan = toDto(entity);
+        afterCommit(() -> {
+            loanCache.put(id, entity.getVersion(), loan);
+            loanReads.written(id);
+            portfolioCounters.loanUpdated(updated.get().previous(), entity);
+        });
+        return Optional.of(loan);
+    }
+
+    static <T extends Comparable<? super T>> void checkRange(T min, T max, String message) {
+        if (min != null && max != null && min.compareTo(max) > 0) {
+            throw new InvalidSearchException(message);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * The entities of a batch create. Every element's payment is checked before failing,
+     * so one response names all the mismatches by index.
+     */
+    static List<LoanEntity> toEntities(List<LoanCreateRequest> requests, PaymentCalculator paymentCalculator) {
+        List<LoanEntity> entities = new ArrayList<>(requests.size());
+        List<PaymentMismatchException> mismatches = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                entities.add(toEntity(requests.get(i), paymentCalculator));
+            } catch (PaymentMismatchException e) {
+                mismatches.add(e.atIndex(i));
+            }
+        }
+        if (!mismatches.isEmpty()) {
+            throw new BatchPaymentMismatchException(mismatches);
+        }
+        return entities;
+    }
+
+    static LoanEntity toEntity(LoanCreateRequest request, PaymentCalculator paymentCalculator) {
+        LoanEntity entity = new LoanEntity();
+        entity.setAmount(request.getAmount());
+        entity.setInterestRate(request.getInterestRate());
+        entity.setLengthInMonths(request.getLengthInMonths());
+        entity.setMonthlyPaymentAmount(paymentCalculator.resolve(request.getAmount(), request.getInterestRate(),
+                request.getLengthInMonths(), request.getMonthlyPaymentAmount()));
+        return entity;
     }
 
-    private Loan toDto(LoanEntity entity) {
+    static Loan toDto(LoanEntity entity) {
         return new Loan()
                 .id(entity.getId())
                 .amount(entity.getAmount())
                 .interestRate(entity.getInterestRate())
                 .lengthInMonths(entity.getLengthInMonths())
-                .monthlyPaymentAmount(entity.getMonthlyPaymentAmount());
+                .monthlyPaymentAmount(entity.getMonthlyPaymentAmount())
+                .version(entity.getVersion());
     }
 }
@@ -0,0 +1,96 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.LoanStats;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Portfolio totals aggregated in the database as exact NUMERIC sums per (term bucket,
+ * rate band) cell. The at most {@code TERM_BOUNDS.length * (RATE_BOUNDS.length + 1)} cells
+ * are then rolled up by {@link PortfolioTotals} into the overall, per-term and per-band
+ * totals; every sum is additive, so the roll-up is exact.
+ * <p>
+ * On Postgres the cells come from the loan_stats table, which triggers on loans keep
+ * current (see V5__create_loan_stats_rollup.sql), so the cost does not grow with the
+ * table. Other databases, such as H2 in the tests, group the loans table directly.
+ */
+@Slf4j
+@Service
+public class LoanStatsService {
+
+    /** Inclusive upper bounds of the term buckets, in months. */
+    static final int[] TERM_BOUNDS = {12, 36, 60, 120, 240, 360, 600};
+
+    /** Exclusive upper bounds of the rate bands; the last band is open-ended. */
+    static final BigDecimal[] RATE_BOUNDS = {
+            new BigDecimal("0.03"), new BigDecimal("0.05"), new BigDecimal("0.07"),
+            new BigDecimal("0.10"), new BigDecimal("0.15")
+    };
+
+    static final String ROLLUP_SQL = """
+            SELECT term_bucket, rate_band, SUM(loan_count), SUM(principal), SUM(rate_weighted_principal),
+                   SUM(total_months)
+            FROM loan_stats
+            GROUP BY term_bucket, rate_band
+            """;
+    private static final String SCAN_SQL = """
+            SELECT term_bucket, rate_band, COUNT(*), SUM(amount), SUM(amount * interest_rate),
+                   SUM(length_in_months)
+            FROM (SELECT %s AS term_bucket, %s AS rate_band, amount, interest_rate, length_in_months
+                  FROM loans) l
+            GROUP BY term_bucket, rate_band
+            """.formatted(termBucketCase(), rateBandCase());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LoanStatsService(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public LoanStats stats() {
+        log.debug("Computing loan portfolio stats");
+        LoanStats stats = totals().toStats();
+        log.debug("Computed loan portfolio stats over {} loans", stats.getOverall().getCount());
+        return stats;
+    }
+
+    PortfolioTotals totals() {
+        PortfolioTotals totals = new PortfolioTotals();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            String sql = connection.isWrapperFor(PGConnection.class) ? ROLLUP_SQL : SCAN_SQL;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    totals.add(rs.getInt(1), rs.getInt(2), rs.getLong(3), rs.getBigDecimal(4),
+                            rs.getBigDecimal(5), rs.getLong(6));
+                }
+            }
+            return null;
+        });
+        return totals;
+    }
+
+    private static String termBucketCase() {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (int i = 0; i < TERM_BOUNDS.length - 1; i++) {
+            sql.append(" WHEN length_in_months <= ").append(TERM_BOUNDS[i]).append(" THEN ").append(i);
+        }
+        return sql.append(" ELSE ").append(TERM_BOUNDS.length - 1).append(" END").toString();
+    }
+
+    private static String rateBandCase() {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (int i = 0; i < RATE_BOUNDS.length; i++) {
+            sql.append(" WHEN interest_rate < ").append(RATE_BOUNDS[i].toPlainString()).append(" THEN ").append(i);
+        }
+        return sql.append(" ELSE ").append(RATE_BOUNDS.length).append(" END").toString();
+    }
+}
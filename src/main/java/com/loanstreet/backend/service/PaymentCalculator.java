@@ -0,0 +1,76 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.exception.PaymentMismatchException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Level monthly payment for a fixed-rate loan, P = A r / (1 - (1 + r)^-n) with
+ * r = annual rate / 12, rounded half-up to cents.
+ * <p>
+ * The common case runs in doubles: {@code expm1}/{@code log1p} keep the denominator
+ * accurate even for tiny rates, and the result is far inside a cent of the true value
+ * for any realistic amount. Only when the amount is too large for that guarantee, or
+ * the result lands too close to a half cent to round reliably, does it fall back to
+ * {@link MathContext#DECIMAL128} arithmetic.
+ */
+@Component
+public class PaymentCalculator {
+
+    private static final MathContext MC = MathContext.DECIMAL128;
+    private static final BigDecimal MONTHS_PER_YEAR = BigDecimal.valueOf(12);
+    private static final int CENTS = 2;
+    // Below this many cents the double result is within 1e-4 of a cent of the exact one
+    private static final double MAX_FAST_CENTS = 1e11;
+    private static final double HALF_CENT_MARGIN = 1e-3;
+
+    private final boolean strict;
+    private final BigDecimal tolerance;
+
+    public PaymentCalculator(@Value("${loanstreet.payment.strict:false}") boolean strict,
+                             @Value("${loanstreet.payment.tolerance:0.01}") BigDecimal tolerance) {
+        this.strict = strict;
+        this.tolerance = tolerance;
+    }
+
+    public BigDecimal monthlyPayment(BigDecimal amount, BigDecimal annualRate, int lengthInMonths) {
+        double monthlyRate = annualRate.doubleValue() / 12;
+        if (monthlyRate > 0) {
+            double cents = amount.doubleValue() * monthlyRate * 100
+                    / -Math.expm1(-lengthInMonths * Math.log1p(monthlyRate));
+            if (cents < MAX_FAST_CENTS) {
+                double whole = Math.floor(cents);
+                double fraction = cents - whole;
+                if (Math.abs(fraction - 0.5) > HALF_CENT_MARGIN) {
+                    return BigDecimal.valueOf((long) whole + (fraction > 0.5 ? 1 : 0), CENTS);
+                }
+            }
+        }
+        return exactMonthlyPayment(amount, annualRate, lengthInMonths);
+    }
+
+    /**
+     * The payment to store for a write. The calculated payment always wins; in strict
+     * mode a requested payment further than the tolerance from it is rejected instead.
+     */
+    public BigDecimal resolve(BigDecimal amount, BigDecimal annualRate, int lengthInMonths, BigDecimal requested) {
+        BigDecimal calculated = monthlyPayment(amount, annualRate, lengthInMonths);
+        if (strict && requested.subtract(calculated).abs().compareTo(tolerance) > 0) {
+            throw new PaymentMismatchException(calculated, tolerance);
+        }
+        return calculated;
+    }
+
+    BigDecimal exactMonthlyPayment(BigDecimal amount, BigDecimal annualRate, int lengthInMonths) {
+        BigDecimal monthlyRate = annualRate.divide(MONTHS_PER_YEAR, MC);
+        if (monthlyRate.signum() == 0) {
+            return amount.divide(BigDecimal.valueOf(lengthInMonths), CENTS, RoundingMode.HALF_UP);
+        }
+        BigDecimal discount = BigDecimal.ONE.subtract(BigDecimal.ONE.add(monthlyRate).pow(-lengthInMonths, MC));
+        return amount.multiply(monthlyRate, MC).divide(discount, MC).setScale(CENTS, RoundingMode.HALF_UP);
+    }
+}
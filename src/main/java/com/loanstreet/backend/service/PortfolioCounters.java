@@ -0,0 +1,200 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.LoanStats;
+import com.loanstreet.backend.model.LoanEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Running portfolio totals kept in memory, so {@link #stats()} never touches the database.
+ * Writers apply the loans they create or change once their transaction commits. Each
+ * writer locks only the stripe for its thread, so concurrent writers rarely contend.
+ * Reads merge the stripes, which costs the same however many loans there are.
+ * <p>
+ * The totals are rebuilt from the database at startup and reconciled on a schedule. This
+ * picks up writes made by other instances and anything applied out of order. Writes applied
+ * while a reconcile reads the database are also kept aside per stripe and added to what it
+ * read, so a steady stream of writes never holds a reconcile off. A write that committed
+ * before the read but is applied during it is counted twice; the next reconcile corrects it.
+ */
+@Slf4j
+@Component
+public class PortfolioCounters implements SmartInitializingSingleton {
+
+    private final LoanStatsService loanStatsService;
+    private final Stripe[] stripes;
+    private final Counter corrections;
+    private final Counter skipped;
+    // Set and cleared with every stripe locked, read with the writer's stripe locked
+    private boolean reconciling;
+
+    public PortfolioCounters(LoanStatsService loanStatsService, MeterRegistry meterRegistry) {
+        this.loanStatsService = loanStatsService;
+        // The next power of two at or above twice the CPU count
+        int size = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.corrections = Counter.builder("portfolio.reconcile.corrections")
+                .description("Reconciles that found the in-memory portfolio totals out of step with the database")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("portfolio.reconcile.skipped")
+                .description("Reconciles that could not read the portfolio totals from the database")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        PortfolioTotals actual = loanStatsService.totals();
+        install(actual);
+        log.info("Portfolio counters loaded: {} loans", actual.count());
+    }
+
+    public LoanStats stats() {
+        return snapshot().toStats();
+    }
+
+    public void loanCreated(LoanEntity loan) {
+        apply(totals -> totals.add(loan.getAmount(), loan.getInterestRate(), loan.getLengthInMonths(), 1));
+    }
+
+    public void loanUpdated(LoanEntity previous, LoanEntity updated) {
+        apply(totals -> {
+            totals.add(previous.getAmount(), previous.getInterestRate(), previous.getLengthInMonths(), -1);
+            totals.add(updated.getAmount(), updated.getInterestRate(), updated.getLengthInMonths(), 1);
+        });
+    }
+
+    void loansAdded(PortfolioTotals added) {
+        apply(totals -> totals.addAll(added));
+    }
+
+    @Scheduled(initialDelayString = "${loanstreet.portfolio.reconcile-interval:1m}",
+            fixedDelayString = "${loanstreet.portfolio.reconcile-interval:1m}")
+    public synchronized void reconcile() {
+        startRecording();
+        PortfolioTotals actual;
+        try {
+            actual = loanStatsService.totals();
+        } catch (RuntimeException e) {
+            stopRecording();
+            skipped.increment();
+            log.warn("Portfolio reconcile skipped: {}", e.toString());
+            return;
+        }
+        lockAll();
+        try {
+            // Writes applied while reading committed after the read began, or very nearly
+            for (Stripe stripe : stripes) {
+                actual.addAll(stripe.sinceRead);
+            }
+            if (!merge().sameAs(actual)) {
+                corrections.increment();
+                log.info("Portfolio counters were out of step with the database; reset to {} loans", actual.count());
+            }
+            replace(actual);
+            reconciling = false;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    PortfolioTotals snapshot() {
+        PortfolioTotals merged = new PortfolioTotals();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                merged.addAll(stripe.totals);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return merged;
+    }
+
+    private void apply(Consumer<PortfolioTotals> change) {
+        Stripe stripe = stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+        stripe.lock.lock();
+        try {
+            change.accept(stripe.totals);
+            if (reconciling) {
+                change.accept(stripe.sinceRead);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void install(PortfolioTotals actual) {
+        lockAll();
+        try {
+            replace(actual);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private void startRecording() {
+        lockAll();
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.sinceRead.clear();
+            }
+            reconciling = true;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private void stopRecording() {
+        lockAll();
+        try {
+            reconciling = false;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Callers hold every stripe lock
+    private void replace(PortfolioTotals actual) {
+        for (Stripe stripe : stripes) {
+            stripe.totals.clear();
+        }
+        stripes[0].totals.addAll(actual);
+    }
+
+    private PortfolioTotals merge() {
+        PortfolioTotals merged = new PortfolioTotals();
+        for (Stripe stripe : stripes) {
+            merged.addAll(stripe.totals);
+        }
+        return merged;
+    }
+
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PortfolioTotals totals = new PortfolioTotals();
+        // What this stripe applied since the running reconcile began reading
+        private final PortfolioTotals sinceRead = new PortfolioTotals();
+    }
+}
@@ -0,0 +1,196 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.LoanStats;
+import com.loanstreet.backend.dto.LoanStatsBucket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.loanstreet.backend.service.LoanStatsService.RATE_BOUNDS;
+import static com.loanstreet.backend.service.LoanStatsService.TERM_BOUNDS;
+
+/**
+ * Exact portfolio sums per (term bucket, rate band) cell, rolled up into a {@link LoanStats}
+ * on demand. Amounts and rates are held at the scale of their columns, so totals built from
+ * individual loans match totals summed by the database. Not thread-safe.
+ */
+final class PortfolioTotals {
+
+    static final int TERM_BUCKETS = TERM_BOUNDS.length;
+    static final int RATE_BANDS = RATE_BOUNDS.length + 1;
+
+    private static final int AMOUNT_SCALE = 4;
+    private static final int INTEREST_RATE_SCALE = 6;
+    private static final int RATE_SCALE = 6;
+    private static final int TERM_SCALE = 2;
+
+    private final long[] counts = new long[TERM_BUCKETS * RATE_BANDS];
+    private final BigDecimal[] principals = zeros();
+    private final BigDecimal[] rateWeightedPrincipals = zeros();
+    private final long[] months = new long[TERM_BUCKETS * RATE_BANDS];
+
+    static int termBucket(int lengthInMonths) {
+        for (int i = 0; i < TERM_BOUNDS.length - 1; i++) {
+            if (lengthInMonths <= TERM_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return TERM_BOUNDS.length - 1;
+    }
+
+    static int rateBand(BigDecimal interestRate) {
+        for (int i = 0; i < RATE_BOUNDS.length; i++) {
+            if (interestRate.compareTo(RATE_BOUNDS[i]) < 0) {
+                return i;
+            }
+        }
+        return RATE_BOUNDS.length;
+    }
+
+    void add(int termBucket, int rateBand, long count, BigDecimal principal, BigDecimal rateWeightedPrincipal,
+             long totalMonths) {
+        int cell = termBucket * RATE_BANDS + rateBand;
+        counts[cell] += count;
+        principals[cell] = principals[cell].add(principal);
+        rateWeightedPrincipals[cell] = rateWeightedPrincipals[cell].add(rateWeightedPrincipal);
+        months[cell] += totalMonths;
+    }
+
+    /**
+     * Adds one loan, or removes it when {@code sign} is -1.
+     */
+    void add(BigDecimal amount, BigDecimal interestRate, int lengthInMonths, int sign) {
+        BigDecimal storedAmount = amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+        BigDecimal storedRate = interestRate.setScale(INTEREST_RATE_SCALE, RoundingMode.HALF_UP);
+        BigDecimal weighted = storedAmount.multiply(storedRate);
+        if (sign < 0) {
+            storedAmount = storedAmount.negate();
+            weighted = weighted.negate();
+        }
+        add(termBucket(lengthInMonths), rateBand(storedRate), sign, storedAmount, weighted,
+                (long) sign * lengthInMonths);
+    }
+
+    void addAll(PortfolioTotals other) {
+        for (int cell = 0; cell < counts.length; cell++) {
+            counts[cell] += other.counts[cell];
+            principals[cell] = principals[cell].add(other.principals[cell]);
+            rateWeightedPrincipals[cell] = rateWeightedPrincipals[cell].add(other.rateWeightedPrincipals[cell]);
+            months[cell] += other.months[cell];
+        }
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(principals, BigDecimal.ZERO);
+        Arrays.fill(rateWeightedPrincipals, BigDecimal.ZERO);
+        Arrays.fill(months, 0);
+    }
+
+    long count() {
+        return Arrays.stream(counts).sum();
+    }
+
+    /**
+     * Same sums in every cell, ignoring the scale of the decimals.
+     */
+    boolean sameAs(PortfolioTotals other) {
+        for (int cell = 0; cell < counts.length; cell++) {
+            if (counts[cell] != other.counts[cell]
+                    || months[cell] != other.months[cell]
+                    || principals[cell].compareTo(other.principals[cell]) != 0
+                    || rateWeightedPrincipals[cell].compareTo(other.rateWeightedPrincipals[cell]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    LoanStats toStats() {
+        Totals overall = new Totals();
+        Totals[] byTerm = newTotals(TERM_BUCKETS);
+        Totals[] byRateBand = newTotals(RATE_BANDS);
+        for (int term = 0; term < TERM_BUCKETS; term++) {
+            for (int band = 0; band < RATE_BANDS; band++) {
+                int cell = term * RATE_BANDS + band;
+                Totals totals = new Totals(counts[cell], principals[cell], rateWeightedPrincipals[cell], months[cell]);
+                overall.add(totals);
+                byTerm[term].add(totals);
+                byRateBand[band].add(totals);
+            }
+        }
+
+        List<LoanStatsBucket> termBuckets = new ArrayList<>(TERM_BUCKETS);
+        for (int i = 0; i < TERM_BUCKETS; i++) {
+            termBuckets.add(byTerm[i].toBucket()
+                    .minLengthInMonths(i == 0 ? 1 : TERM_BOUNDS[i - 1] + 1)
+                    .maxLengthInMonths(TERM_BOUNDS[i]));
+        }
+        List<LoanStatsBucket> rateBands = new ArrayList<>(RATE_BANDS);
+        for (int i = 0; i < RATE_BANDS; i++) {
+            rateBands.add(byRateBand[i].toBucket()
+                    .minInterestRate(i == 0 ? BigDecimal.ZERO : RATE_BOUNDS[i - 1])
+                    .maxInterestRate(i < RATE_BOUNDS.length ? RATE_BOUNDS[i] : null));
+        }
+
+        return new LoanStats()
+                .overall(overall.toBucket())
+                .byTerm(termBuckets)
+                .byRateBand(rateBands);
+    }
+
+    private static BigDecimal[] zeros() {
+        BigDecimal[] values = new BigDecimal[TERM_BUCKETS * RATE_BANDS];
+        Arrays.fill(values, BigDecimal.ZERO);
+        return values;
+    }
+
+    private static Totals[] newTotals(int size) {
+        Totals[] totals = new Totals[size];
+        Arrays.setAll(totals, i -> new Totals());
+        return totals;
+    }
+
+    private static final class Totals {
+
+        private long count;
+        private BigDecimal principal = BigDecimal.ZERO;
+        private BigDecimal rateWeightedPrincipal = BigDecimal.ZERO;
+        private long months;
+
+        Totals() {
+        }
+
+        Totals(long count, BigDecimal principal, BigDecimal rateWeightedPrincipal, long months) {
+            this.count = count;
+            this.principal = principal;
+            this.rateWeightedPrincipal = rateWeightedPrincipal;
+            this.months = months;
+        }
+
+        void add(Totals other) {
+            count += other.count;
+            principal = principal.add(other.principal);
+            rateWeightedPrincipal = rateWeightedPrincipal.add(other.rateWeightedPrincipal);
+            months += other.months;
+        }
+
+        LoanStatsBucket toBucket() {
+            LoanStatsBucket bucket = new LoanStatsBucket()
+                    .count(count)
+                    .totalPrincipal(principal);
+            if (count > 0) {
+                bucket.averageLengthInMonths(BigDecimal.valueOf(months)
+                        .divide(BigDecimal.valueOf(count), TERM_SCALE, RoundingMode.HALF_UP));
+            }
+            if (principal.signum() > 0) {
+                bucket.weightedAverageInterestRate(rateWeightedPrincipal
+                        .divide(principal, RATE_SCALE, RoundingMode.HALF_UP));
+            }
+            return bucket;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.loanstreet.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loanstreet.backend.config.ReactiveDatabase;
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.dto.LoanCreateRequest;
+import com.loanstreet.backend.dto.LoanPage;
+import com.loanstreet.backend.dto.LoanStats;
+import com.loanstreet.backend.dto.LoanUpdateRequest;
+import com.loanstreet.backend.exception.PreconditionFailedException;
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.repository.LoanSearch;
+import com.loanstreet.backend.repository.ReactiveLoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link LoanService} for the reactive profile, over R2DBC. Writes and their side effects
+ * are the same: payments are resolved and checked the same way, creates are idempotent
+ * per request ID through {@link LoanCreateRequests}, and {@link PortfolioCounters} sees
+ * each write once it has committed. Reads always go to the database: the loan cache and
+ * read replicas are only wired in on the JDBC side.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoanService {
+
+    private final ReactiveLoanRepository loanRepository;
+    private final DatabaseClient client;
+    private final TransactionalOperator transactions;
+    private final TransactionalOperator readOnlyTransactions;
+    private final PaymentCalculator paymentCalculator;
+    private final PortfolioCounters portfolioCounters;
+    private final LoanCreateRequests createRequests;
+    private final JsonFactory jsonFactory;
+
+    public ReactiveLoanService(ReactiveLoanRepository loanRepository, ReactiveDatabase database,
+                               PaymentCalculator paymentCalculator, PortfolioCounters portfolioCounters,
+                               LoanCreateRequests createRequests, ObjectMapper objectMapper) {
+        this.loanRepository = loanRepository;
+        this.client = database.client();
+        this.transactions = database.transactions();
+        this.readOnlyTransactions = database.readOnlyTransactions();
+        this.paymentCalculator = paymentCalculator;
+        this.portfolioCounters = portfolioCounters;
+        this.createRequests = createRequests;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public Mono<Loan> create(LoanCreateRequest request) {
+        return Mono.defer(() -> {
+            log.info("Creating loan: amount={}, interestRate={}, lengthInMonths={}",
+                    request.getAmount(), request.getInterestRate(), request.getLengthInMonths());
+            return loanRepository.insert(LoanService.toEntity(request, paymentCalculator));
+        }).map(saved -> {
+            log.info("Loan created with id={}", saved.getId());
+            portfolioCounters.loanCreated(saved);
+            return LoanService.toDto(saved);
+        });
+    }
+
+    /**
+     * See {@link LoanService#create(LoanCreateRequest, UUID)}. The request is recorded in
+     * the loan's transaction, and a concurrent duplicate waits on its primary key, as
+     * {@link LoanCreateRequests#createOnce} describes.
+     */
+    public Mono<Loan> create(LoanCreateRequest request, UUID requestId) {
+        if (requestId == null) {
+            return create(request);
+        }
+        return Mono.defer(() -> {
+            Loan cached = createRequests.cached(requestId);
+            if (cached != null) {
+                return Mono.just(createRequests.replay(requestId, cached));
+            }
+            return findCreated(requestId)
+                    .map(original -> createRequests.replay(requestId, original))
+                    .switchIfEmpty(Mono.defer(() -> createRecorded(request, requestId)));
+        });
+    }
+
+    private Mono<Loan> createRecorded(LoanCreateRequest request, UUID requestId) {
+        Instant createdAt = Instant.now();
+        return Mono.defer(() -> {
+                    log.info("Creating loan: amount={}, interestRate={}, lengthInMonths={}",
+                            request.getAmount(), request.getInterestRate(), request.getLengthInMonths());
+                    return loanRepository.insert(LoanService.toEntity(request, paymentCalculator));
+                })
+                .flatMap(saved -> loanRepository
+                        .insertCreateRequest(LoanCreateRequests.toEntity(requestId, LoanService.toDto(saved)),
+                                createRequests.cutoff())
+                        .thenReturn(saved))
+                .as(transactions::transactional)
+                .map(saved -> {
+                    log.info("Loan created with id={}", saved.getId());
+                    portfolioCounters.loanCreated(saved);
+                    Loan created = LoanService.toDto(saved);
+                    createRequests.remember(requestId, created, createdAt);
+                    return created;
+                })
+                // Either a concurrent request with this ID committed first, or the loan itself was rejected
+                .onErrorResume(DataIntegrityViolationException.class, e -> findCreated(requestId)
+                        .map(first -> createRequests.replay(requestId, first))
+                        .switchIfEmpty(Mono.error(e)));
+    }
+
+    private Mono<Loan> findCreated(UUID requestId) {
+        return loanRepository.findCreateRequest(requestId, createRequests.cutoff())
+                .map(entity -> {
+                    Loan loan = LoanCreateRequests.toDto(entity);
+                    createRequests.remember(requestId, loan, entity.getCreatedAt());
+                    return loan;
+                });
+    }
+
+    public Mono<List<Loan>> createAll(List<LoanCreateRequest> requests) {
+        return Mono.defer(() -> {
+                    log.info("Creating {} loans in bulk", requests.size());
+                    return loanRepository.insertAll(LoanService.toEntities(requests, paymentCalculator));
+                })
+                .as(transactions::transactional)
+                .map(saved -> {
+                    saved.forEach(portfolioCounters::loanCreated);
+                    log.info("Created {} loans in bulk", saved.size());
+                    return saved.stream().map(LoanService::toDto).toList();
+                });
+    }
+
+    public Mono<Loan> findById(UUID id) {
+        return Mono.defer(() -> {
+            log.debug("Fetching loan id={}", id);
+            return loanRepository.findById(id);
+        }).map(LoanService::toDto);
+    }
+
+    public Mono<LoanPage> findPage(String cursor, int limit) {
+        return Mono.defer(() -> {
+            log.debug("Fetching loan page cursor={}, limit={}", cursor, limit);
+            return page(new LoanSearch(null, null, null, null, null, null, null), cursor, limit);
+        });
+    }
+
+    public Mono<LoanPage> search(LoanSearch search, String cursor, int limit) {
+        return Mono.defer(() -> {
+            log.debug("Searching loans {}, cursor={}, limit={}", search, cursor, limit);
+            LoanService.checkRange(search.minAmount(), search.maxAmount(), "minAmount must not exceed maxAmount");
+            LoanService.checkRange(search.minInterestRate(), search.maxInterestRate(),
+                    "minInterestRate must not exceed maxInterestRate");
+            LoanService.checkRange(search.createdFrom(), search.createdTo(), "createdFrom must not be after createdTo");
+            return page(search, cursor, limit);
+        });
+    }
+
+    private Mono<LoanPage> page(LoanSearch search, String cursor, int limit) {
+        LoanCursor after = cursor == null || cursor.isBlank() ? null : LoanCursor.decode(cursor);
+        // Fetch one extra row to learn whether another page exists without a count query
+        return loanRepository.search(search, after == null ? null : after.createdAt(),
+                        after == null ? null : after.id(), limit + 1)
+                .collectList()
+                .map(rows -> {
+                    boolean hasMore = rows.size() > limit;
+                    List<LoanEntity> pageRows = hasMore ? rows.subList(0, limit) : rows;
+                    LoanPage page = new LoanPage().items(pageRows.stream().map(LoanService::toDto).toList());
+                    if (hasMore) {
+                        LoanEntity last = pageRows.get(pageRows.size() - 1);
+                        page.nextCursor(new LoanCursor(last.getCreatedAt(), last.getId()).encode());
+                    }
+                    return page;
+                });
+    }
+
+    public Mono<LoanSchedule> findSchedule(UUID id, int fromMonth, Integer toMonth) {
+        return findById(id).map(loan -> LoanService.schedule(loan, fromMonth, toMonth, paymentCalculator));
+    }
+
+    public Mono<Long> findVersion(UUID id) {
+        return loanRepository.findVersionById(id);
+    }
+
+    /**
+     * See {@link LoanService#update(UUID, LoanUpdateRequest, Set)}: empty when the loan
+     * does not exist, and a {@link PreconditionFailedException} when it is at another version.
+     */
+    public Mono<Loan> update(UUID id, LoanUpdateRequest request, Set<Long> expectedVersions) {
+        return Mono.defer(() -> {
+            log.info("Updating loan id={}", id);
+            BigDecimal monthlyPayment = paymentCalculator.resolve(request.getAmount(), request.getInterestRate(),
+                    request.getLengthInMonths(), request.getMonthlyPaymentAmount());
+            return loanRepository.updateReturning(id, request.getAmount(), request.getInterestRate(),
+                    request.getLengthInMonths(), monthlyPayment, expectedVersions);
+        }).map(updated -> {
+            LoanEntity entity = updated.updated();
+            log.info("Loan updated id={}, version={}", id, entity.getVersion());
+            portfolioCounters.loanUpdated(updated.previous(), entity);
+            return LoanService.toDto(entity);
+        }).switchIfEmpty(Mono.defer(() -> expectedVersions == null
+                ? Mono.empty()
+                : loanRepository.findVersionById(id).flatMap(version -> Mono.error(
+                        new PreconditionFailedException("Loan " + id + " is at version " + version, version)))));
+    }
+
+    /**
+     * See {@link LoanStatsService#stats()}; read from the loan_stats roll-up.
+     */
+    public Mono<LoanStats> stats() {
+        return Mono.defer(() -> {
+            log.debug("Computing loan portfolio stats");
+            PortfolioTotals totals = new PortfolioTotals();
+            return client.sql(LoanStatsService.ROLLUP_SQL)
+                    .map(row -> {
+                        totals.add(row.get(0, Integer.class), row.get(1, Integer.class), row.get(2, Long.class),
+                                row.get(3, BigDecimal.class), row.get(4, BigDecimal.class), row.get(5, Long.class));
+                        return totals;
+                    })
+                    .all()
+                    .then(Mono.fromSupplier(totals::toStats));
+        });
+    }
+
+    /**
+     * The export of {@link LoanExportService#exportNdjson}, as buffers of
+     * {@link LoanExportService#FETCH_SIZE} rows that are read only as fast as they are sent.
+     */
+    public Flux<DataBuffer> exportNdjson(DataBufferFactory bufferFactory) {
+        return export("NDJSON", null, bufferFactory, (loans, out) -> {
+            try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                for (Loan loan : loans) {
+                    LoanExportService.writeNdjson(generator, loan.getId().toString(), loan.getAmount(),
+                            loan.getInterestRate(), loan.getLengthInMonths(), loan.getMonthlyPaymentAmount());
+                }
+            }
+        });
+    }
+
+    public Flux<DataBuffer> exportCsv(DataBufferFactory bufferFactory) {
+        return export("CSV", LoanExportService.CSV_HEADER + "\n", bufferFactory, (loans, out) -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (Loan loan : loans) {
+                LoanExportService.writeCsv(writer, loan.getId().toString(), loan.getAmount(),
+                        loan.getInterestRate(), loan.getLengthInMonths(), loan.getMonthlyPaymentAmount());
+            }
+            writer.flush();
+        });
+    }
+
+    private Flux<DataBuffer> export(String format, String header, DataBufferFactory bufferFactory,
+                                    BatchWriter batchWriter) {
+        AtomicLong rows = new AtomicLong();
+        Flux<DataBuffer> body = client.sql(LoanExportService.EXPORT_SQL)
+                .filter(statement -> statement.fetchSize(LoanExportService.FETCH_SIZE))
+                .map(row -> new Loan()
+                        .id(row.get(0, UUID.class))
+                        .amount(row.get(1, BigDecimal.class))
+                        .interestRate(row.get(2, BigDecimal.class))
+                        .lengthInMonths(row.get(3, Integer.class))
+                        .monthlyPaymentAmount(row.get(4, BigDecimal.class)))
+                .all()
+                .buffer(LoanExportService.FETCH_SIZE)
+                .map(loans -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(loans.size() * 128);
+                    try {
+                        batchWriter.write(loans, out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows.addAndGet(loans.size());
+                    return bufferFactory.wrap(out.toByteArray());
+                })
+                // The Postgres driver only reads through a cursor inside a transaction
+                .as(readOnlyTransactions::transactional);
+        if (header != null) {
+            body = Flux.concat(Mono.fromSupplier(() -> bufferFactory.wrap(header.getBytes(StandardCharsets.UTF_8))),
+                    body);
+        }
+        return body
+                .doOnSubscribe(subscription -> log.info("Starting {} loan export", format))
+                .doOnComplete(() -> log.info("Finished {} loan export: {} rows", format, rows.get()));
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter {
+        void write(List<Loan> loans, ByteArrayOutputStream out) throws IOException;
+    }
+}
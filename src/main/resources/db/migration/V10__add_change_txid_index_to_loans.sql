@@ -0,0 +1,3 @@
+-- The change feed's keyset scan. CONCURRENTLY keeps the build from blocking writes to loans, and
+-- needs a migration of its own, as Flyway runs it outside a transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loans_change_txid_id ON loans (change_txid, id);
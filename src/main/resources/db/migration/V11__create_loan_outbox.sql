@@ -0,0 +1,36 @@
+-- Every insert and update of a loan, as an event for LoanOutboxRelay to publish. Rows are written by
+-- statement-level triggers, as loan_stats is, so the event commits or rolls back with the write that
+-- made it, whether that came through JPA, R2DBC or the COPY of an import, and costs the writer no
+-- extra round trip. The relay deletes rows once they are published.
+CREATE TABLE IF NOT EXISTS loan_outbox (
+    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    loan_id UUID NOT NULL,
+    loan_version BIGINT NOT NULL,
+    type VARCHAR(16) NOT NULL,
+    amount NUMERIC(19, 4) NOT NULL,
+    interest_rate NUMERIC(10, 6) NOT NULL,
+    length_in_months INTEGER NOT NULL,
+    monthly_payment_amount NUMERIC(19, 4) NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE FUNCTION loan_outbox_record() RETURNS TRIGGER
+    LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO loan_outbox (loan_id, loan_version, type, amount, interest_rate, length_in_months,
+                             monthly_payment_amount)
+    SELECT id, version, CASE TG_OP WHEN 'INSERT' THEN 'created' ELSE 'updated' END,
+           amount, interest_rate, length_in_months, monthly_payment_amount
+    FROM new_rows
+    ORDER BY id;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER loan_outbox_insert AFTER INSERT ON loans
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loan_outbox_record();
+
+CREATE TRIGGER loan_outbox_update AFTER UPDATE ON loans
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loan_outbox_record();
@@ -0,0 +1,151 @@
+-- First half of moving loans to a table partitioned by month of created_at, so reads of a time
+-- window touch only its months and old months can be detached or dropped whole. This migration
+-- creates the partitioned table beside loans and mirrors every write to loans into it; V13 copies
+-- the existing rows across in batches and swaps the two tables. Until then nothing reads it.
+--
+-- The primary key has to include the partition key, so (id, created_at) only enforces unique IDs
+-- within a partition. loan_ids keeps every ID with its created_at, globally unique, and doubles as
+-- the lookup that lets a read by ID go straight to its partition (see LoanRepositoryCustomImpl).
+CREATE TABLE loans_partitioned (
+    LIKE loans INCLUDING DEFAULTS,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Rows outside every month, such as a created_at set far in the future, land here rather than fail
+CREATE TABLE loans_default PARTITION OF loans_partitioned DEFAULT;
+
+CREATE INDEX idx_loans_partitioned_created_at_id ON loans_partitioned (created_at, id);
+CREATE INDEX idx_loans_partitioned_length_created_at_id ON loans_partitioned (length_in_months, created_at, id);
+CREATE INDEX idx_loans_partitioned_amount ON loans_partitioned (amount);
+CREATE INDEX idx_loans_partitioned_interest_rate ON loans_partitioned (interest_rate);
+CREATE INDEX idx_loans_partitioned_change_txid_id ON loans_partitioned (change_txid, id);
+
+-- Creates the missing monthly partitions loans_pYYYYMM of parent, in UTC months, from the month of
+-- from_time through the month of through_time, and returns the end of the last of them.
+-- LoanPartitionMaintenance calls this to keep partitions a few months ahead of the clock. A month
+-- whose rows already went to the default partition is skipped with a warning: its partition can
+-- only be created once those rows are moved out by hand.
+CREATE FUNCTION loan_partitions_create(parent REGCLASS, from_time TIMESTAMPTZ, through_time TIMESTAMPTZ)
+    RETURNS TIMESTAMPTZ
+    LANGUAGE plpgsql AS $$
+DECLARE
+    month_start TIMESTAMPTZ := date_trunc('month', from_time, 'UTC');
+    month_end TIMESTAMPTZ;
+    partition_name TEXT;
+BEGIN
+    WHILE month_start <= through_time LOOP
+        month_end := month_start + INTERVAL '1 month';
+        partition_name := 'loans_p' || to_char(month_start AT TIME ZONE 'UTC', 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            BEGIN
+                EXECUTE format('CREATE TABLE %I PARTITION OF %s FOR VALUES FROM (%L) TO (%L)',
+                               partition_name, parent, month_start, month_end);
+            EXCEPTION WHEN check_violation THEN
+                RAISE WARNING 'Partition % not created: the default partition of % has rows in its month',
+                    partition_name, parent;
+            END;
+        END IF;
+        month_start := month_end;
+    END LOOP;
+    RETURN month_start;
+END
+$$;
+
+SELECT loan_partitions_create('loans_partitioned', coalesce(min(created_at), now()), now() + INTERVAL '3 months')
+FROM loans;
+
+CREATE TABLE loan_ids (
+    id UUID PRIMARY KEY,
+    created_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE FUNCTION loan_ids_record() RETURNS TRIGGER
+    LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO loan_ids (id, created_at) SELECT id, created_at FROM new_rows;
+    ELSIF TG_OP = 'DELETE' THEN
+        DELETE FROM loan_ids USING old_rows WHERE loan_ids.id = old_rows.id;
+    ELSE
+        TRUNCATE loan_ids;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER loan_ids_insert AFTER INSERT ON loans_partitioned
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loan_ids_record();
+
+CREATE TRIGGER loan_ids_delete AFTER DELETE ON loans_partitioned
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loan_ids_record();
+
+CREATE TRIGGER loan_ids_truncate AFTER TRUNCATE ON loans_partitioned
+    FOR EACH STATEMENT EXECUTE FUNCTION loan_ids_record();
+
+-- created_at picks the partition and is copied to loan_ids, so it is fixed once a loan is written,
+-- as the application already treats it. Only a statement that sets it pays for the check.
+CREATE FUNCTION loans_created_at_fixed() RETURNS TRIGGER
+    LANGUAGE plpgsql AS $$
+BEGIN
+    RAISE EXCEPTION 'created_at of loan % cannot change', OLD.id USING ERRCODE = 'check_violation';
+END
+$$;
+
+CREATE TRIGGER loans_created_at_fixed BEFORE UPDATE OF created_at ON loans_partitioned
+    FOR EACH ROW WHEN (OLD.created_at IS DISTINCT FROM NEW.created_at)
+    EXECUTE FUNCTION loans_created_at_fixed();
+
+-- Writes to loans are copied in the same transaction, so once this commits the partitioned table
+-- only lacks the rows that existed before it, which V13 copies. A row the copy has not reached yet
+-- is inserted by its first update; the copy then leaves it alone. The loan_stats and loan_outbox
+-- triggers stay on loans until the swap, so nothing is counted or published twice.
+CREATE FUNCTION loans_partitioned_mirror() RETURNS TRIGGER
+    LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO loans_partitioned (id, amount, interest_rate, length_in_months, monthly_payment_amount,
+                                       created_at, updated_at, version, change_txid)
+        SELECT id, amount, interest_rate, length_in_months, monthly_payment_amount,
+               created_at, updated_at, version, change_txid
+        FROM new_rows
+        ON CONFLICT (id, created_at) DO NOTHING;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO loans_partitioned AS p (id, amount, interest_rate, length_in_months, monthly_payment_amount,
+                                            created_at, updated_at, version, change_txid)
+        SELECT id, amount, interest_rate, length_in_months, monthly_payment_amount,
+               created_at, updated_at, version, change_txid
+        FROM new_rows
+        ON CONFLICT (id, created_at) DO UPDATE
+            SET amount = EXCLUDED.amount,
+                interest_rate = EXCLUDED.interest_rate,
+                length_in_months = EXCLUDED.length_in_months,
+                monthly_payment_amount = EXCLUDED.monthly_payment_amount,
+                updated_at = EXCLUDED.updated_at,
+                version = EXCLUDED.version,
+                change_txid = EXCLUDED.change_txid;
+    ELSIF TG_OP = 'DELETE' THEN
+        DELETE FROM loans_partitioned p USING old_rows
+        WHERE p.id = old_rows.id AND p.created_at = old_rows.created_at;
+    ELSE
+        TRUNCATE loans_partitioned;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER loans_partitioned_mirror_insert AFTER INSERT ON loans
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loans_partitioned_mirror();
+
+CREATE TRIGGER loans_partitioned_mirror_update AFTER UPDATE ON loans
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loans_partitioned_mirror();
+
+CREATE TRIGGER loans_partitioned_mirror_delete AFTER DELETE ON loans
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loans_partitioned_mirror();
+
+CREATE TRIGGER loans_partitioned_mirror_truncate AFTER TRUNCATE ON loans
+    FOR EACH STATEMENT EXECUTE FUNCTION loans_partitioned_mirror();
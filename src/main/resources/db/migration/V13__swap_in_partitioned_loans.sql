@@ -0,0 +1,111 @@
+-- Second half of partitioning loans (see V12). Runs outside a transaction (see the .conf file beside
+-- this one) so the copy can commit batch by batch while writes to loans carry on. A copy that is
+-- interrupted can be repaired and run again; rows already copied are skipped.
+CREATE OR REPLACE PROCEDURE loans_partitioned_backfill(batch_size INTEGER)
+    LANGUAGE plpgsql AS $$
+DECLARE
+    after_created_at TIMESTAMPTZ := '-infinity';
+    after_id UUID := '00000000-0000-0000-0000-000000000000';
+    copied INTEGER;
+BEGIN
+    LOOP
+        -- One (created_at, id) keyset page of idx_loans_created_at_id per transaction
+        WITH batch AS (
+            SELECT id, amount, interest_rate, length_in_months, monthly_payment_amount,
+                   created_at, updated_at, version, change_txid
+            FROM loans
+            WHERE (created_at, id) > (after_created_at, after_id)
+            ORDER BY created_at, id
+            LIMIT batch_size
+        ), inserted AS (
+            INSERT INTO loans_partitioned (id, amount, interest_rate, length_in_months, monthly_payment_amount,
+                                           created_at, updated_at, version, change_txid)
+            SELECT * FROM batch
+            ON CONFLICT (id, created_at) DO NOTHING
+        )
+        SELECT count(*) OVER (), created_at, id INTO copied, after_created_at, after_id
+        FROM batch
+        ORDER BY created_at DESC, id DESC
+        LIMIT 1;
+        EXIT WHEN copied IS NULL;
+        COMMIT;
+        EXIT WHEN copied < batch_size;
+    END LOOP;
+END
+$$;
+
+CALL loans_partitioned_backfill(10000);
+
+DROP PROCEDURE loans_partitioned_backfill(INTEGER);
+
+-- The swap holds an exclusive lock on loans only for the renames. Rather than queue behind a long
+-- query, and stall every request queued behind it in turn, it gives up the lock wait after a
+-- second and tries again, for up to a minute before the migration fails.
+DO $$
+BEGIN
+    FOR attempt IN 1..60 LOOP
+        BEGIN
+            PERFORM set_config('lock_timeout', '1s', true);
+            LOCK TABLE loans IN ACCESS EXCLUSIVE MODE;
+
+            DROP TRIGGER loans_partitioned_mirror_insert ON loans;
+            DROP TRIGGER loans_partitioned_mirror_update ON loans;
+            DROP TRIGGER loans_partitioned_mirror_delete ON loans;
+            DROP TRIGGER loans_partitioned_mirror_truncate ON loans;
+            DROP TRIGGER loan_stats_insert ON loans;
+            DROP TRIGGER loan_stats_update ON loans;
+            DROP TRIGGER loan_stats_delete ON loans;
+            DROP TRIGGER loan_stats_truncate ON loans;
+            DROP TRIGGER loan_outbox_insert ON loans;
+            DROP TRIGGER loan_outbox_update ON loans;
+
+            ALTER TABLE loans RENAME TO loans_legacy;
+            ALTER TABLE loans_legacy RENAME CONSTRAINT loans_pkey TO loans_legacy_pkey;
+            ALTER INDEX idx_loans_created_at_id RENAME TO idx_loans_legacy_created_at_id;
+            ALTER INDEX idx_loans_length_created_at_id RENAME TO idx_loans_legacy_length_created_at_id;
+            ALTER INDEX idx_loans_amount RENAME TO idx_loans_legacy_amount;
+            ALTER INDEX idx_loans_interest_rate RENAME TO idx_loans_legacy_interest_rate;
+            ALTER INDEX idx_loans_change_txid_id RENAME TO idx_loans_legacy_change_txid_id;
+
+            ALTER TABLE loans_partitioned RENAME TO loans;
+            ALTER TABLE loans RENAME CONSTRAINT loans_partitioned_pkey TO loans_pkey;
+            ALTER INDEX idx_loans_partitioned_created_at_id RENAME TO idx_loans_created_at_id;
+            ALTER INDEX idx_loans_partitioned_length_created_at_id RENAME TO idx_loans_length_created_at_id;
+            ALTER INDEX idx_loans_partitioned_amount RENAME TO idx_loans_amount;
+            ALTER INDEX idx_loans_partitioned_interest_rate RENAME TO idx_loans_interest_rate;
+            ALTER INDEX idx_loans_partitioned_change_txid_id RENAME TO idx_loans_change_txid_id;
+
+            CREATE TRIGGER loan_stats_insert AFTER INSERT ON loans
+                REFERENCING NEW TABLE AS new_rows
+                FOR EACH STATEMENT EXECUTE FUNCTION loan_stats_apply();
+            CREATE TRIGGER loan_stats_update AFTER UPDATE ON loans
+                REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+                FOR EACH STATEMENT EXECUTE FUNCTION loan_stats_apply();
+            CREATE TRIGGER loan_stats_delete AFTER DELETE ON loans
+                REFERENCING OLD TABLE AS old_rows
+                FOR EACH STATEMENT EXECUTE FUNCTION loan_stats_apply();
+            CREATE TRIGGER loan_stats_truncate AFTER TRUNCATE ON loans
+                FOR EACH STATEMENT EXECUTE FUNCTION loan_stats_apply();
+            CREATE TRIGGER loan_outbox_insert AFTER INSERT ON loans
+                REFERENCING NEW TABLE AS new_rows
+                FOR EACH STATEMENT EXECUTE FUNCTION loan_outbox_record();
+            CREATE TRIGGER loan_outbox_update AFTER UPDATE ON loans
+                REFERENCING NEW TABLE AS new_rows
+                FOR EACH STATEMENT EXECUTE FUNCTION loan_outbox_record();
+            RETURN;
+        EXCEPTION WHEN lock_not_available THEN
+            RAISE NOTICE 'loans is busy, retrying the swap (attempt %)', attempt;
+        END;
+    END LOOP;
+    RAISE EXCEPTION 'Could not lock loans to swap in the partitioned table';
+END
+$$;
+
+DROP FUNCTION loans_partitioned_mirror();
+
+-- loans_legacy keeps the rows as they were at the swap, for checking the copy. Nothing writes to it
+-- any more; drop it once satisfied:
+--     DROP TABLE loans_legacy;
+
+-- Autovacuum analyzes the partitions but never the partitioned table itself
+ANALYZE loans;
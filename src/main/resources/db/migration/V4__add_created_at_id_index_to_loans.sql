@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_loans_created_at_id ON loans (created_at, id);
@@ -0,0 +1,113 @@
+-- Portfolio totals per (term bucket, rate band) cell, kept current by statement-level
+-- triggers so GET /api/loans/stats reads a few hundred rows instead of scanning loans.
+-- Each cell is split into stripes by backend so concurrent writers rarely update the same row.
+-- The bucket bounds must match LoanStatsService.TERM_BOUNDS and RATE_BOUNDS.
+
+CREATE FUNCTION loan_term_bucket(months INTEGER) RETURNS SMALLINT
+    LANGUAGE sql IMMUTABLE AS $$
+SELECT (CASE
+            WHEN months <= 12 THEN 0
+            WHEN months <= 36 THEN 1
+            WHEN months <= 60 THEN 2
+            WHEN months <= 120 THEN 3
+            WHEN months <= 240 THEN 4
+            WHEN months <= 360 THEN 5
+            ELSE 6
+        END)::SMALLINT
+$$;
+
+CREATE FUNCTION loan_rate_band(rate NUMERIC) RETURNS SMALLINT
+    LANGUAGE sql IMMUTABLE AS $$
+SELECT (CASE
+            WHEN rate < 0.03 THEN 0
+            WHEN rate < 0.05 THEN 1
+            WHEN rate < 0.07 THEN 2
+            WHEN rate < 0.10 THEN 3
+            WHEN rate < 0.15 THEN 4
+            ELSE 5
+        END)::SMALLINT
+$$;
+
+CREATE TABLE loan_stats (
+    term_bucket SMALLINT NOT NULL,
+    rate_band SMALLINT NOT NULL,
+    stripe SMALLINT NOT NULL,
+    loan_count BIGINT NOT NULL,
+    principal NUMERIC NOT NULL,
+    rate_weighted_principal NUMERIC NOT NULL,
+    total_months BIGINT NOT NULL,
+    PRIMARY KEY (term_bucket, rate_band, stripe)
+);
+
+CREATE FUNCTION loan_stats_apply() RETURNS TRIGGER
+    LANGUAGE plpgsql AS $$
+BEGIN
+    -- Rows are upserted in key order so concurrent statements cannot deadlock on them
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO loan_stats AS s
+        SELECT loan_term_bucket(length_in_months), loan_rate_band(interest_rate), pg_backend_pid() % 16,
+               COUNT(*), SUM(amount), SUM(amount * interest_rate), SUM(length_in_months)
+        FROM new_rows
+        GROUP BY 1, 2
+        ORDER BY 1, 2
+        ON CONFLICT (term_bucket, rate_band, stripe) DO UPDATE
+            SET loan_count = s.loan_count + EXCLUDED.loan_count,
+                principal = s.principal + EXCLUDED.principal,
+                rate_weighted_principal = s.rate_weighted_principal + EXCLUDED.rate_weighted_principal,
+                total_months = s.total_months + EXCLUDED.total_months;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO loan_stats AS s
+        SELECT loan_term_bucket(length_in_months), loan_rate_band(interest_rate), pg_backend_pid() % 16,
+               SUM(sign), SUM(sign * amount), SUM(sign * amount * interest_rate), SUM(sign * length_in_months)
+        FROM (SELECT 1 AS sign, amount, interest_rate, length_in_months FROM new_rows
+              UNION ALL
+              SELECT -1, amount, interest_rate, length_in_months FROM old_rows) changes
+        GROUP BY 1, 2
+        HAVING SUM(sign * amount) <> 0 OR SUM(sign * amount * interest_rate) <> 0
+            OR SUM(sign) <> 0 OR SUM(sign * length_in_months) <> 0
+        ORDER BY 1, 2
+        ON CONFLICT (term_bucket, rate_band, stripe) DO UPDATE
+            SET loan_count = s.loan_count + EXCLUDED.loan_count,
+                principal = s.principal + EXCLUDED.principal,
+                rate_weighted_principal = s.rate_weighted_principal + EXCLUDED.rate_weighted_principal,
+                total_months = s.total_months + EXCLUDED.total_months;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO loan_stats AS s
+        SELECT loan_term_bucket(length_in_months), loan_rate_band(interest_rate), pg_backend_pid() % 16,
+               -COUNT(*), -SUM(amount), -SUM(amount * interest_rate), -SUM(length_in_months)
+        FROM old_rows
+        GROUP BY 1, 2
+        ORDER BY 1, 2
+        ON CONFLICT (term_bucket, rate_band, stripe) DO UPDATE
+            SET loan_count = s.loan_count + EXCLUDED.loan_count,
+                principal = s.principal + EXCLUDED.principal,
+                rate_weighted_principal = s.rate_weighted_principal + EXCLUDED.rate_weighted_principal,
+                total_months = s.total_months + EXCLUDED.total_months;
+    ELSE
+        DELETE FROM loan_stats;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER loan_stats_insert AFTER INSERT ON loans
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loan_stats_apply();
+
+CREATE TRIGGER loan_stats_update AFTER UPDATE ON loans
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loan_stats_apply();
+
+CREATE TRIGGER loan_stats_delete AFTER DELETE ON loans
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION loan_stats_apply();
+
+CREATE TRIGGER loan_stats_truncate AFTER TRUNCATE ON loans
+    FOR EACH STATEMENT EXECUTE FUNCTION loan_stats_apply();
+
+-- Existing loans; the triggers above block concurrent writes until this migration commits
+INSERT INTO loan_stats
+SELECT loan_term_bucket(length_in_months), loan_rate_band(interest_rate), 0,
+       COUNT(*), SUM(amount), SUM(amount * interest_rate), SUM(length_in_months)
+FROM loans
+GROUP BY 1, 2;
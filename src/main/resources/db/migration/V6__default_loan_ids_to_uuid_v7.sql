@@ -0,0 +1,21 @@
+-- New loan IDs are time-ordered (UUID version 7) so inserts append to the right-hand edge of
+-- loans_pkey instead of landing on a random leaf page. The application generates its own IDs
+-- (LoanIdGenerator); this default only covers rows inserted directly in SQL. Existing version 4
+-- IDs are untouched and stay valid.
+--
+-- Postgres 18 has uuidv7() built in; this builds the same layout on older servers: the 48-bit
+-- Unix millisecond timestamp overwrites the first six bytes of a random UUID, and the version
+-- nibble is changed from 4 (0100) to 7 (0111) by setting two bits.
+CREATE OR REPLACE FUNCTION loan_uuid_v7() RETURNS uuid AS $$
+    SELECT encode(
+        set_bit(
+            set_bit(
+                overlay(uuid_send(gen_random_uuid())
+                        PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                        FROM 1 FOR 6),
+                52, 1),
+            53, 1),
+        'hex')::uuid;
+$$ LANGUAGE sql VOLATILE;
+
+ALTER TABLE loans ALTER COLUMN id SET DEFAULT loan_uuid_v7();
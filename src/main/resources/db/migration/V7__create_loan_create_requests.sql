@@ -0,0 +1,16 @@
+-- The loan each client X-Request-ID created, so a retried POST /api/loans returns the original
+-- response instead of inserting a duplicate. The row is written in the loan's own transaction;
+-- the primary key makes a concurrent duplicate wait for the first and then fail.
+-- Rows older than loanstreet.idempotency.ttl are ignored and purged by the application.
+CREATE TABLE IF NOT EXISTS loan_create_requests (
+    request_id UUID PRIMARY KEY,
+    loan_id UUID NOT NULL,
+    amount NUMERIC(19, 4) NOT NULL,
+    interest_rate NUMERIC(10, 6) NOT NULL,
+    length_in_months INTEGER NOT NULL,
+    monthly_payment_amount NUMERIC(19, 4) NOT NULL,
+    loan_version BIGINT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_loan_create_requests_created_at ON loan_create_requests (created_at);
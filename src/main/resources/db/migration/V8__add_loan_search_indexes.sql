@@ -0,0 +1,13 @@
+-- Indexes behind GET /api/loans/search, which filters on any mix of amount range, interest rate
+-- range, term and creation window and always returns rows in (created_at, id) order.
+--   * A term filter is an equality, so (length_in_months, created_at, id) serves it in keyset
+--     order, with or without a creation window, without sorting.
+--   * Amount and rate are ranges, which a composite index can only use on its leading column.
+--     Single-column indexes let Postgres AND the two bitmaps together, and combine either one
+--     with the term index.
+--   * A creation window alone uses idx_loans_created_at_id from V4.
+-- CONCURRENTLY keeps the build from blocking writes to loans; Flyway runs this migration outside
+-- a transaction for it.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loans_length_created_at_id ON loans (length_in_months, created_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loans_amount ON loans (amount);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loans_interest_rate ON loans (interest_rate);
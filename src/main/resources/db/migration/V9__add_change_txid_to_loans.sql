@@ -0,0 +1,11 @@
+-- GET /api/loans/changes streams loans in (change_txid, id) order. change_txid is the ID of the
+-- transaction that last inserted or updated the row: inserts take it from the default below and
+-- updates set it themselves. The feed only reads rows whose transaction ID is below the oldest
+-- transaction still running, so a write that commits late can never land behind a position a
+-- consumer has already passed, the way a timestamp taken before commit could.
+--
+-- Adding the column with a constant default does not rewrite the table. Existing rows share the
+-- lowest position and are streamed first, in id order; only new writes take the volatile default.
+-- xid8 needs Postgres 13.
+ALTER TABLE loans ADD COLUMN IF NOT EXISTS change_txid xid8 NOT NULL DEFAULT '1';
+ALTER TABLE loans ALTER COLUMN change_txid SET DEFAULT pg_current_xact_id();
@@ -0,0 +1,105 @@
+package com.loanstreet.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@ExtendWith(MockitoExtension.class)
+class AdmissionControlledDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    private AdmissionControlledDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new AdmissionControlledDataSource(target, 1, Duration.ofMillis(50));
+    }
+
+    @Test
+    void getConnection_failsFastWhenAllPermitsAreHeld() throws SQLException {
+        when(target.getConnection()).thenReturn(mock(Connection.class));
+        Connection held = dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("50ms");
+
+        held.close();
+        assertThat(dataSource.getConnection()).isNotNull();
+    }
+
+    @Test
+    void close_releasesPermitOnlyOnce() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+
+        Connection first = dataSource.getConnection();
+        first.close();
+        first.close();
+
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void getConnection_releasesPermitWhenPoolFails() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool timeout");
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void close_closesTheTargetPool() throws Exception {
+        DataSource pool = mock(DataSource.class, withSettings().extraInterfaces(AutoCloseable.class));
+
+        new AdmissionControlledDataSource(pool, 1, Duration.ofMillis(50)).close();
+
+        verify((AutoCloseable) pool).close();
+    }
+
+    @Test
+    void connection_delegatesToTargetAndExposesIt() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+
+        Connection proxy = dataSource.getConnection();
+
+        assertThat(proxy.getAutoCommit()).isTrue();
+        assertThat(DataSourceUtils.getTargetConnection(proxy)).isSameAs(connection);
+        assertThat(proxy).isEqualTo(proxy).isNotEqualTo(connection);
+    }
+
+    @Test
+    void connection_propagatesTargetExceptions() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT 1")).thenThrow(new SQLException("broken"));
+
+        Connection proxy = dataSource.getConnection();
+
+        assertThatThrownBy(() -> proxy.prepareStatement("SELECT 1"))
+                .isInstanceOf(SQLException.class)
+                .hasMessage("broken");
+    }
+}
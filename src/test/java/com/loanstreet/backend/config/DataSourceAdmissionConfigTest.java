@@ -0,0 +1,54 @@
+package com.loanstreet.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DataSourceAdmissionConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void dataSource_isGuardedByPermitsMatchingPoolSize() {
+        assertThat(dataSource).isInstanceOfSatisfying(AdmissionControlledDataSource.class,
+                admission -> assertThat(admission.getMaxPermits()).isEqualTo(10));
+        assertThat(meterRegistry.get("db.admission.available").gauge().value()).isEqualTo(10.0);
+        assertThat(meterRegistry.get("db.admission.waiting").gauge().value()).isZero();
+    }
+
+    @Test
+    void closingTheContext_closesThePool() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+                .withUserConfiguration(DataSourceAdmissionConfig.class)
+                .withPropertyValues("spring.datasource.url=jdbc:h2:mem:admission-close")
+                .run(context -> {
+                    AdmissionControlledDataSource admission = context.getBean(AdmissionControlledDataSource.class);
+                    HikariDataSource pool = (HikariDataSource) admission.getTargetDataSource();
+                    try (Connection connection = admission.getConnection()) {
+                        assertThat(connection.isValid(1)).isTrue();
+                    }
+
+                    context.close();
+
+                    assertThat(pool.isClosed()).isTrue();
+                });
+    }
+}
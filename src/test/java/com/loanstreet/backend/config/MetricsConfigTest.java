@@ -0,0 +1,56 @@
+package com.loanstreet.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "loanstreet.metrics.slow-request-threshold=0ms")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsConfigTest {
+
+    private static final String OPENMETRICS = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusScrape_exposesOperationTimersErrorsAndPools() throws Exception {
+        String requestId = UUID.randomUUID().toString();
+        mockMvc.perform(post("/api/loans")
+                        .header("X-Request-ID", requestId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"amount": 10000.00, "interestRate": 0.05, "lengthInMonths": 60,
+                                 "monthlyPaymentAmount": 188.71}"""))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/loans/{id}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus").accept(MediaType.parseMediaType(OPENMETRICS)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .containsPattern("http_server_requests_seconds_bucket\\{[^}]*operation=\"createLoan\"[^}]*\\} 1 "
+                        + "# \\{span_id=\"" + requestId + "\",trace_id=\"" + requestId + "\"\\}")
+                .containsPattern("hibernate_statements_per_request_count\\{operation=\"createLoan\"\\} 1")
+                .containsPattern("http_slow_requests_total\\{operation=\"getLoan\"\\} 1")
+                .contains("api_errors_total{error=\"NoSuchElementException\",status=\"404\"} 1.0")
+                .contains("hikaricp_connections_pending{")
+                .contains("hibernate_sessions_open_total{");
+    }
+}
@@ -0,0 +1,130 @@
+package com.loanstreet.backend.config;
+
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.dto.LoanCreateRequest;
+import com.loanstreet.backend.dto.LoanUpdateRequest;
+import com.loanstreet.backend.exception.PreconditionFailedException;
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.repository.LoanRepository;
+import com.loanstreet.backend.service.LoanService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and a replica that has replayed
+ * none of the primary's writes, so every read shows which of them it went to. The first
+ * replica URL points at nothing, as a replica that is down.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "loanstreet.datasource.replicas.urls=jdbc:h2:tcp://localhost:1/down,jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "loanstreet.datasource.replicas.connection-timeout=250ms"
+})
+@ActiveProfiles("test")
+class ReplicaDataSourceConfigTest {
+
+    private static final JdbcTemplate REPLICA = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", ""));
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void copySchemaToReplica() {
+        REPLICA.execute("DROP ALL OBJECTS");
+        new JdbcTemplate(primaryDataSource).queryForList("SCRIPT NODATA", String.class)
+                .forEach(REPLICA::execute);
+    }
+
+    @Test
+    void dataSource_routesThroughALazyProxyInFrontOfTheAdmissionControlledPrimary() {
+        assertThat(dataSource).isInstanceOfSatisfying(LazyConnectionDataSourceProxy.class,
+                proxy -> assertThat(proxy.getTargetDataSource()).isInstanceOf(AdmissionControlledDataSource.class));
+        assertThat(meterRegistry.get("db.admission.available").gauge().value()).isEqualTo(10.0);
+    }
+
+    @Test
+    void reads_goToAReplicaThatIsUp() {
+        UUID onReplicaOnly = UUID.randomUUID();
+        REPLICA.update("""
+                INSERT INTO loans (id, amount, interest_rate, length_in_months, monthly_payment_amount,
+                                   version, created_at, updated_at)
+                VALUES (?, 10000, 0.05, 60, 188.71, 0, ?, ?)
+                """, onReplicaOnly, Timestamp.from(Instant.now()), Timestamp.from(Instant.now()));
+
+        assertThat(loanService.findById(onReplicaOnly)).isPresent();
+        assertThat(loanService.findVersion(onReplicaOnly)).contains(0L);
+        assertThat(loanService.findPage(null, 10).getItems()).extracting(Loan::getId).containsExactly(onReplicaOnly);
+        assertThat(meterRegistry.get("db.replicas.available").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("db.replicas.fallbacks").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void writes_goToThePrimaryAndAreReadBackFromIt() {
+        Loan created = loanService.create(new LoanCreateRequest()
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60));
+
+        assertThat(REPLICA.queryForObject("SELECT COUNT(*) FROM loans", Long.class)).isZero();
+        assertThat(loanService.findById(created.getId())).hasValueSatisfying(
+                loan -> assertThat(loan.getVersion()).isZero());
+
+        Loan updated = loanService.update(created.getId(), new LoanUpdateRequest()
+                .amount(new BigDecimal("12000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60), Set.of(0L)).orElseThrow();
+        assertThat(loanService.findById(created.getId())).contains(updated);
+        assertThat(loanService.findVersion(created.getId())).contains(1L);
+        assertThatThrownBy(() -> loanService.update(created.getId(), new LoanUpdateRequest()
+                .amount(new BigDecimal("12000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60), Set.of(0L)))
+                .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    void reads_ofLoansThisInstanceDidNotWriteWaitForTheReplica() {
+        LoanEntity entity = new LoanEntity();
+        entity.setAmount(new BigDecimal("10000.00"));
+        entity.setInterestRate(new BigDecimal("0.05"));
+        entity.setLengthInMonths(60);
+        entity.setMonthlyPaymentAmount(new BigDecimal("188.71"));
+        UUID writtenElsewhere = loanRepository.saveAndFlush(entity).getId();
+
+        assertThat(new JdbcTemplate(primaryDataSource).queryForObject(
+                "SELECT COUNT(*) FROM loans WHERE id = ?", Long.class, writtenElsewhere)).isOne();
+        assertThat(loanService.findById(writtenElsewhere)).isEmpty();
+    }
+}
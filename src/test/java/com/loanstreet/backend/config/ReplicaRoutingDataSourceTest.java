@@ -0,0 +1,94 @@
+package com.loanstreet.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource first;
+
+    @Mock
+    private DataSource second;
+
+    @Test
+    void getConnection_takesTurnsAcrossReplicas() throws SQLException {
+        Connection fromFirst = mock(Connection.class);
+        Connection fromSecond = mock(Connection.class);
+        when(first.getConnection()).thenReturn(fromFirst);
+        when(second.getConnection()).thenReturn(fromSecond);
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(first, second),
+                Duration.ofSeconds(30));
+
+        assertThat(List.of(dataSource.getConnection(), dataSource.getConnection(), dataSource.getConnection()))
+                .containsExactly(fromFirst, fromSecond, fromFirst);
+        assertThat(dataSource.getFallbacks()).isZero();
+    }
+
+    @Test
+    void getConnection_skipsAFailedReplicaUntilRetryAfter() throws SQLException {
+        Connection fromSecond = mock(Connection.class);
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException("Connection refused"));
+        when(second.getConnection()).thenReturn(fromSecond);
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(first, second),
+                Duration.ofSeconds(30));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(dataSource.getConnection()).isSameAs(fromSecond);
+        }
+        verify(first, times(1)).getConnection();
+        assertThat(dataSource.getAvailableReplicas()).isEqualTo(1);
+        assertThat(dataSource.getFallbacks()).isZero();
+    }
+
+    @Test
+    void getConnection_retriesAFailedReplicaOnceRetryAfterHasPassed() throws SQLException {
+        Connection recovered = mock(Connection.class);
+        when(first.getConnection())
+                .thenThrow(new SQLTransientConnectionException("Connection refused"))
+                .thenReturn(recovered);
+        when(primary.getConnection()).thenReturn(mock(Connection.class));
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(first), Duration.ZERO);
+
+        dataSource.getConnection();
+
+        assertThat(dataSource.getConnection()).isSameAs(recovered);
+    }
+
+    @Test
+    void getConnection_fallsBackToThePrimaryWhenNoReplicaCanGiveOne() throws SQLException {
+        Connection fromPrimary = mock(Connection.class);
+        when(first.getConnection()).thenThrow(new SQLTransientConnectionException("Connection refused"));
+        when(second.getConnection()).thenThrow(new SQLTransientConnectionException("Connection refused"));
+        when(primary.getConnection()).thenReturn(fromPrimary);
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, List.of(first, second),
+                Duration.ofSeconds(30));
+
+        assertThat(dataSource.getConnection()).isSameAs(fromPrimary);
+        assertThat(dataSource.getConnection()).isSameAs(fromPrimary);
+
+        verify(first, times(1)).getConnection();
+        verify(second, times(1)).getConnection();
+        assertThat(dataSource.getAvailableReplicas()).isZero();
+        assertThat(dataSource.getFallbacks()).isEqualTo(2);
+    }
+}
@@ -2,9 +2,33 @@ package com.loanstreet.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.dto.ImportRejection;
+import com.loanstreet.backend.dto.LoanChange;
 import com.loanstreet.backend.dto.LoanCreateRequest;
+import com.loanstreet.backend.dto.LoanImportReport;
+import com.loanstreet.backend.dto.LoanPage;
+import com.loanstreet.backend.dto.LoanStats;
+import com.loanstreet.backend.dto.LoanStatsBucket;
 import com.loanstreet.backend.dto.LoanUpdateRequest;
+import com.loanstreet.backend.dto.ScheduleEntry;
+import com.loanstreet.backend.exception.ChangeFeedFullException;
+import com.loanstreet.backend.exception.InvalidCursorException;
+import com.loanstreet.backend.exception.InvalidImportException;
+import com.loanstreet.backend.exception.InvalidScheduleRangeException;
+import com.loanstreet.backend.exception.InvalidSearchException;
+import com.loanstreet.backend.exception.PreconditionFailedException;
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.repository.LoanSearch;
+import com.loanstreet.backend.service.LoanChangeEvent;
+import com.loanstreet.backend.service.LoanChangeFeed;
+import com.loanstreet.backend.service.LoanChangePosition;
+import com.loanstreet.backend.service.LoanChangeSubscription;
+import com.loanstreet.backend.service.LoanExportService;
+import com.loanstreet.backend.service.LoanImportService;
+import com.loanstreet.backend.service.LoanSchedule;
 import com.loanstreet.backend.service.LoanService;
+import com.loanstreet.backend.service.LoanStatsService;
+import com.loanstreet.backend.service.PortfolioCounters;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -16,20 +40,41 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -44,6 +89,21 @@ public class LoanControllerTest {
     @MockitoBean
     private LoanService loanService;
 
+    @MockitoBean
+    private LoanExportService loanExportService;
+
+    @MockitoBean
+    private LoanImportService loanImportService;
+
+    @MockitoBean
+    private LoanStatsService loanStatsService;
+
+    @MockitoBean
+    private PortfolioCounters portfolioCounters;
+
+    @MockitoBean
+    private LoanChangeFeed loanChangeFeed;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -60,12 +120,13 @@ public class LoanControllerTest {
                 .amount(new BigDecimal("10000.00"))
                 .interestRate(new BigDecimal("0.05"))
                 .lengthInMonths(60)
-                .monthlyPaymentAmount(new BigDecimal("188.71"));
+                .monthlyPaymentAmount(new BigDecimal("188.71"))
+                .version(0L);
     }
 
     @Test
     void testCreateLoan() throws Exception {
-        when(loanService.create(any(LoanCreateRequest.class))).thenReturn(testLoanDto);
+        when(loanService.create(any(LoanCreateRequest.class), any())).thenReturn(testLoanDto);
 
         String requestId = UUID.randomUUID().toString();
         LoanCreateRequest request = new LoanCreateRequest()
@@ -80,6 +141,7 @@ public class LoanControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isCreated())
                 .andExpect(header().string(REQUEST_ID_HEADER, requestId))
+                .andExpect(header().string("ETag", "\"0\""))
                 .andExpect(jsonPath("$.id").value(testLoanId.toString()))
                 .andExpect(jsonPath("$.amount").value(10000.00))
                 .andExpect(jsonPath("$.interestRate").value(0.05))
@@ -129,6 +191,105 @@ public class LoanControllerTest {
                 .andExpect(jsonPath("$.error").value("Validation failed"));
     }
 
+    @Test
+    void testCreateLoans() throws Exception {
+        Loan secondLoanDto = new Loan()
+                .id(UUID.randomUUID())
+                .amount(new BigDecimal("25000.00"))
+                .interestRate(new BigDecimal("0.065"))
+                .lengthInMonths(360)
+                .monthlyPaymentAmount(new BigDecimal("158.02"));
+        when(loanService.createAll(anyList())).thenReturn(List.of(testLoanDto, secondLoanDto));
+
+        String requestId = UUID.randomUUID().toString();
+        List<LoanCreateRequest> requests = List.of(
+                new LoanCreateRequest()
+                        .amount(new BigDecimal("10000.00"))
+                        .interestRate(new BigDecimal("0.05"))
+                        .lengthInMonths(60)
+                        .monthlyPaymentAmount(new BigDecimal("188.71")),
+                new LoanCreateRequest()
+                        .amount(new BigDecimal("25000.00"))
+                        .interestRate(new BigDecimal("0.065"))
+                        .lengthInMonths(360)
+                        .monthlyPaymentAmount(new BigDecimal("158.02")));
+
+        mockMvc.perform(post("/api/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REQUEST_ID_HEADER, requestId)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(REQUEST_ID_HEADER, requestId))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(testLoanId.toString()))
+                .andExpect(jsonPath("$[1].amount").value(25000.00));
+    }
+
+    @Test
+    void testCreateLoans_RepeatedRequestIdCreatesAgain() throws Exception {
+        when(loanService.createAll(anyList())).thenReturn(List.of(testLoanDto));
+        String requestId = UUID.randomUUID().toString();
+        String body = objectMapper.writeValueAsString(List.of(new LoanCreateRequest()
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("188.71"))));
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/loans/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(REQUEST_ID_HEADER, requestId)
+                            .content(body))
+                    .andExpect(status().isCreated());
+        }
+
+        verify(loanService, times(2)).createAll(anyList());
+    }
+
+    @Test
+    void testCreateLoans_ValidationErrorsReportedByIndex() throws Exception {
+        List<LoanCreateRequest> requests = List.of(
+                new LoanCreateRequest()
+                        .amount(new BigDecimal("10000.00"))
+                        .interestRate(new BigDecimal("0.05"))
+                        .lengthInMonths(60)
+                        .monthlyPaymentAmount(new BigDecimal("188.71")),
+                new LoanCreateRequest()
+                        .amount(new BigDecimal("-1"))
+                        .interestRate(new BigDecimal("0.05"))
+                        .lengthInMonths(601)
+                        .monthlyPaymentAmount(new BigDecimal("188.71")),
+                new LoanCreateRequest()
+                        .amount(new BigDecimal("10000.00"))
+                        .interestRate(new BigDecimal("1.5"))
+                        .lengthInMonths(60)
+                        .monthlyPaymentAmount(new BigDecimal("188.71")));
+
+        mockMvc.perform(post("/api/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.error").value("Validation failed"))
+                .andExpect(jsonPath("$.errors.length()").value(3))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].field").value("amount"))
+                .andExpect(jsonPath("$.errors[1].index").value(1))
+                .andExpect(jsonPath("$.errors[1].field").value("lengthInMonths"))
+                .andExpect(jsonPath("$.errors[2].index").value(2))
+                .andExpect(jsonPath("$.errors[2].field").value("interestRate"));
+    }
+
+    @Test
+    void testCreateLoans_EmptyArray() throws Exception {
+        mockMvc.perform(post("/api/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.error").value("Validation failed"));
+    }
+
     @Test
     void testGetLoan_Success() throws Exception {
         when(loanService.findById(testLoanId)).thenReturn(Optional.of(testLoanDto));
@@ -139,8 +300,47 @@ public class LoanControllerTest {
                 .header(REQUEST_ID_HEADER, requestId))
                 .andExpect(status().isOk())
                 .andExpect(header().string(REQUEST_ID_HEADER, requestId))
+                .andExpect(header().string("ETag", "\"0\""))
                 .andExpect(jsonPath("$.id").value(testLoanId.toString()))
-                .andExpect(jsonPath("$.amount").value(10000.00));
+                .andExpect(jsonPath("$.amount").value(10000.00))
+                .andExpect(jsonPath("$.version").value(0));
+    }
+
+    @Test
+    void testGetLoan_NotModifiedWhenETagMatches() throws Exception {
+        when(loanService.findVersion(testLoanId)).thenReturn(Optional.of(3L));
+
+        mockMvc.perform(get("/api/loans/{id}", testLoanId)
+                .header("If-None-Match", "W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(content().string(""));
+
+        verify(loanService, never()).findById(any());
+    }
+
+    @Test
+    void testGetLoan_ReturnsBodyWhenETagIsStale() throws Exception {
+        when(loanService.findVersion(testLoanId)).thenReturn(Optional.of(1L));
+        when(loanService.findById(testLoanId)).thenReturn(Optional.of(testLoanDto.version(1L)));
+
+        mockMvc.perform(get("/api/loans/{id}", testLoanId)
+                .header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    void testGetLoan_IfNoneMatchOnMissingLoanReturnsNotFound() throws Exception {
+        UUID randomId = UUID.randomUUID();
+        when(loanService.findVersion(randomId)).thenReturn(Optional.empty());
+        when(loanService.findById(randomId)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/loans/{id}", randomId)
+                .header("If-None-Match", "*"))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -171,6 +371,350 @@ public class LoanControllerTest {
                 .andExpect(header().exists(REQUEST_ID_HEADER));
     }
 
+    @Test
+    void testGetLoanSchedule() throws Exception {
+        ScheduleEntry entry = new ScheduleEntry()
+                .month(1)
+                .payment(new BigDecimal("188.71"))
+                .principal(new BigDecimal("147.04"))
+                .interest(new BigDecimal("41.67"))
+                .balance(new BigDecimal("9852.96"));
+        // A plain Iterable rather than a List, as the service streams rows lazily
+        Iterable<ScheduleEntry> entries = () -> List.of(entry).iterator();
+        when(loanService.findSchedule(testLoanId, 1, null))
+                .thenReturn(Optional.of(new LoanSchedule(testLoanId, new BigDecimal("188.71"), 60, entries)));
+
+        mockMvc.perform(get("/api/loans/{id}/schedule", testLoanId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.loanId").value(testLoanId.toString()))
+                .andExpect(jsonPath("$.monthlyPayment").value(188.71))
+                .andExpect(jsonPath("$.lengthInMonths").value(60))
+                .andExpect(jsonPath("$.entries.length()").value(1))
+                .andExpect(jsonPath("$.entries[0].month").value(1))
+                .andExpect(jsonPath("$.entries[0].interest").value(41.67))
+                .andExpect(jsonPath("$.entries[0].balance").value(9852.96));
+    }
+
+    @Test
+    void testGetLoanSchedule_WithMonthRange() throws Exception {
+        when(loanService.findSchedule(testLoanId, 12, 24))
+                .thenReturn(Optional.of(new LoanSchedule(testLoanId, new BigDecimal("188.71"), 60, List.of())));
+
+        mockMvc.perform(get("/api/loans/{id}/schedule", testLoanId)
+                        .param("fromMonth", "12")
+                        .param("toMonth", "24"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries").isEmpty());
+    }
+
+    @Test
+    void testGetLoanSchedule_NotFound() throws Exception {
+        when(loanService.findSchedule(testLoanId, 1, null)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/loans/{id}/schedule", testLoanId))
+                .andExpect(status().isNotFound())
+                .andExpect(header().exists(REQUEST_ID_HEADER));
+    }
+
+    @Test
+    void testGetLoanSchedule_RangeOutsideTerm() throws Exception {
+        when(loanService.findSchedule(testLoanId, 61, null))
+                .thenThrow(new InvalidScheduleRangeException("fromMonth must not exceed the loan term of 60 months"));
+
+        mockMvc.perform(get("/api/loans/{id}/schedule", testLoanId).param("fromMonth", "61"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("fromMonth must not exceed the loan term of 60 months"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "601"})
+    void testGetLoanSchedule_MonthOutOfRange(String month) throws Exception {
+        mockMvc.perform(get("/api/loans/{id}/schedule", testLoanId).param("fromMonth", month))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].field").value("fromMonth"));
+    }
+
+    @Test
+    void testGetLoanStats() throws Exception {
+        LoanStatsBucket overall = new LoanStatsBucket()
+                .count(2L)
+                .totalPrincipal(new BigDecimal("20000.00"))
+                .weightedAverageInterestRate(new BigDecimal("0.050000"))
+                .averageLengthInMonths(new BigDecimal("48.00"));
+        LoanStatsBucket term = new LoanStatsBucket()
+                .minLengthInMonths(37)
+                .maxLengthInMonths(60)
+                .count(2L)
+                .totalPrincipal(new BigDecimal("20000.00"));
+        when(loanStatsService.stats()).thenReturn(new LoanStats()
+                .overall(overall)
+                .byTerm(List.of(term))
+                .byRateBand(List.of()));
+
+        mockMvc.perform(get("/api/loans/stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.overall.count").value(2))
+                .andExpect(jsonPath("$.overall.totalPrincipal").value(20000.00))
+                .andExpect(jsonPath("$.overall.weightedAverageInterestRate").value(0.05))
+                .andExpect(jsonPath("$.byTerm[0].minLengthInMonths").value(37))
+                .andExpect(jsonPath("$.byRateBand").isEmpty());
+    }
+
+    @Test
+    void testGetLiveLoanStats() throws Exception {
+        when(portfolioCounters.stats()).thenReturn(new LoanStats()
+                .overall(new LoanStatsBucket().count(3L).totalPrincipal(new BigDecimal("30000.00")))
+                .byTerm(List.of())
+                .byRateBand(List.of()));
+
+        mockMvc.perform(get("/api/loans/stats/live"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.overall.count").value(3))
+                .andExpect(jsonPath("$.overall.totalPrincipal").value(30000.00));
+        verifyNoInteractions(loanStatsService);
+    }
+
+    @Test
+    void testListLoans() throws Exception {
+        when(loanService.findPage(null, 100))
+                .thenReturn(new LoanPage().items(List.of(testLoanDto)).nextCursor("next-token"));
+
+        mockMvc.perform(get("/api/loans"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.items[0].id").value(testLoanId.toString()))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"));
+    }
+
+    @Test
+    void testListLoans_WithCursorAndLimit() throws Exception {
+        when(loanService.findPage("token", 25)).thenReturn(new LoanPage().items(List.of()));
+
+        mockMvc.perform(get("/api/loans").param("cursor", "token").param("limit", "25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "1001", "-5"})
+    void testListLoans_LimitOutOfRange(String limit) throws Exception {
+        mockMvc.perform(get("/api/loans").param("limit", limit))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.error").value("Validation failed"))
+                .andExpect(jsonPath("$.errors[0].field").value("limit"));
+    }
+
+    @Test
+    void testSearchLoans_PassesFiltersToService() throws Exception {
+        LoanSearch expected = new LoanSearch(new BigDecimal("100000"), new BigDecimal("110000"),
+                new BigDecimal("0.05"), new BigDecimal("0.055"), 60,
+                Instant.parse("2025-10-01T00:00:00Z"), Instant.parse("2025-11-01T00:00:00Z"));
+        when(loanService.search(expected, "token", 25))
+                .thenReturn(new LoanPage().items(List.of(testLoanDto)).nextCursor("next-token"));
+
+        mockMvc.perform(get("/api/loans/search")
+                        .param("minAmount", "100000")
+                        .param("maxAmount", "110000")
+                        .param("minInterestRate", "0.05")
+                        .param("maxInterestRate", "0.055")
+                        .param("lengthInMonths", "60")
+                        .param("createdFrom", "2025-10-01T00:00:00Z")
+                        .param("createdTo", "2025-11-01T01:00:00+01:00")
+                        .param("cursor", "token")
+                        .param("limit", "25"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.items[0].id").value(testLoanId.toString()))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"));
+    }
+
+    @Test
+    void testSearchLoans_WithoutFilters() throws Exception {
+        when(loanService.search(new LoanSearch(null, null, null, null, null, null, null), null, 100))
+                .thenReturn(new LoanPage().items(List.of()));
+
+        mockMvc.perform(get("/api/loans/search"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty());
+    }
+
+    @Test
+    void testSearchLoans_InvalidRange() throws Exception {
+        when(loanService.search(any(LoanSearch.class), any(), anyInt()))
+                .thenThrow(new InvalidSearchException("minAmount must not exceed maxAmount"));
+
+        mockMvc.perform(get("/api/loans/search").param("minAmount", "2000").param("maxAmount", "1000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.error").value("minAmount must not exceed maxAmount"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"minAmount=abc", "maxInterestRate=-0.01", "lengthInMonths=0", "createdFrom=yesterday"})
+    void testSearchLoans_MalformedFilter(String filter) throws Exception {
+        String[] parts = filter.split("=");
+
+        mockMvc.perform(get("/api/loans/search").param(parts[0], parts[1]))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().exists(REQUEST_ID_HEADER));
+        verifyNoInteractions(loanService);
+    }
+
+    @Test
+    void testExportLoans_DefaultsToNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":\"a\"}\n{\"id\":\"b\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(loanExportService).exportNdjson(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/loans/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"loans.ndjson\""))
+                .andExpect(content().string("{\"id\":\"a\"}\n{\"id\":\"b\"}\n"));
+    }
+
+    @Test
+    void testExportLoans_Csv() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write((LoanExportService.CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        }).when(loanExportService).exportCsv(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/loans/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(content().string(LoanExportService.CSV_HEADER + "\n"));
+    }
+
+    @Test
+    void testExportLoans_UnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/loans/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.errors[0].field").value("format"));
+    }
+
+    @Test
+    void testStreamLoanChanges() throws Exception {
+        LoanChangePosition position = new LoanChangePosition(42, testLoanId);
+        String data = objectMapper.writeValueAsString(new LoanChange().type(LoanChange.TypeEnum.CREATED).loan(testLoanDto));
+        LoanChangeSubscription subscription = mock(LoanChangeSubscription.class);
+        when(subscription.isClosed()).thenReturn(false, false, true);
+        when(subscription.next())
+                .thenReturn(new LoanChangeEvent(position, LoanChange.TypeEnum.CREATED, data))
+                .thenReturn(null);
+        when(loanChangeFeed.subscribe("0")).thenReturn(subscription);
+
+        MvcResult result = mockMvc.perform(get("/api/loans/changes").param("after", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/event-stream"))
+                .andExpect(content().string("id:" + position.encode() + "\nevent:created\ndata:" + data + "\n\n"
+                        + ":heartbeat\n\n"));
+    }
+
+    @Test
+    void testStreamLoanChanges_LastEventIdTakesPrecedence() throws Exception {
+        LoanChangeSubscription subscription = mock(LoanChangeSubscription.class);
+        when(subscription.isClosed()).thenReturn(true);
+        when(loanChangeFeed.subscribe("resumed")).thenReturn(subscription);
+
+        MvcResult result = mockMvc.perform(get("/api/loans/changes")
+                        .param("after", "0")
+                        .header("Last-Event-ID", "resumed"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        verify(loanChangeFeed).subscribe("resumed");
+    }
+
+    @Test
+    void testStreamLoanChanges_MalformedPosition() throws Exception {
+        when(loanChangeFeed.subscribe("bogus")).thenThrow(new InvalidCursorException("Malformed change position: bogus", null));
+
+        mockMvc.perform(get("/api/loans/changes").param("after", "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid cursor"));
+    }
+
+    @Test
+    void testStreamLoanChanges_TooManySubscribers() throws Exception {
+        when(loanChangeFeed.subscribe(isNull())).thenThrow(new ChangeFeedFullException("full"));
+
+        mockMvc.perform(get("/api/loans/changes"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.error").value("Too many change streams open"));
+    }
+
+    @Test
+    void testImportLoans_DefaultsToCsv() throws Exception {
+        LoanImportReport report = new LoanImportReport()
+                .imported(1L)
+                .rejected(1L)
+                .errors(List.of(new ImportRejection().line(3L).field("amount").message("must be greater than 0")));
+        when(loanImportService.importCsv(any(InputStream.class))).thenAnswer(invocation -> {
+            InputStream in = invocation.getArgument(0);
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).startsWith("amount,");
+            return report;
+        });
+
+        mockMvc.perform(post("/api/loans/import")
+                .contentType("text/csv")
+                .content("amount,interestRate,lengthInMonths,monthlyPaymentAmount\n10000,0.05,60,188.71\n-1,0.05,60,1\n"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3))
+                .andExpect(jsonPath("$.errors[0].field").value("amount"));
+    }
+
+    @Test
+    void testImportLoans_Ndjson() throws Exception {
+        when(loanImportService.importNdjson(any(InputStream.class)))
+                .thenReturn(new LoanImportReport().imported(2L).rejected(0L).errors(List.of()));
+
+        mockMvc.perform(post("/api/loans/import")
+                .param("format", "ndjson")
+                .contentType("application/x-ndjson")
+                .content("{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2));
+    }
+
+    @Test
+    void testImportLoans_InvalidHeader() throws Exception {
+        when(loanImportService.importCsv(any(InputStream.class)))
+                .thenThrow(new InvalidImportException("CSV header is missing columns: amount"));
+
+        mockMvc.perform(post("/api/loans/import")
+                .contentType("text/csv")
+                .content("foo,bar\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.error").value("CSV header is missing columns: amount"));
+    }
+
     @Test
     void testUpdateLoan_Success() throws Exception {
         Loan updatedDto = new Loan()
@@ -178,9 +722,10 @@ public class LoanControllerTest {
                 .amount(new BigDecimal("15000.00"))
                 .interestRate(new BigDecimal("0.05"))
                 .lengthInMonths(72)
-                .monthlyPaymentAmount(new BigDecimal("220.00"));
+                .monthlyPaymentAmount(new BigDecimal("220.00"))
+                .version(1L);
 
-        when(loanService.update(eq(testLoanId), any(LoanUpdateRequest.class)))
+        when(loanService.update(eq(testLoanId), any(LoanUpdateRequest.class), isNull()))
                 .thenReturn(Optional.of(updatedDto));
 
         String requestId = UUID.randomUUID().toString();
@@ -197,15 +742,77 @@ public class LoanControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(header().string(REQUEST_ID_HEADER, requestId))
                 .andExpect(jsonPath("$.id").value(testLoanId.toString()))
+                .andExpect(header().string("ETag", "\"1\""))
                 .andExpect(jsonPath("$.amount").value(15000.00))
                 .andExpect(jsonPath("$.lengthInMonths").value(72));
     }
 
+    @Test
+    void testUpdateLoan_PassesIfMatchVersions() throws Exception {
+        when(loanService.update(eq(testLoanId), any(LoanUpdateRequest.class), eq(Set.of(0L))))
+                .thenReturn(Optional.of(testLoanDto.version(1L)));
+
+        mockMvc.perform(put("/api/loans/{id}", testLoanId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "\"0\"")
+                .content(objectMapper.writeValueAsString(updateRequest())))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+    }
+
+    @Test
+    void testUpdateLoan_PreconditionFailed() throws Exception {
+        when(loanService.update(eq(testLoanId), any(LoanUpdateRequest.class), eq(Set.of(0L))))
+                .thenThrow(new PreconditionFailedException("Loan is at version 2", 2L));
+
+        mockMvc.perform(put("/api/loans/{id}", testLoanId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "\"0\"")
+                .content(objectMapper.writeValueAsString(updateRequest())))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(header().exists(REQUEST_ID_HEADER))
+                .andExpect(jsonPath("$.error").value("Loan has been modified"));
+    }
+
+    @Test
+    void testUpdateLoan_IfMatchWildcardOnMissingLoanFailsThePrecondition() throws Exception {
+        when(loanService.update(eq(testLoanId), any(LoanUpdateRequest.class), isNull()))
+                .thenReturn(Optional.empty());
+
+        mockMvc.perform(put("/api/loans/{id}", testLoanId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("If-Match", "*")
+                .content(objectMapper.writeValueAsString(updateRequest())))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void testUpdateLoan_ConcurrentModificationReturnsConflict() throws Exception {
+        when(loanService.update(eq(testLoanId), any(LoanUpdateRequest.class), isNull()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(LoanEntity.class, testLoanId));
+
+        mockMvc.perform(put("/api/loans/{id}", testLoanId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateRequest())))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Loan was modified concurrently"));
+    }
+
+    private static LoanUpdateRequest updateRequest() {
+        return new LoanUpdateRequest()
+                .amount(new BigDecimal("15000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(72)
+                .monthlyPaymentAmount(new BigDecimal("220.00"));
+    }
+
     @Test
     void testUpdateLoan_NotFound() throws Exception {
         UUID randomId = UUID.randomUUID();
 
-        when(loanService.update(eq(randomId), any(LoanUpdateRequest.class)))
+        when(loanService.update(eq(randomId), any(LoanUpdateRequest.class), isNull()))
                 .thenReturn(Optional.empty());
 
         LoanUpdateRequest request = new LoanUpdateRequest()
@@ -0,0 +1,47 @@
+package com.loanstreet.backend.controller;
+
+import com.loanstreet.backend.exception.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoanETagsTest {
+
+    @Test
+    void of_quotesVersion() {
+        assertThat(LoanETags.of(7)).isEqualTo("\"7\"");
+    }
+
+    @Test
+    void matchesIfNoneMatch_usesWeakComparison() {
+        assertThat(LoanETags.matchesIfNoneMatch("\"7\"", 7)).isTrue();
+        assertThat(LoanETags.matchesIfNoneMatch("W/\"7\"", 7)).isTrue();
+        assertThat(LoanETags.matchesIfNoneMatch("\"6\", \"7\"", 7)).isTrue();
+        assertThat(LoanETags.matchesIfNoneMatch("*", 7)).isTrue();
+        assertThat(LoanETags.matchesIfNoneMatch("\"6\"", 7)).isFalse();
+    }
+
+    @Test
+    void ifMatchVersions_collectsStrongNumericTags() {
+        assertThat(LoanETags.ifMatchVersions("\"3\", \"4\"")).containsExactlyInAnyOrder(3L, 4L);
+        assertThat(LoanETags.ifMatchVersions("W/\"3\"")).isEmpty();
+        assertThat(LoanETags.ifMatchVersions("\"abc\"")).isEmpty();
+        assertThat(LoanETags.ifMatchVersions("\"99999999999999999999\"")).isEmpty();
+    }
+
+    @Test
+    void ifMatchVersions_wildcardAcceptsAnyVersion() {
+        assertThat(LoanETags.ifMatchVersions("*")).isNull();
+    }
+
+    @Test
+    void missingForUpdate_failsTheWildcardPrecondition() {
+        UUID id = UUID.randomUUID();
+        assertThat(LoanETags.missingForUpdate(id, "*")).isInstanceOf(PreconditionFailedException.class);
+        assertThat(LoanETags.missingForUpdate(id, null)).isInstanceOf(NoSuchElementException.class);
+        assertThat(LoanETags.missingForUpdate(id, "\"0\"")).isInstanceOf(NoSuchElementException.class);
+    }
+}
@@ -0,0 +1,387 @@
+package com.loanstreet.backend.controller;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.dto.LoanChange;
+import com.loanstreet.backend.dto.LoanCreateRequest;
+import com.loanstreet.backend.dto.LoanImportReport;
+import com.loanstreet.backend.dto.LoanPage;
+import com.loanstreet.backend.dto.LoanStats;
+import com.loanstreet.backend.dto.LoanUpdateRequest;
+import com.loanstreet.backend.service.ReactiveLoanService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The reactive profile end to end: Netty, R2DBC and Flyway against an embedded Postgres,
+ * through the same API the servlet stack serves.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "loanstreet.payment.strict=true")
+@ActiveProfiles({"test", "reactive"})
+@DirtiesContext
+class ReactiveLoanControllerTest {
+
+    private static final String REQUEST_ID_HEADER = "X-Request-ID";
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private ListAppender<ILoggingEvent> serviceLog;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        try {
+            postgres = EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres");
+        registry.add("spring.r2dbc.username", () -> "postgres");
+        registry.add("spring.r2dbc.password", () -> "");
+    }
+
+    @BeforeEach
+    void captureServiceLog() {
+        // Take each event's MDC on the thread that logged it, not lazily on the test thread
+        serviceLog = new ListAppender<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                event.prepareForDeferredProcessing();
+                super.append(event);
+            }
+        };
+        serviceLog.start();
+        ((Logger) LoggerFactory.getLogger(ReactiveLoanService.class)).addAppender(serviceLog);
+    }
+
+    @AfterEach
+    void releaseServiceLog() {
+        ((Logger) LoggerFactory.getLogger(ReactiveLoanService.class)).detachAppender(serviceLog);
+    }
+
+    @Test
+    void testCreateLoan_ReadBackWithETagRevalidation() {
+        Loan created = create(request("10000.00", "0.05", 60, "188.71"), null);
+
+        assertThat(created.getVersion()).isZero();
+        Loan read = webTestClient.get().uri("/api/loans/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"0\"")
+                .expectBody(Loan.class)
+                .returnResult()
+                .getResponseBody();
+        // The read has the columns' scale, the create echoes the request's
+        assertThat(read).usingRecursiveComparison()
+                .withComparatorForType(BigDecimal::compareTo, BigDecimal.class)
+                .isEqualTo(created);
+        webTestClient.get().uri("/api/loans/{id}", created.getId())
+                .header("If-None-Match", "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "\"0\"");
+    }
+
+    @Test
+    void testCreateLoan_RepeatedRequestIdReplaysTheFirstLoan() {
+        UUID requestId = UUID.randomUUID();
+
+        Loan first = create(request("10000.00", "0.05", 60, "188.71"), requestId);
+        Loan retry = create(request("99999.00", "0.05", 60, "1887.10"), requestId);
+
+        assertThat(retry).isEqualTo(first);
+    }
+
+    @Test
+    void testCreateLoan_RequestIdIsInTheMdcOfServiceLogLines() {
+        UUID requestId = UUID.randomUUID();
+
+        create(request("10000.00", "0.05", 60, "188.71"), requestId);
+
+        assertThat(serviceLog.list)
+                .filteredOn(event -> event.getFormattedMessage().startsWith("Loan created"))
+                .singleElement()
+                .satisfies(event -> assertThat(event.getMDCPropertyMap()).containsEntry("requestId",
+                        requestId.toString()));
+    }
+
+    @Test
+    void testCreateLoan_ValidationErrors() {
+        webTestClient.post().uri("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request("-1", "0.05", 60, "188.71"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectHeader().exists(REQUEST_ID_HEADER)
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Validation failed")
+                .jsonPath("$.errors[0].field").isEqualTo("amount");
+    }
+
+    @Test
+    void testCreateLoans_EveryPaymentMismatchReportedByIndex() {
+        webTestClient.post().uri("/api/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(request("10000.00", "0.05", 60, "188.71"), request("10000.00", "0.05", 60, "1.00"),
+                        request("10000.00", "0.05", 60, "2.00")))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.length()").isEqualTo(2)
+                .jsonPath("$.errors[0].field").isEqualTo("monthlyPaymentAmount")
+                .jsonPath("$.errors[0].index").isEqualTo(1)
+                .jsonPath("$.errors[1].index").isEqualTo(2);
+    }
+
+    @Test
+    void testCreateLoans_OverTheBatchLimit() {
+        webTestClient.post().uri("/api/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Collections.nCopies(10_001, request("10000.00", "0.05", 60, "188.71")))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Validation failed")
+                .jsonPath("$.errors[0].field").isEqualTo("loanCreateRequest");
+    }
+
+    @Test
+    void testCreateLoans_ThenPageThroughThemBySearch() {
+        webTestClient.post().uri("/api/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(request("777.00", "0.05", 12, "66.52"), request("778.00", "0.05", 12, "66.60"),
+                        request("779.00", "0.05", 12, "66.69")))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBodyList(Loan.class).hasSize(3);
+
+        LoanPage first = search("/api/loans/search?minAmount=777&maxAmount=779&limit=2");
+        assertThat(first.getItems()).extracting(Loan::getAmount)
+                .containsExactly(new BigDecimal("777.0000"), new BigDecimal("778.0000"));
+        LoanPage second = search("/api/loans/search?minAmount=777&maxAmount=779&limit=2&cursor=" + first.getNextCursor());
+        assertThat(second.getItems()).extracting(Loan::getAmount).containsExactly(new BigDecimal("779.0000"));
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void testUpdateLoan_IfMatchOnAStaleVersionFailsThePrecondition() {
+        Loan created = create(request("10000.00", "0.05", 60, "188.71"), null);
+        LoanUpdateRequest update = new LoanUpdateRequest()
+                .amount(new BigDecimal("12000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("226.45"));
+
+        webTestClient.put().uri("/api/loans/{id}", created.getId())
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1\"");
+        webTestClient.put().uri("/api/loans/{id}", created.getId())
+                .header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isEqualTo(412);
+        webTestClient.put().uri("/api/loans/{id}", UUID.randomUUID())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testStreamLoanChanges_UpdatedLoanThenResumeAfterIt() {
+        Loan created = create(request("10000.00", "0.05", 60, "188.71"), null);
+        webTestClient.put().uri("/api/loans/{id}", created.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new LoanUpdateRequest()
+                        .amount(new BigDecimal("12000.00"))
+                        .interestRate(new BigDecimal("0.05"))
+                        .lengthInMonths(60)
+                        .monthlyPaymentAmount(new BigDecimal("226.45")))
+                .exchange()
+                .expectStatus().isOk();
+        Loan later = create(request("5000.00", "0.05", 60, "94.36"), null);
+
+        // Written twice, the loan appears once, at its update
+        List<ServerSentEvent<LoanChange>> fromStart = changes("/api/loans/changes?after=0", null)
+                .takeUntil(event -> later.getId().equals(event.data().getLoan().getId()))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        List<ServerSentEvent<LoanChange>> ofCreated = fromStart.stream()
+                .filter(event -> created.getId().equals(event.data().getLoan().getId()))
+                .toList();
+        assertThat(ofCreated).hasSize(1);
+        assertThat(ofCreated.getFirst().event()).isEqualTo("updated");
+        assertThat(ofCreated.getFirst().data().getLoan().getVersion()).isEqualTo(1);
+
+        ServerSentEvent<LoanChange> resumed = changes("/api/loans/changes", ofCreated.getFirst().id())
+                .next()
+                .block(Duration.ofSeconds(10));
+        assertThat(resumed.data().getLoan().getId()).isEqualTo(later.getId());
+        assertThat(resumed.data().getType()).isEqualTo(LoanChange.TypeEnum.CREATED);
+    }
+
+    @Test
+    void testStreamLoanChanges_MalformedPosition() {
+        webTestClient.get().uri("/api/loans/changes?after=bogus")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Invalid cursor");
+    }
+
+    @Test
+    void testGetLoan_InvalidUuidFormat() {
+        webTestClient.get().uri("/api/loans/{id}", "not-a-uuid")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Invalid parameter format");
+    }
+
+    @Test
+    void testImportThenExport_RoundTripsThroughCsv() {
+        LoanImportReport report = webTestClient.post().uri("/api/loans/import?format=csv")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .bodyValue("""
+                        amount,interestRate,lengthInMonths,monthlyPaymentAmount
+                        4242.00,0.05,24,186.10
+                        """)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanImportReport.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(report.getImported()).isEqualTo(1);
+
+        String csv = webTestClient.get().uri("/api/loans/export?format=csv")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("text/csv")
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(csv).startsWith("id,amount,interestRate,lengthInMonths,monthlyPaymentAmount\n")
+                .contains(",4242.0000,0.050000,24,");
+    }
+
+    @Test
+    void testGetLoanStats_MatchesTheLiveCounters() {
+        create(request("10000.00", "0.05", 60, "188.71"), null);
+
+        LoanStats stats = webTestClient.get().uri("/api/loans/stats")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanStats.class)
+                .returnResult()
+                .getResponseBody();
+        LoanStats live = webTestClient.get().uri("/api/loans/stats/live")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanStats.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(stats.getOverall().getCount()).isPositive();
+        assertThat(live.getOverall()).isEqualTo(stats.getOverall());
+    }
+
+    @Test
+    void testMetrics_PublishTheR2dbcPool() {
+        webTestClient.get().uri("/actuator/metrics/r2dbc.pool.max.allocated")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.measurements[0].value").isEqualTo(20.0);
+    }
+
+    private Flux<ServerSentEvent<LoanChange>> changes(String uri, String lastEventId) {
+        return webTestClient.get().uri(uri)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(headers -> {
+                    if (lastEventId != null) {
+                        headers.set("Last-Event-ID", lastEventId);
+                    }
+                })
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<LoanChange>>() {
+                })
+                .getResponseBody()
+                .filter(event -> event.data() != null);
+    }
+
+    private Loan create(LoanCreateRequest request, UUID requestId) {
+        return webTestClient.post().uri("/api/loans")
+                .headers(headers -> {
+                    if (requestId != null) {
+                        headers.set(REQUEST_ID_HEADER, requestId.toString());
+                    }
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().exists(REQUEST_ID_HEADER)
+                .expectBody(Loan.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private LoanPage search(String uri) {
+        return webTestClient.get().uri(uri)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanPage.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private static LoanCreateRequest request(String amount, String interestRate, int lengthInMonths,
+                                             String monthlyPaymentAmount) {
+        return new LoanCreateRequest()
+                .amount(new BigDecimal(amount))
+                .interestRate(new BigDecimal(interestRate))
+                .lengthInMonths(lengthInMonths)
+                .monthlyPaymentAmount(new BigDecimal(monthlyPaymentAmount));
+    }
+}
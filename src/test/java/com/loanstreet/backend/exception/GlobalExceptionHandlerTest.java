@@ -2,17 +2,29 @@ package com.loanstreet.backend.exception;
 
 import com.loanstreet.backend.dto.ApiError;
 import com.loanstreet.backend.dto.FieldViolation;
+import com.loanstreet.backend.dto.LoanCreateRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.math.BigDecimal;
+import java.sql.SQLTransientConnectionException;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -20,11 +32,13 @@ import static org.mockito.Mockito.when;
 
 class GlobalExceptionHandlerTest {
 
+    private SimpleMeterRegistry meterRegistry;
     private GlobalExceptionHandler handler;
 
     @BeforeEach
     void setUp() {
-        handler = new GlobalExceptionHandler();
+        meterRegistry = new SimpleMeterRegistry();
+        handler = new GlobalExceptionHandler(meterRegistry);
     }
 
     @Test
@@ -69,6 +83,29 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody().getErrors()).isEmpty();
     }
 
+    @Test
+    void handleConstraintViolations_returnsBadRequestWithFieldViolations() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        LoanCreateRequest request = new LoanCreateRequest()
+                .amount(new BigDecimal("-1"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(601)
+                .monthlyPaymentAmount(new BigDecimal("188.71"));
+        Set<ConstraintViolation<LoanCreateRequest>> constraintViolations = validator.validate(request);
+
+        ResponseEntity<ApiError> response = handler.handleConstraintViolations(
+                new ConstraintViolationException(constraintViolations));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        ApiError body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.getError()).isEqualTo("Validation failed");
+        assertThat(body.getErrors()).extracting(FieldViolation::getField)
+                .containsExactly("amount", "lengthInMonths");
+        assertThat(body.getErrors()).extracting(FieldViolation::getIndex)
+                .containsOnlyNulls();
+    }
+
     @Test
     void handleNotFound_returnsNotFoundWithMessage() {
         NoSuchElementException ex = new NoSuchElementException("Loan not found");
@@ -82,6 +119,19 @@ class GlobalExceptionHandlerTest {
         assertThat(body.getTimestamp()).isNotNull();
     }
 
+    @Test
+    void handlers_countErrorsByExceptionTypeAndStatus() {
+        handler.handleNotFound(new NoSuchElementException("Loan not found"));
+        handler.handleNotFound(new NoSuchElementException("Loan not found"));
+        handler.handleOptimisticLockingFailure(new OptimisticLockingFailureException("stale"));
+
+        assertThat(meterRegistry.get("api.errors")
+                .tag("error", "NoSuchElementException").tag("status", "404").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("api.errors")
+                .tag("error", "OptimisticLockingFailureException").tag("status", "409").counter().count())
+                .isEqualTo(1);
+    }
+
     @Test
     void handleTypeMismatch_returnsBadRequest() {
         MethodArgumentTypeMismatchException ex = mock(MethodArgumentTypeMismatchException.class);
@@ -97,6 +147,129 @@ class GlobalExceptionHandlerTest {
         assertThat(body.getTimestamp()).isNotNull();
     }
 
+    @Test
+    void handleInvalidCursor_returnsBadRequest() {
+        InvalidCursorException ex = new InvalidCursorException("Malformed cursor: abc", null);
+
+        ResponseEntity<ApiError> response = handler.handleInvalidCursor(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        ApiError body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.getError()).isEqualTo("Invalid cursor");
+        assertThat(body.getTimestamp()).isNotNull();
+    }
+
+    @Test
+    void handleInvalidImport_returnsBadRequestWithReason() {
+        InvalidImportException ex = new InvalidImportException("CSV import must start with a header row");
+
+        ResponseEntity<ApiError> response = handler.handleInvalidImport(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        ApiError body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.getError()).isEqualTo("CSV import must start with a header row");
+        assertThat(body.getTimestamp()).isNotNull();
+    }
+
+    @Test
+    void handleImportFailed_returnsInternalServerErrorNamingTheChunk() {
+        ImportFailedException ex = new ImportFailedException(3, 100002, 100000, new RuntimeException("disk full"));
+
+        ResponseEntity<ApiError> response = handler.handleImportFailed(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        ApiError body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.getError()).isEqualTo("Import failed in chunk 3, which starts at line 100002; the 100000 "
+                + "loans of the earlier chunks were imported, resend the rows from line 100002 on");
+    }
+
+    @Test
+    void handleInvalidScheduleRange_returnsBadRequestWithReason() {
+        InvalidScheduleRangeException ex = new InvalidScheduleRangeException("fromMonth must not be after toMonth");
+
+        ResponseEntity<ApiError> response = handler.handleInvalidScheduleRange(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        ApiError body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.getError()).isEqualTo("fromMonth must not be after toMonth");
+        assertThat(body.getTimestamp()).isNotNull();
+    }
+
+    @Test
+    void handlePaymentMismatch_returnsFieldViolationWithIndex() {
+        PaymentMismatchException ex = new PaymentMismatchException(new BigDecimal("299.71"), new BigDecimal("0.01"))
+                .atIndex(2);
+
+        ResponseEntity<ApiError> response = handler.handlePaymentMismatch(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        ApiError body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.getError()).isEqualTo("Validation failed");
+        assertThat(body.getErrors()).singleElement().satisfies(violation -> {
+            assertThat(violation.getField()).isEqualTo("monthlyPaymentAmount");
+            assertThat(violation.getIndex()).isEqualTo(2);
+            assertThat(violation.getMessage()).isEqualTo("must be within 0.01 of the calculated payment 299.71");
+        });
+    }
+
+    @Test
+    void handleBatchPaymentMismatch_returnsFieldViolationPerIndex() {
+        BatchPaymentMismatchException ex = new BatchPaymentMismatchException(List.of(
+                new PaymentMismatchException(new BigDecimal("299.71"), new BigDecimal("0.01")).atIndex(1),
+                new PaymentMismatchException(new BigDecimal("188.71"), new BigDecimal("0.01")).atIndex(4)));
+
+        ResponseEntity<ApiError> response = handler.handleBatchPaymentMismatch(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        ApiError body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.getError()).isEqualTo("Validation failed");
+        assertThat(body.getErrors()).extracting(FieldViolation::getIndex).containsExactly(1, 4);
+        assertThat(body.getErrors()).extracting(FieldViolation::getField).containsOnly("monthlyPaymentAmount");
+        assertThat(body.getErrors().get(1).getMessage())
+                .isEqualTo("must be within 0.01 of the calculated payment 188.71");
+    }
+
+    @Test
+    void handlePreconditionFailed_returnsCurrentETag() {
+        ResponseEntity<ApiError> response = handler.handlePreconditionFailed(
+                new PreconditionFailedException("Loan is at version 2", 2L));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"2\"");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getError()).isEqualTo("Loan has been modified");
+    }
+
+    @Test
+    void handleOptimisticLockingFailure_returnsConflict() {
+        ResponseEntity<ApiError> response = handler.handleOptimisticLockingFailure(
+                new OptimisticLockingFailureException("Row was updated or deleted by another transaction"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getError()).isEqualTo("Loan was modified concurrently");
+    }
+
+    @Test
+    void handleDatabaseUnavailable_returnsServiceUnavailableWithRetryAfter() {
+        CannotCreateTransactionException ex = new CannotCreateTransactionException("Could not open JPA EntityManager",
+                new SQLTransientConnectionException("No database connection available within 5000ms"));
+
+        ResponseEntity<ApiError> response = handler.handleDatabaseUnavailable(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        ApiError body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.getError()).isEqualTo("Service temporarily unavailable");
+    }
+
     @Test
     void handleGenericException_returnsInternalServerError() {
         Exception ex = new RuntimeException("Something went wrong");
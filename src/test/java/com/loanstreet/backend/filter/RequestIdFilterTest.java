@@ -101,6 +101,29 @@ class RequestIdFilterTest {
         verify(chain).doFilter(request, response);
     }
 
+    @Test
+    void doFilter_withShortenedUuid_replacesWithGenerated() throws IOException, ServletException {
+        // UUID.fromString would pad this out to 00000001-0002-0003-0004-000000000005
+        when(request.getHeader(RequestIdFilter.REQUEST_ID_HEADER)).thenReturn("1-2-3-4-5");
+
+        filter.doFilter(request, response, chain);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq(RequestIdFilter.REQUEST_ID_HEADER), captor.capture());
+        assertThat(captor.getValue()).isNotEqualTo("1-2-3-4-5").hasSize(36);
+    }
+
+    @Test
+    void doFilter_generatesTimeOrderedIds() throws IOException, ServletException {
+        when(request.getHeader(RequestIdFilter.REQUEST_ID_HEADER)).thenReturn(null);
+
+        filter.doFilter(request, response, chain);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq(RequestIdFilter.REQUEST_ID_HEADER), captor.capture());
+        assertThat(UUID.fromString(captor.getValue()).version()).isEqualTo(7);
+    }
+
     @Test
     void doFilter_setsMdcDuringChainExecution() throws IOException, ServletException {
         String providedId = UUID.randomUUID().toString();
@@ -0,0 +1,88 @@
+package com.loanstreet.backend.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import com.loanstreet.backend.filter.RequestIdFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestSamplingTurboFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger serviceLogger = context.getLogger("com.loanstreet.backend.service.LoanService");
+    private final Logger filterLogger = context.getLogger("com.loanstreet.backend.filter.RequestIdFilter");
+
+    private RequestSamplingTurboFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RequestSamplingTurboFilter();
+        filter.setLoggers("com.loanstreet.backend.service, com.loanstreet.backend.repository");
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void decide_keepsOrDropsEveryLineOfARequestTogether() {
+        filter.setRate(0.5);
+
+        for (int i = 0; i < 100; i++) {
+            MDC.put(RequestIdFilter.REQUEST_ID_MDC_KEY, UUID.randomUUID().toString());
+            FilterReply first = decide(serviceLogger, Level.INFO);
+            assertThat(decide(serviceLogger, Level.INFO)).isEqualTo(first);
+            assertThat(decide(serviceLogger, Level.DEBUG)).isEqualTo(first);
+        }
+    }
+
+    @Test
+    void decide_keepsRoughlyTheConfiguredFractionOfRequests() {
+        filter.setRate(0.1);
+
+        long kept = IntStream.range(0, 20_000)
+                .filter(i -> filter.kept(UUID.randomUUID().toString()))
+                .count();
+
+        assertThat(kept).isBetween(1_600L, 2_400L);
+    }
+
+    @Test
+    void decide_neverDropsWarningsOrOtherLoggers() {
+        filter.setRate(0);
+        MDC.put(RequestIdFilter.REQUEST_ID_MDC_KEY, UUID.randomUUID().toString());
+
+        assertThat(decide(serviceLogger, Level.INFO)).isEqualTo(FilterReply.DENY);
+        assertThat(decide(serviceLogger, Level.WARN)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(serviceLogger, Level.ERROR)).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(filterLogger, Level.INFO)).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    @Test
+    void decide_keepsEverythingAtFullRate() {
+        MDC.put(RequestIdFilter.REQUEST_ID_MDC_KEY, UUID.randomUUID().toString());
+
+        assertThat(decide(serviceLogger, Level.INFO)).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    @Test
+    void setRate_rejectsValuesOutsideZeroToOne() {
+        assertThatThrownBy(() -> filter.setRate(1.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> filter.setRate(-0.1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private FilterReply decide(Logger logger, Level level) {
+        return filter.decide(null, logger, level, "message", null, null);
+    }
+}
@@ -0,0 +1,233 @@
+package com.loanstreet.backend.repository;
+
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.repository.LoanRepositoryCustomImpl.SearchQuery;
+import com.loanstreet.backend.service.LoanPartitionMaintenance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The move of loans to monthly partitions, against Postgres: loans written before V12,
+ * and between V12 and V13 while the partitioned table is mirrored, all come through the
+ * swap, and reads by ID or from a position only visit the partitions they need.
+ */
+class LoanPartitioningTest {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO loans (amount, interest_rate, length_in_months, monthly_payment_amount, created_at, updated_at)
+            VALUES (?, 0.05, 12, 856.07, ?::timestamptz, ?::timestamptz) RETURNING id
+            """;
+    private static final OffsetDateTime JANUARY = OffsetDateTime.parse("2025-01-01T12:00:00Z");
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static UUID updatedBeforeSwap;
+    private static UUID deletedBeforeSwap;
+    private static UUID insertedBeforeSwap;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        dataSource = postgres.getPostgresDatabase();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        migrate("11");
+        // Ten loans a month from January to March 2025
+        for (int i = 0; i < 30; i++) {
+            insertLoan(JANUARY.plusMonths(i / 10).plusDays(2L * (i % 10)).toInstant());
+        }
+        List<UUID> ids = jdbcTemplate.queryForList("SELECT id FROM loans ORDER BY created_at", UUID.class);
+
+        // Writes to the unpartitioned table once the mirror is in place, before the copy
+        migrate("12");
+        updatedBeforeSwap = ids.get(3);
+        deletedBeforeSwap = ids.get(4);
+        jdbcTemplate.update("UPDATE loans SET amount = 20000, version = version + 1 WHERE id = ?", updatedBeforeSwap);
+        jdbcTemplate.update("DELETE FROM loans WHERE id = ?", deletedBeforeSwap);
+        insertedBeforeSwap = insertLoan(Instant.now());
+
+        migrate(null);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void swapKeepsEveryLoan() {
+        assertThat(jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE relname = 'loans'",
+                String.class)).isEqualTo("p");
+        // Other tests write to March and later
+        assertThat(jdbcTemplate.queryForObject("""
+                WITH copied AS (SELECT * FROM loans WHERE created_at < '2025-03-01'),
+                     legacy AS (SELECT * FROM loans_legacy WHERE created_at < '2025-03-01')
+                SELECT count(*) FROM ((TABLE copied EXCEPT TABLE legacy) UNION ALL (TABLE legacy EXCEPT TABLE copied)) d
+                """, Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM loans_legacy", Long.class)).isEqualTo(30);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT amount FROM loans WHERE id = ?", BigDecimal.class,
+                updatedBeforeSwap)).isEqualByComparingTo("20000");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM loans WHERE id IN (?, ?)", Long.class,
+                deletedBeforeSwap, insertedBeforeSwap)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM loans_p202502", Long.class)).isEqualTo(10);
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT count(*) FROM loans l FULL JOIN loan_ids i USING (id, created_at)
+                WHERE l.id IS NULL OR i.id IS NULL
+                """, Long.class)).isZero();
+    }
+
+    @Test
+    void triggersFollowTheSwap() {
+        long outboxBefore = jdbcTemplate.queryForObject("SELECT count(*) FROM loan_outbox", Long.class);
+
+        UUID id = insertLoan(Instant.now());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM loan_outbox", Long.class))
+                .isEqualTo(outboxBefore + 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT sum(loan_count) FROM loan_stats", Long.class))
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT count(*) FROM loans", Long.class));
+        assertThat(jdbcTemplate.queryForObject("SELECT created_at FROM loan_ids WHERE id = ?", Instant.class, id))
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT created_at FROM loans WHERE id = ?", Instant.class, id));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM loans_legacy WHERE id = ?", Long.class, id))
+                .isZero();
+    }
+
+    @Test
+    void createdAtCannotChange() {
+        assertThatThrownBy(() -> jdbcTemplate.update(
+                "UPDATE loans SET created_at = created_at + interval '1 day' WHERE id = ?", updatedBeforeSwap))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void readsByIdVisitOnePartition() {
+        LoanRepositoryCustomImpl repository = new LoanRepositoryCustomImpl(dataSource, null, 500);
+        UUID id = jdbcTemplate.queryForObject("SELECT id FROM loans_p202502 LIMIT 1", UUID.class);
+
+        LoanEntity loan = repository.findById(id).orElseThrow();
+        assertThat(loan.getCreatedAt().atOffset(ZoneOffset.UTC).getMonthValue()).isEqualTo(2);
+        assertThat(repository.findVersionById(id)).contains(loan.getVersion());
+        assertThat(repository.findById(UUID.randomUUID())).isEmpty();
+
+        String plan = explain("SELECT * FROM loans WHERE " + LoanRepositoryCustomImpl.ID_MATCH, id);
+        assertThat(scannedPartitions(plan)).as(plan).containsExactly("loans_p202502");
+    }
+
+    @Test
+    void updateVisitsOnePartition() {
+        LoanRepositoryCustomImpl repository = new LoanRepositoryCustomImpl(dataSource, null, 500);
+        UUID id = jdbcTemplate.queryForObject("SELECT id FROM loans_p202503 LIMIT 1", UUID.class);
+
+        LoanUpdate update = repository.updateReturning(id, new BigDecimal("15000"), new BigDecimal("0.06"), 24,
+                new BigDecimal("664.81"), null).orElseThrow();
+        assertThat(update.updated().getAmount()).isEqualByComparingTo("15000");
+        assertThat(update.updated().getVersion()).isEqualTo(update.previous().getVersion() + 1);
+
+        String plan = explain(LoanRepositoryCustomImpl.postgresUpdate(LoanRepositoryCustomImpl.ID_MATCH)
+                .replaceFirst("\\?", "?::uuid"), id, new BigDecimal("15000"), new BigDecimal("0.06"), 24,
+                new BigDecimal("664.81"), Instant.now().atOffset(ZoneOffset.UTC));
+        assertThat(scannedPartitions(plan)).as(plan).containsOnly("loans_p202503");
+    }
+
+    @Test
+    void laterPagesSkipEarlierMonths() {
+        LoanSearch all = new LoanSearch(null, null, null, null, null, null, null);
+        SearchQuery query = LoanRepositoryCustomImpl.searchQuery(all, Instant.parse("2025-03-01T00:00:00Z"),
+                new UUID(0, 0), 100);
+
+        String plan = explain(query.sql(), query.args().toArray());
+
+        assertThat(plan).doesNotContain("loans_p202501").doesNotContain("loans_p202502").contains("loans_p202503");
+    }
+
+    @Test
+    void maintenanceCreatesPartitionsAhead() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LoanPartitionMaintenance maintenance = new LoanPartitionMaintenance(dataSource,
+                new DataSourceTransactionManager(dataSource), meterRegistry, 6, Duration.ofSeconds(5));
+
+        maintenance.createPartitions();
+
+        String sixMonthsOn = "loans_p" + YearMonth.now(ZoneOffset.UTC).plusMonths(6)
+                .format(DateTimeFormatter.ofPattern("yyyyMM"));
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, sixMonthsOn))
+                .isEqualTo(sixMonthsOn);
+        assertThat(meterRegistry.get("loan.partitions.ahead").gauge().value()).isGreaterThan(6 * 28);
+    }
+
+    @Test
+    void monthWithRowsInTheDefaultPartitionIsSkipped() {
+        Instant farOff = Instant.parse("2040-01-15T00:00:00Z");
+        UUID id = insertLoan(farOff);
+        try {
+            assertThat(jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM loans WHERE id = ?",
+                    String.class, id)).isEqualTo("loans_default");
+
+            jdbcTemplate.queryForObject("SELECT loan_partitions_create('loans', ?, ?)", Object.class,
+                    farOff.atOffset(ZoneOffset.UTC), farOff.plus(Duration.ofDays(40)).atOffset(ZoneOffset.UTC));
+
+            assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('loans_p204001')::text", String.class)).isNull();
+            assertThat(jdbcTemplate.queryForObject("SELECT to_regclass('loans_p204002')::text", String.class))
+                    .isEqualTo("loans_p204002");
+        } finally {
+            jdbcTemplate.update("DELETE FROM loans WHERE id = ?", id);
+        }
+    }
+
+    private static void migrate(String target) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .target(target == null ? "latest" : target)
+                .load()
+                .migrate();
+    }
+
+    private static UUID insertLoan(Instant createdAt) {
+        return jdbcTemplate.queryForObject(INSERT_SQL, UUID.class, new BigDecimal("10000"),
+                createdAt.atOffset(ZoneOffset.UTC), createdAt.atOffset(ZoneOffset.UTC));
+    }
+
+    private static String explain(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF, SUMMARY OFF) "
+                + sql, String.class, args));
+    }
+
+    /**
+     * Partitions whose scans the plan ran, skipping the ones pruned when it started.
+     */
+    private static List<String> scannedPartitions(String plan) {
+        return plan.lines()
+                .filter(line -> line.contains(" on loans_") && !line.contains("never executed"))
+                .filter(line -> line.contains("Scan"))
+                .map(line -> line.replaceAll(".* on (loans_\\w+).*", "$1"))
+                .distinct()
+                .toList();
+    }
+}
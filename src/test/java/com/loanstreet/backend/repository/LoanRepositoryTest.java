@@ -0,0 +1,203 @@
+package com.loanstreet.backend.repository;
+
+import com.loanstreet.backend.model.LoanEntity;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class LoanRepositoryTest {
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        loanRepository.deleteAll();
+        for (int i = 0; i < 7; i++) {
+            LoanEntity entity = new LoanEntity();
+            entity.setAmount(new BigDecimal(1000 + i));
+            entity.setInterestRate(new BigDecimal("0.05"));
+            entity.setLengthInMonths(60);
+            entity.setMonthlyPaymentAmount(new BigDecimal("20.00"));
+            loanRepository.save(entity);
+        }
+        loanRepository.flush();
+    }
+
+    @Test
+    void keysetPages_walkAllRowsInCreatedAtIdOrderWithoutGapsOrDuplicates() {
+        List<UUID> walked = new ArrayList<>();
+        List<LoanEntity> page = loanRepository.findFirstPage(Limit.of(3));
+        while (!page.isEmpty()) {
+            page.forEach(entity -> walked.add(entity.getId()));
+            LoanEntity last = page.get(page.size() - 1);
+            page = loanRepository.findPageAfter(last.getCreatedAt(), last.getId(), Limit.of(3));
+        }
+
+        List<UUID> expected = loanRepository.findAll().stream()
+                .map(LoanEntity::getId)
+                .toList();
+
+        assertThat(walked).hasSize(7).doesNotHaveDuplicates();
+        assertThat(walked).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(walked).extracting(id -> loanRepository.findById(id).orElseThrow().getCreatedAt())
+                .isSorted();
+    }
+
+    @Test
+    void save_assignsTimeOrderedVersion7Ids() {
+        assertThat(loanRepository.findAll())
+                .extracting(LoanEntity::getId)
+                .allSatisfy(id -> {
+                    assertThat(id.version()).isEqualTo(7);
+                    assertThat(id.variant()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    void search_combinesFiltersAndPagesInCreatedAtIdOrder() {
+        saveLoan("250000.00", "0.065", 360);
+        saveLoan("260000.00", "0.070", 360);
+        saveLoan("255000.00", "0.065", 240);
+        saveLoan("270000.00", "0.050", 360);
+        LoanSearch search = new LoanSearch(new BigDecimal("250000"), new BigDecimal("260000"),
+                new BigDecimal("0.06"), new BigDecimal("0.07"), 360, null, null);
+
+        List<LoanEntity> first = loanRepository.search(search, null, null, 1);
+        LoanEntity last = first.get(0);
+        List<LoanEntity> second = loanRepository.search(search, last.getCreatedAt(), last.getId(), 10);
+
+        assertThat(first).hasSize(1);
+        assertThat(second).hasSize(1);
+        assertThat(List.of(first.get(0), second.get(0)))
+                .extracting(LoanEntity::getAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactlyInAnyOrder(new BigDecimal("250000"), new BigDecimal("260000"));
+        assertThat(second.get(0).getCreatedAt()).isAfterOrEqualTo(last.getCreatedAt());
+    }
+
+    @Test
+    void search_withoutFiltersReturnsEveryLoan() {
+        LoanSearch none = new LoanSearch(null, null, null, null, null, null, null);
+
+        assertThat(loanRepository.search(none, null, null, 100)).hasSize(7);
+    }
+
+    @Test
+    void search_creationWindowIncludesFromAndExcludesTo() {
+        List<LoanEntity> loans = loanRepository.findFirstPage(Limit.of(7));
+        Instant from = loans.get(2).getCreatedAt();
+        Instant to = loans.get(5).getCreatedAt();
+
+        List<LoanEntity> found = loanRepository.search(new LoanSearch(null, null, null, null, null, from, to),
+                null, null, 100);
+
+        assertThat(found).allSatisfy(entity -> assertThat(entity.getCreatedAt()).isBetween(from, to).isNotEqualTo(to));
+        assertThat(found).extracting(LoanEntity::getId).contains(loans.get(2).getId());
+    }
+
+    @Test
+    void findFirstPage_respectsLimit() {
+        assertThat(loanRepository.findFirstPage(Limit.of(5))).hasSize(5);
+    }
+
+    @Test
+    void updateReturning_overwritesTermsAndBumpsVersion() {
+        LoanEntity existing = loanRepository.findFirstPage(Limit.of(1)).get(0);
+
+        LoanUpdate result = loanRepository.updateReturning(existing.getId(), new BigDecimal("15000.00"),
+                new BigDecimal("0.045"), 72, new BigDecimal("238.11"), null).orElseThrow();
+
+        LoanEntity previous = result.previous();
+        assertThat(previous.getAmount()).isEqualByComparingTo(existing.getAmount());
+        assertThat(previous.getInterestRate()).isEqualByComparingTo(existing.getInterestRate());
+        assertThat(previous.getLengthInMonths()).isEqualTo(existing.getLengthInMonths());
+        assertThat(previous.getVersion()).isEqualTo(existing.getVersion());
+
+        LoanEntity updated = result.updated();
+        assertThat(updated.getId()).isEqualTo(existing.getId());
+        assertThat(updated.getAmount()).isEqualByComparingTo("15000.00");
+        assertThat(updated.getInterestRate()).isEqualByComparingTo("0.045");
+        assertThat(updated.getLengthInMonths()).isEqualTo(72);
+        assertThat(updated.getMonthlyPaymentAmount()).isEqualByComparingTo("238.11");
+        assertThat(updated.getVersion()).isEqualTo(existing.getVersion() + 1);
+        assertThat(updated.getCreatedAt()).isNotNull();
+        assertThat(updated.getUpdatedAt()).isNotNull();
+        assertThat(loanRepository.findVersionById(existing.getId())).contains(existing.getVersion() + 1);
+    }
+
+    @Test
+    void updateReturning_onlyAppliesWhenVersionIsExpected() {
+        LoanEntity existing = loanRepository.findFirstPage(Limit.of(1)).get(0);
+        long version = existing.getVersion();
+
+        assertThat(loanRepository.updateReturning(existing.getId(), new BigDecimal("15000.00"),
+                new BigDecimal("0.045"), 72, new BigDecimal("238.11"), Set.of(version + 1))).isEmpty();
+        assertThat(loanRepository.updateReturning(existing.getId(), new BigDecimal("15000.00"),
+                new BigDecimal("0.045"), 72, new BigDecimal("238.11"), Set.of())).isEmpty();
+        assertThat(loanRepository.findVersionById(existing.getId())).contains(version);
+
+        assertThat(loanRepository.updateReturning(existing.getId(), new BigDecimal("15000.00"),
+                new BigDecimal("0.045"), 72, new BigDecimal("238.11"), Set.of(version - 1, version)))
+                .hasValueSatisfying(result -> assertThat(result.updated().getVersion()).isEqualTo(version + 1));
+    }
+
+    @Test
+    void updateReturning_missingLoanIsEmpty() {
+        assertThat(loanRepository.updateReturning(UUID.randomUUID(), new BigDecimal("15000.00"),
+                new BigDecimal("0.045"), 72, new BigDecimal("238.11"), null)).isEmpty();
+    }
+
+    @Test
+    void insertAll_insertsInOrderAndLeavesNothingManaged() {
+        List<LoanEntity> loans = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            LoanEntity entity = new LoanEntity();
+            entity.setAmount(new BigDecimal(5000 + i));
+            entity.setInterestRate(new BigDecimal("0.04"));
+            entity.setLengthInMonths(12);
+            entity.setMonthlyPaymentAmount(new BigDecimal("430.00"));
+            loans.add(entity);
+        }
+
+        List<LoanEntity> inserted = loanRepository.insertAll(loans);
+
+        assertThat(inserted).containsExactlyElementsOf(loans).allSatisfy(loan -> {
+            assertThat(loan.getId()).isNotNull();
+            assertThat(loan.getVersion()).isZero();
+            assertThat(loan.getCreatedAt()).isNotNull();
+            assertThat(entityManager.contains(loan)).isFalse();
+        });
+        assertThat(loanRepository.findAllById(inserted.stream().map(LoanEntity::getId).toList()))
+                .extracting(LoanEntity::getAmount)
+                .containsExactlyInAnyOrder(new BigDecimal("5000.0000"), new BigDecimal("5001.0000"),
+                        new BigDecimal("5002.0000"));
+    }
+
+    private void saveLoan(String amount, String interestRate, int lengthInMonths) {
+        LoanEntity entity = new LoanEntity();
+        entity.setAmount(new BigDecimal(amount));
+        entity.setInterestRate(new BigDecimal(interestRate));
+        entity.setLengthInMonths(lengthInMonths);
+        entity.setMonthlyPaymentAmount(new BigDecimal("1500.00"));
+        loanRepository.saveAndFlush(entity);
+    }
+}
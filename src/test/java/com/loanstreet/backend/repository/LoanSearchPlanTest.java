@@ -0,0 +1,171 @@
+package com.loanstreet.backend.repository;
+
+import com.loanstreet.backend.repository.LoanRepositoryCustomImpl.SearchQuery;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plans every combination of search filters on Postgres, against a million loans created
+ * over three years with skewed amounts and the usual handful of terms, and checks that none
+ * of them reads loans with a sequential scan, bar the partitions of months with next to no
+ * loans. The schema, indexes included, comes from the Flyway migrations, so this fails if a
+ * migration drops or changes an index a search needs.
+ */
+class LoanSearchPlanTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int LIMIT = 100;
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    /** 5% of the table: a page should never cost reading that much more than it returns. */
+    private static final long MAX_DISCARDED_ROWS = ROWS / 20;
+    /** Partitions of months with no loans yet, or a handful, are cheaper to scan than to index. */
+    private static final long MAX_SEQ_SCANNED_ROWS = 100;
+    private static final Pattern ACTUAL_ROWS = Pattern.compile("\\(actual rows=(\\d+)");
+    private static final Pattern ROWS_REMOVED = Pattern.compile("Rows Removed by (?:Filter|Index Recheck): (\\d+)");
+
+    private static EmbeddedPostgres postgres;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        DataSource dataSource = postgres.getPostgresDatabase();
+        // As in application.yml, so the CONCURRENTLY index builds do not wait on Flyway's lock transaction
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // The migrations only create partitions from the current month on
+        jdbcTemplate.queryForObject("SELECT loan_partitions_create('loans', ?::timestamptz - interval '3 years', ?)",
+                Object.class, NOW.atOffset(ZoneOffset.UTC), NOW.atOffset(ZoneOffset.UTC));
+        // Amounts roughly log-uniform from 2,000 to 300,000, rates from 2% to 20%,
+        // and created_at rising with insertion order as it does in production
+        jdbcTemplate.update("""
+                INSERT INTO loans (amount, interest_rate, length_in_months, monthly_payment_amount, created_at, updated_at)
+                SELECT amount, rate, term, round(amount / term, 2), created_at, created_at
+                FROM (SELECT round((2000 * exp(random() * 5))::numeric, 2) AS amount,
+                             round((0.02 + random() * 0.18)::numeric, 3) AS rate,
+                             (ARRAY[12, 24, 36, 48, 60, 72, 84, 120, 180, 240, 360])[1 + floor(random() * 11)::int] AS term,
+                             ?::timestamptz - interval '3 years' * (1 - i::float8 / ?) AS created_at
+                      FROM generate_series(1, ?) i) l
+                """, NOW.atOffset(ZoneOffset.UTC), ROWS, ROWS);
+        jdbcTemplate.execute("VACUUM ANALYZE loans");
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    /**
+     * All 16 subsets of {amount range, rate range, term, creation window}, each with values
+     * an underwriter might use: a 10% band of amounts, half a point of rate, one term and a
+     * month of originations.
+     */
+    static Stream<Arguments> filterCombinations() {
+        return IntStream.range(0, 16).mapToObj(mask -> {
+            boolean amount = (mask & 1) != 0;
+            boolean rate = (mask & 2) != 0;
+            boolean term = (mask & 4) != 0;
+            boolean created = (mask & 8) != 0;
+            List<String> names = new ArrayList<>();
+            if (amount) names.add("amount");
+            if (rate) names.add("rate");
+            if (term) names.add("term");
+            if (created) names.add("created");
+            LoanSearch search = new LoanSearch(
+                    amount ? new BigDecimal("100000") : null, amount ? new BigDecimal("110000") : null,
+                    rate ? new BigDecimal("0.050") : null, rate ? new BigDecimal("0.055") : null,
+                    term ? 60 : null,
+                    created ? NOW.minus(Duration.ofDays(90)) : null, created ? NOW.minus(Duration.ofDays(60)) : null);
+            return Arguments.of(names.isEmpty() ? "none" : String.join("+", names), search);
+        });
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("filterCombinations")
+    void firstPage_usesAnIndex(String filters, LoanSearch search) {
+        assertUsesAnIndex(LoanRepositoryCustomImpl.searchQuery(search, null, null, LIMIT));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("filterCombinations")
+    void laterPage_usesAnIndex(String filters, LoanSearch search) {
+        Instant after = search.createdFrom() != null
+                ? search.createdFrom().plus(Duration.ofDays(10))
+                : NOW.minus(Duration.ofDays(400));
+        assertUsesAnIndex(LoanRepositoryCustomImpl.searchQuery(search, after, UUID.randomUUID(), LIMIT));
+    }
+
+    /**
+     * Rows read by sequential scans: those returned plus those filtered out.
+     */
+    private static long seqScannedRows(List<String> lines) {
+        long rows = 0;
+        boolean inSeqScan = false;
+        for (String line : lines) {
+            if (line.contains("->") || line.equals(lines.getFirst())) {
+                inSeqScan = line.contains("Seq Scan");
+            }
+            if (!inSeqScan) {
+                continue;
+            }
+            Matcher actual = ACTUAL_ROWS.matcher(line);
+            if (actual.find()) {
+                rows += Long.parseLong(actual.group(1));
+            }
+            Matcher removed = ROWS_REMOVED.matcher(line);
+            if (removed.find()) {
+                rows += Long.parseLong(removed.group(1));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Runs the query under EXPLAIN ANALYZE. Walking idx_loans_created_at_id and filtering
+     * every row also avoids a sequential scan, so the rows a plan reads and throws away
+     * are bounded too.
+     */
+    private static void assertUsesAnIndex(SearchQuery query) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN (ANALYZE, TIMING OFF, SUMMARY OFF) " + query.sql(),
+                String.class, query.args().toArray());
+        String plan = String.join("\n", lines);
+        long discarded = lines.stream()
+                .map(ROWS_REMOVED::matcher)
+                .filter(Matcher::find)
+                .mapToLong(matcher -> Long.parseLong(matcher.group(1)))
+                .sum();
+
+        assertThat(seqScannedRows(lines)).as(plan).isLessThanOrEqualTo(MAX_SEQ_SCANNED_ROWS);
+        assertThat(plan).as(plan).contains("Index");
+        assertThat(discarded).as(plan).isLessThanOrEqualTo(MAX_DISCARDED_ROWS);
+    }
+}
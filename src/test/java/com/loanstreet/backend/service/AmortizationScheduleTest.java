@@ -0,0 +1,78 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.ScheduleEntry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AmortizationScheduleTest {
+
+    private final PaymentCalculator calculator = new PaymentCalculator(false, new BigDecimal("0.01"));
+
+    @Test
+    void entries_splitFirstPaymentIntoInterestAndPrincipal() {
+        ScheduleEntry first = schedule("10000.00", "0.05", 36).entries(1, 1).iterator().next();
+
+        assertThat(first.getMonth()).isEqualTo(1);
+        assertThat(first.getPayment()).isEqualByComparingTo("299.71");
+        assertThat(first.getInterest()).isEqualByComparingTo("41.67");
+        assertThat(first.getPrincipal()).isEqualByComparingTo("258.04");
+        assertThat(first.getBalance()).isEqualByComparingTo("9741.96");
+    }
+
+    @Test
+    void entries_fullTermPaysOffLoan() {
+        List<ScheduleEntry> rows = toList(schedule("25000.00", "0.065", 360).entries(1, 360));
+
+        assertThat(rows).hasSize(360);
+        assertThat(rows.get(359).getBalance()).isEqualByComparingTo("0");
+        BigDecimal principal = rows.stream().map(ScheduleEntry::getPrincipal).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertThat(principal).isCloseTo(new BigDecimal("25000.00"), within(new BigDecimal("1.00")));
+    }
+
+    @Test
+    void entries_rangeMatchesSameMonthsOfFullSchedule() {
+        AmortizationSchedule schedule = schedule("200000.00", "0.065", 360);
+
+        List<ScheduleEntry> full = toList(schedule.entries(1, 360));
+        List<ScheduleEntry> range = toList(schedule.entries(120, 132));
+
+        assertThat(range).containsExactlyElementsOf(full.subList(119, 132));
+    }
+
+    @Test
+    void entries_canBeIteratedMoreThanOnce() {
+        Iterable<ScheduleEntry> entries = schedule("10000.00", "0.05", 36).entries(10, 12);
+
+        assertThat(toList(entries)).containsExactlyElementsOf(toList(entries));
+    }
+
+    @Test
+    void entries_withZeroRateRepayPrincipalEvenly() {
+        List<ScheduleEntry> rows = toList(schedule("1000.00", "0", 3).entries(1, 3));
+
+        assertThat(rows).extracting(ScheduleEntry::getInterest).allMatch(i -> i.signum() == 0);
+        assertThat(rows).extracting(ScheduleEntry::getPrincipal)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("333.33"), new BigDecimal("333.33"), new BigDecimal("333.34"));
+        assertThat(rows.get(2).getBalance()).isEqualByComparingTo("0");
+    }
+
+    private AmortizationSchedule schedule(String amount, String rate, int months) {
+        BigDecimal principal = new BigDecimal(amount);
+        BigDecimal annualRate = new BigDecimal(rate);
+        return new AmortizationSchedule(principal, annualRate, months,
+                calculator.monthlyPayment(principal, annualRate, months));
+    }
+
+    private List<ScheduleEntry> toList(Iterable<ScheduleEntry> entries) {
+        List<ScheduleEntry> rows = new ArrayList<>();
+        entries.forEach(rows::add);
+        return rows;
+    }
+}
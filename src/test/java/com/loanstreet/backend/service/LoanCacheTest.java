@@ -0,0 +1,86 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.Loan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoanCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UUID id;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        id = UUID.randomUUID();
+    }
+
+    @Test
+    void put_neverReplacesNewerVersionWithOlderOne() {
+        LoanCache cache = new LoanCache(100, Duration.ofMinutes(5), false, meterRegistry);
+        Loan newer = loan("15000.00");
+        Loan older = loan("10000.00");
+
+        cache.put(id, 2L, newer);
+        cache.put(id, 1L, older);
+
+        assertThat(cache.get(id, ignored -> Optional.empty())).isSameAs(newer);
+    }
+
+    @Test
+    void put_ignoresLoansWithoutVersion() {
+        LoanCache cache = new LoanCache(100, Duration.ofMinutes(5), false, meterRegistry);
+
+        cache.put(id, null, loan("10000.00"));
+
+        assertThat(cache.get(id, ignored -> Optional.empty())).isNull();
+    }
+
+    @Test
+    void get_withVersionCheck_discardsStaleEntryAndCountsIt() {
+        LoanCache cache = new LoanCache(100, Duration.ofMinutes(5), true, meterRegistry);
+        cache.put(id, 1L, loan("10000.00"));
+
+        assertThat(cache.get(id, ignored -> Optional.of(2L))).isNull();
+        assertThat(cache.get(id, ignored -> Optional.of(1L))).isNull();
+        assertThat(meterRegistry.get("cache.stale").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void get_withoutVersionCheck_skipsLookup() {
+        LoanCache cache = new LoanCache(100, Duration.ofMinutes(5), false, meterRegistry);
+        Loan loan = loan("10000.00");
+        cache.put(id, 1L, loan);
+
+        assertThat(cache.get(id, ignored -> {
+            throw new AssertionError("version lookup should not run");
+        })).isSameAs(loan);
+    }
+
+    @Test
+    void stats_areExposedAsCacheMetrics() {
+        LoanCache cache = new LoanCache(100, Duration.ofMinutes(5), false, meterRegistry);
+        cache.put(id, 1L, loan("10000.00"));
+
+        cache.get(id, ignored -> Optional.empty());
+        cache.get(UUID.randomUUID(), ignored -> Optional.empty());
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "loans").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "loans").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.find("cache.evictions").tag("cache", "loans").functionCounter()).isNotNull();
+    }
+
+    private Loan loan(String amount) {
+        return new Loan().id(id).amount(new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,263 @@
+package com.loanstreet.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loanstreet.backend.dto.LoanChange;
+import com.loanstreet.backend.exception.ChangeFeedFullException;
+import com.loanstreet.backend.exception.InvalidCursorException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The change feed against Postgres, with the schema from the Flyway migrations. The poller
+ * is driven by hand instead of on its schedule.
+ */
+class LoanChangeFeedTest {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO loans (amount, interest_rate, length_in_months, monthly_payment_amount)
+            VALUES (10000, 0.05, 12, 856.07) RETURNING id
+            """;
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<LoanChangeSubscription> subscriptions = new ArrayList<>();
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void clearLoans() {
+        jdbcTemplate.execute("TRUNCATE loans CASCADE");
+    }
+
+    @AfterEach
+    void closeSubscriptions() {
+        subscriptions.forEach(LoanChangeSubscription::close);
+    }
+
+    @Test
+    void streamsExistingLoansFromTheStartThenNewOnes() throws InterruptedException {
+        LoanChangeFeed feed = feed(2, 10, 10);
+        List<UUID> existing = List.of(insertLoan(), insertLoan(), insertLoan());
+
+        LoanChangeSubscription subscription = subscribe(feed, "0");
+        UUID created = insertLoan();
+        feed.poll();
+
+        assertThat(drain(subscription, 4)).extracting(change -> change.position().id())
+                .containsExactly(existing.get(0), existing.get(1), existing.get(2), created);
+    }
+
+    @Test
+    void startsAtTheLiveEdgeWithoutPosition() throws InterruptedException {
+        LoanChangeFeed feed = feed(10, 10, 10);
+        insertLoan();
+
+        LoanChangeSubscription subscription = subscribe(feed, null);
+        UUID created = insertLoan();
+        feed.poll();
+
+        assertThat(drain(subscription, 1)).extracting(change -> change.position().id()).containsExactly(created);
+        assertThat(subscription.next()).isNull();
+    }
+
+    @Test
+    void resumesAfterTheLastEventId() throws InterruptedException {
+        LoanChangeFeed feed = feed(10, 10, 10);
+        List<UUID> ids = List.of(insertLoan(), insertLoan(), insertLoan(), insertLoan());
+
+        LoanChangeSubscription first = subscribe(feed, "0");
+        List<LoanChangeEvent> read = drain(first, 2);
+        first.close();
+
+        LoanChangeSubscription resumed = subscribe(feed, read.getLast().position().encode());
+        assertThat(drain(resumed, 2)).extracting(change -> change.position().id())
+                .containsExactly(ids.get(2), ids.get(3));
+    }
+
+    @Test
+    void updatedLoanMovesToItsNewPosition() throws InterruptedException {
+        LoanChangeFeed feed = feed(10, 10, 10);
+        UUID updated = insertLoan();
+        UUID other = insertLoan();
+        jdbcTemplate.update("""
+                UPDATE loans SET amount = 20000, version = version + 1, change_txid = pg_current_xact_id()
+                WHERE id = ?
+                """, updated);
+
+        List<LoanChangeEvent> changes = drain(subscribe(feed, "0"), 2);
+
+        assertThat(changes).extracting(change -> change.position().id()).containsExactly(other, updated);
+        assertThat(changes).extracting(LoanChangeEvent::type)
+                .containsExactly(LoanChange.TypeEnum.CREATED, LoanChange.TypeEnum.UPDATED);
+        assertThat(changes.getLast().data()).contains("\"type\":\"updated\"").contains("\"amount\":20000");
+    }
+
+    @Test
+    void waitsForTransactionsThatCommitLate() throws SQLException, InterruptedException {
+        LoanChangeFeed feed = feed(10, 10, 10);
+        LoanChangeSubscription subscription = subscribe(feed, null);
+
+        try (Connection slow = dataSource.getConnection()) {
+            slow.setAutoCommit(false);
+            UUID late = insertLoan(slow);
+            UUID early = insertLoan();
+
+            // The committed loan has a later transaction ID than the one still running
+            feed.poll();
+            assertThat(subscription.next()).isNull();
+
+            slow.commit();
+            feed.poll();
+            assertThat(drain(subscription, 2)).extracting(change -> change.position().id())
+                    .containsExactly(late, early);
+        }
+    }
+
+    @Test
+    void subscriberThatOverflowsCatchesUpFromTheDatabase() throws InterruptedException {
+        LoanChangeFeed feed = feed(2, 2, 10);
+        LoanChangeSubscription subscription = subscribe(feed, null);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(insertLoan());
+        }
+
+        feed.poll();
+        UUID later = insertLoan();
+        feed.poll();
+
+        assertThat(meterRegistry.get("loan.changes.overflows").counter().count()).isEqualTo(1);
+        List<UUID> expected = new ArrayList<>(ids);
+        expected.add(later);
+        assertThat(drain(subscription, 6)).extracting(change -> change.position().id())
+                .containsExactlyElementsOf(expected);
+        assertThat(subscription.next()).isNull();
+    }
+
+    @Test
+    void rejectsSubscribersOverTheLimit() {
+        LoanChangeFeed feed = feed(10, 10, 1);
+        LoanChangeSubscription subscription = subscribe(feed, null);
+
+        assertThatThrownBy(() -> feed.subscribe(null)).isInstanceOf(ChangeFeedFullException.class);
+        assertThat(meterRegistry.get("loan.changes.subscribers").gauge().value()).isEqualTo(1);
+
+        subscription.close();
+        subscribe(feed, null);
+    }
+
+    @Test
+    void closeWakesTheReader() throws InterruptedException {
+        LoanChangeFeed feed = new LoanChangeFeed(dataSource, objectMapper, meterRegistry, 10, 10, 10,
+                Duration.ofMinutes(1));
+        LoanChangeSubscription subscription = subscribe(feed, null);
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try {
+                subscription.next();
+            } catch (InterruptedException e) {
+                // Expected
+            }
+        });
+
+        while (reader.getState() != Thread.State.WAITING && reader.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(10);
+        }
+        subscription.close();
+
+        assertThat(reader.join(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    void positionsRoundTrip() {
+        LoanChangePosition position = new LoanChangePosition(123456789L, UUID.randomUUID());
+
+        assertThat(LoanChangePosition.decode(position.encode())).isEqualTo(position);
+        assertThat(LoanChangePosition.decode("0")).isEqualTo(LoanChangePosition.START);
+        assertThat(position.compareTo(LoanChangePosition.before(position.txid()))).isPositive();
+        assertThat(position.compareTo(LoanChangePosition.before(position.txid() + 1))).isNegative();
+    }
+
+    @Test
+    void rejectsMalformedPositions() {
+        assertThatThrownBy(() -> LoanChangePosition.decode("not a position"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> LoanChangePosition.decode("AAAA"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    private LoanChangeFeed feed(int pageSize, int bufferSize, int maxSubscribers) {
+        return new LoanChangeFeed(dataSource, objectMapper, meterRegistry, pageSize, bufferSize, maxSubscribers,
+                Duration.ofMillis(100));
+    }
+
+    private LoanChangeSubscription subscribe(LoanChangeFeed feed, String after) {
+        LoanChangeSubscription subscription = feed.subscribe(after);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    private static List<LoanChangeEvent> drain(LoanChangeSubscription subscription, int count)
+            throws InterruptedException {
+        List<LoanChangeEvent> changes = new ArrayList<>();
+        while (changes.size() < count) {
+            LoanChangeEvent change = subscription.next();
+            assertThat(change).as("change %d of %d", changes.size() + 1, count).isNotNull();
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    private static UUID insertLoan() {
+        return jdbcTemplate.queryForObject(INSERT_SQL, UUID.class);
+    }
+
+    private static UUID insertLoan(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getObject(1, UUID.class);
+        }
+    }
+}
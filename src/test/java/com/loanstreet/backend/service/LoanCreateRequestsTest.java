@@ -0,0 +1,161 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.Loan;
+import com.loanstreet.backend.model.LoanCreateRequestEntity;
+import com.loanstreet.backend.repository.LoanCreateRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Each create commits, as in production
+class LoanCreateRequestsTest {
+
+    @Autowired
+    private LoanCreateRequestRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LoanCreateRequests createRequests;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        createRequests = createRequests(Duration.ofHours(24));
+    }
+
+    @Test
+    void createOnce_replaysTheOriginalLoanWithoutCreatingAgain() {
+        UUID requestId = UUID.randomUUID();
+        AtomicInteger creates = new AtomicInteger();
+        Supplier<Loan> create = () -> {
+            creates.incrementAndGet();
+            return loan();
+        };
+
+        Loan first = createRequests.createOnce(requestId, create);
+        Loan retry = createRequests.createOnce(requestId, create);
+
+        assertThat(creates).hasValue(1);
+        assertThat(retry).isSameAs(first);
+        assertThat(createRequests.createOnce(UUID.randomUUID(), create).getId()).isNotEqualTo(first.getId());
+    }
+
+    @Test
+    void createOnce_replaysFromTheTableAfterARestart() {
+        UUID requestId = UUID.randomUUID();
+        Loan first = createRequests.createOnce(requestId, this::loan);
+
+        Loan retry = createRequests(Duration.ofHours(24)).createOnce(requestId, () -> {
+            throw new AssertionError("created twice");
+        });
+
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        assertThat(retry.getAmount()).isEqualByComparingTo(first.getAmount());
+        assertThat(retry.getInterestRate()).isEqualByComparingTo(first.getInterestRate());
+        assertThat(retry.getLengthInMonths()).isEqualTo(first.getLengthInMonths());
+        assertThat(retry.getMonthlyPaymentAmount()).isEqualByComparingTo(first.getMonthlyPaymentAmount());
+        assertThat(retry.getVersion()).isZero();
+    }
+
+    @Test
+    void createOnce_concurrentDuplicatesCreateOneLoan() throws Exception {
+        UUID requestId = UUID.randomUUID();
+        CyclicBarrier bothCreating = new CyclicBarrier(2);
+        Supplier<Loan> create = () -> {
+            try {
+                bothCreating.await();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return loan();
+        };
+
+        CompletableFuture<Loan> first = CompletableFuture.supplyAsync(() -> createRequests.createOnce(requestId, create));
+        CompletableFuture<Loan> second = CompletableFuture.supplyAsync(() -> createRequests.createOnce(requestId, create));
+
+        assertThat(first.get().getId()).isEqualTo(second.get().getId());
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void createOnce_recordsNothingWhenTheCreateFails() {
+        UUID requestId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> createRequests.createOnce(requestId, () -> {
+            throw new DataIntegrityViolationException("numeric field overflow");
+        })).isInstanceOf(DataIntegrityViolationException.class);
+
+        Loan created = createRequests.createOnce(requestId, this::loan);
+        assertThat(created).isNotNull();
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredRequestsAreForgottenAndPurged() {
+        UUID expired = UUID.randomUUID();
+        LoanCreateRequestEntity old = new LoanCreateRequestEntity();
+        old.setRequestId(expired);
+        old.setLoanId(UUID.randomUUID());
+        old.setAmount(new BigDecimal("10000.00"));
+        old.setInterestRate(new BigDecimal("0.05"));
+        old.setLengthInMonths(60);
+        old.setMonthlyPaymentAmount(new BigDecimal("188.71"));
+        old.setLoanVersion(0L);
+        repository.save(old);
+        createRequests = createRequests(Duration.ZERO);
+
+        assertThat(createRequests.find(expired)).isEmpty();
+
+        createRequests.purgeExpired();
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void createOnce_reusedIdCreatesAgainOnceExpiredEvenBeforeThePurge() {
+        UUID requestId = UUID.randomUUID();
+        Loan first = createRequests.createOnce(requestId, this::loan);
+        createRequests = createRequests(Duration.ZERO);
+
+        Loan second = createRequests.createOnce(requestId, this::loan);
+
+        assertThat(second.getId()).isNotEqualTo(first.getId());
+        assertThat(repository.count()).isEqualTo(1);
+        assertThat(repository.findById(requestId)).get()
+                .extracting(LoanCreateRequestEntity::getLoanId).isEqualTo(second.getId());
+    }
+
+    private LoanCreateRequests createRequests(Duration ttl) {
+        return new LoanCreateRequests(repository, transactionManager, 100, ttl, new SimpleMeterRegistry());
+    }
+
+    private Loan loan() {
+        return new Loan()
+                .id(UUID.randomUUID())
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("188.71"))
+                .version(0L);
+    }
+}
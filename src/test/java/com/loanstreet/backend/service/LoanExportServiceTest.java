@@ -0,0 +1,96 @@
+package com.loanstreet.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class LoanExportServiceTest {
+
+    private static final int ROWS = LoanExportService.FETCH_SIZE + 5;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LoanExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new LoanExportService(dataSource, transactionManager, objectMapper);
+
+        loanRepository.deleteAll();
+        for (int i = 0; i < ROWS; i++) {
+            LoanEntity entity = new LoanEntity();
+            entity.setAmount(new BigDecimal(1000 + i));
+            entity.setInterestRate(new BigDecimal("0.05"));
+            entity.setLengthInMonths(60);
+            entity.setMonthlyPaymentAmount(new BigDecimal("20.50"));
+            loanRepository.save(entity);
+        }
+        loanRepository.flush();
+    }
+
+    @Test
+    void exportNdjson_writesOneLoanObjectPerLineAcrossFetchBatches() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportNdjson(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(rows).isEqualTo(ROWS);
+        assertThat(lines).hasSize(ROWS);
+
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.fieldNames()).toIterable()
+                .containsExactly("id", "amount", "interestRate", "lengthInMonths", "monthlyPaymentAmount");
+        assertThat(first.get("lengthInMonths").asInt()).isEqualTo(60);
+        assertThat(first.get("monthlyPaymentAmount").decimalValue()).isEqualByComparingTo("20.50");
+        assertThat(lines.stream().map(this::readId).distinct()).hasSize(ROWS);
+    }
+
+    @Test
+    void exportCsv_writesHeaderAndOneRowPerLoan() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exportService.exportCsv(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(rows).isEqualTo(ROWS);
+        assertThat(lines).hasSize(ROWS + 1);
+        assertThat(lines.get(0)).isEqualTo(LoanExportService.CSV_HEADER);
+        assertThat(lines.get(1).split(",")).hasSize(5);
+        assertThat(lines.get(1)).endsWith(",60,20.5000");
+    }
+
+    private String readId(String line) {
+        try {
+            return objectMapper.readTree(line).get("id").asText();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.loanstreet.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.loanstreet.backend.dto.ImportRejection;
+import com.loanstreet.backend.dto.LoanImportReport;
+import com.loanstreet.backend.exception.ImportFailedException;
+import com.loanstreet.backend.exception.InvalidImportException;
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.repository.LoanRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class LoanImportServiceTest {
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final PortfolioCounters portfolioCounters = mock(PortfolioCounters.class);
+
+    private LoanImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = importService(false);
+        loanRepository.deleteAll();
+    }
+
+    @Test
+    void importCsv_insertsValidRowsAcrossBatches() throws Exception {
+        StringBuilder csv = new StringBuilder("monthlyPaymentAmount,lengthInMonths,interestRate,amount\n");
+        int rows = LoanImportService.BATCH_SIZE * 2 + 3;
+        for (int i = 0; i < rows; i++) {
+            csv.append("188.71,60,0.05,").append(10000 + i).append('\n');
+        }
+
+        LoanImportReport report = importService.importCsv(stream(csv.toString()));
+
+        assertThat(report.getImported()).isEqualTo(rows);
+        assertThat(report.getRejected()).isZero();
+        assertThat(report.getErrors()).isEmpty();
+
+        List<LoanEntity> saved = loanRepository.findAll();
+        assertThat(saved).hasSize(rows);
+        LoanEntity first = saved.stream()
+                .filter(entity -> entity.getAmount().compareTo(BigDecimal.valueOf(10000)) == 0)
+                .findFirst()
+                .orElseThrow();
+        assertThat(first.getInterestRate()).isEqualByComparingTo("0.05");
+        assertThat(first.getLengthInMonths()).isEqualTo(60);
+        assertThat(first.getMonthlyPaymentAmount()).isEqualByComparingTo("188.71");
+        assertThat(first.getVersion()).isZero();
+        assertThat(first.getCreatedAt()).isNotNull();
+        assertThat(first.getId().version()).isEqualTo(7);
+    }
+
+    @Test
+    void importCsv_reportsRejectedRowsByLineAndKeepsValidOnes() throws Exception {
+        String csv = """
+                amount,interestRate,lengthInMonths,monthlyPaymentAmount
+                10000,0.05,60,188.71
+                abc,0.05,60,188.71
+                -1,1.5,60,188.71
+
+                10000,0.05,601
+                10000,0.05,,188.71
+                1000000000000000,0.05,60,188.71
+                25000,0.065,360,158.02
+                """;
+
+        LoanImportReport report = importService.importCsv(stream(csv));
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(5);
+        assertThat(report.getErrors())
+                .extracting(ImportRejection::getLine, ImportRejection::getField)
+                .containsExactly(
+                        tuple(3L, null),
+                        tuple(4L, "amount"),
+                        tuple(4L, "interestRate"),
+                        tuple(6L, null),
+                        tuple(7L, "lengthInMonths"),
+                        tuple(8L, "amount"));
+        assertThat(loanRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void importCsv_requiresHeaderWithAllColumns() {
+        assertThatThrownBy(() -> importService.importCsv(stream("")))
+                .isInstanceOf(InvalidImportException.class)
+                .hasMessageContaining("header");
+        assertThatThrownBy(() -> importService.importCsv(stream("amount,interestRate\n1,0.05\n")))
+                .isInstanceOf(InvalidImportException.class)
+                .hasMessageContaining("lengthInMonths, monthlyPaymentAmount");
+    }
+
+    @Test
+    void importCsv_readsQuotedFieldsAndRejectsMalformedQuotes() throws Exception {
+        String csv = """
+                "amount","interestRate",lengthInMonths,"monthlyPaymentAmount"
+                "10000","0.05",60,"188.71"
+                10000,"0.05,60,188.71
+                10000,0"."05,60,188.71
+                10000,"0.05"x,60,188.71
+                """;
+
+        LoanImportReport report = importService.importCsv(stream(csv));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(3);
+        assertThat(report.getErrors())
+                .extracting(ImportRejection::getLine, ImportRejection::getMessage)
+                .containsExactly(
+                        tuple(3L, "quoted field in column 2 is not closed"),
+                        tuple(4L, "unquoted field in column 2 contains a quote"),
+                        tuple(5L, "unexpected text after the quoted field in column 2"));
+        assertThat(loanRepository.findAll().get(0).getInterestRate()).isEqualByComparingTo("0.05");
+    }
+
+    @Test
+    void splitCsv_unescapesDoubledQuotesAndKeepsEmptyFields() {
+        assertThat(LoanImportService.splitCsv("\"a,\"\"b\"\"\",,\"\",c"))
+                .containsExactly("a,\"b\"", "", "", "c");
+        assertThat(LoanImportService.splitCsv("1,2,")).containsExactly("1", "2", "");
+    }
+
+    @Test
+    void importCsv_rejectsMalformedHeader() {
+        assertThatThrownBy(() -> importService.importCsv(stream("\"amount,interestRate\n")))
+                .isInstanceOf(InvalidImportException.class)
+                .hasMessage("CSV header is malformed: quoted field in column 1 is not closed");
+    }
+
+    @Test
+    void importCsv_addsEachCommittedChunkToPortfolioCounters() throws Exception {
+        String csv = "amount,interestRate,lengthInMonths,monthlyPaymentAmount\n"
+                + "10000,0.05,36,299.71\n".repeat(5);
+
+        LoanImportReport report = importService(false, 2).importCsv(stream(csv));
+
+        assertThat(report.getImported()).isEqualTo(5);
+        assertThat(loanRepository.count()).isEqualTo(5);
+        ArgumentCaptor<PortfolioTotals> added = ArgumentCaptor.forClass(PortfolioTotals.class);
+        verify(portfolioCounters, times(3)).loansAdded(added.capture());
+        assertThat(added.getAllValues()).extracting(PortfolioTotals::count).containsExactly(2L, 2L, 1L);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void importCsv_whenChunkFails_keepsEarlierChunksAndReportsWhereToResume() {
+        String csv = "amount,interestRate,lengthInMonths,monthlyPaymentAmount\n"
+                + "10000,0.05,36,299.71\n".repeat(3);
+        InputStream failing = new SequenceInputStream(stream(csv), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        try {
+            assertThatThrownBy(() -> importService(false, 2).importCsv(failing))
+                    .isInstanceOfSatisfying(ImportFailedException.class, ex -> {
+                        assertThat(ex.getChunk()).isEqualTo(2);
+                        assertThat(ex.getFirstLine()).isEqualTo(4);
+                        assertThat(ex.getImported()).isEqualTo(2);
+                    })
+                    .hasMessageContaining("resend the rows from line 4")
+                    .hasRootCauseMessage("connection reset");
+            assertThat(loanRepository.count()).isEqualTo(2);
+        } finally {
+            loanRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void importCsv_whenNothingWasCommitted_rethrowsTheFailure() {
+        InputStream failing = new SequenceInputStream(stream("amount,interestRate,lengthInMonths,monthlyPaymentAmount\n"),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("connection reset");
+                    }
+                });
+
+        assertThatThrownBy(() -> importService.importCsv(failing))
+                .isInstanceOf(IOException.class)
+                .hasMessage("connection reset");
+    }
+
+    @Test
+    void importNdjson_insertsValidLinesAndRejectsMalformedOnes() throws Exception {
+        String ndjson = """
+                {"amount":10000,"interestRate":0.05,"lengthInMonths":60,"monthlyPaymentAmount":188.71}
+                {"amount":
+                {"amount":10000,"interestRate":0,"lengthInMonths":60,"monthlyPaymentAmount":188.71}
+                {"amount":25000,"interestRate":0.065,"lengthInMonths":360,"monthlyPaymentAmount":158.02}
+                """;
+
+        LoanImportReport report = importService.importNdjson(stream(ndjson));
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportRejection::getLine).containsExactly(2L, 3L);
+        assertThat(report.getErrors().get(0).getMessage()).startsWith("malformed JSON");
+        assertThat(report.getErrors().get(1).getField()).isEqualTo("interestRate");
+        assertThat(loanRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void importNdjson_capsReportedErrors() throws Exception {
+        String ndjson = "{\"amount\":-1,\"interestRate\":0.05,\"lengthInMonths\":60,\"monthlyPaymentAmount\":1}\n"
+                .repeat(LoanImportService.MAX_REPORTED_ERRORS + 10);
+
+        LoanImportReport report = importService.importNdjson(stream(ndjson));
+
+        assertThat(report.getImported()).isZero();
+        assertThat(report.getRejected()).isEqualTo(LoanImportService.MAX_REPORTED_ERRORS + 10);
+        assertThat(report.getErrors()).hasSize(LoanImportService.MAX_REPORTED_ERRORS);
+    }
+
+    @Test
+    void importCsv_storesCalculatedPayment() throws Exception {
+        LoanImportReport report = importService.importCsv(stream("""
+                amount,interestRate,lengthInMonths,monthlyPaymentAmount
+                10000,0.05,36,300.00
+                """));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(loanRepository.findAll().get(0).getMonthlyPaymentAmount()).isEqualByComparingTo("299.71");
+    }
+
+    @Test
+    void importCsv_inStrictMode_rejectsMismatchedPayment() throws Exception {
+        LoanImportReport report = importService(true).importCsv(stream("""
+                amount,interestRate,lengthInMonths,monthlyPaymentAmount
+                10000,0.05,36,299.71
+                10000,0.05,36,300.00
+                """));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(rejection -> {
+            assertThat(rejection.getLine()).isEqualTo(3L);
+            assertThat(rejection.getField()).isEqualTo("monthlyPaymentAmount");
+            assertThat(rejection.getMessage()).contains("299.71");
+        });
+    }
+
+    @Test
+    void importCsv_addsImportedRowsToPortfolioCounters() throws Exception {
+        importService.importCsv(stream("""
+                amount,interestRate,lengthInMonths,monthlyPaymentAmount
+                10000,0.05,36,299.71
+                not-a-number,0.05,36,299.71
+                20000,0.08,120,242.66
+                """));
+
+        ArgumentCaptor<PortfolioTotals> added = ArgumentCaptor.forClass(PortfolioTotals.class);
+        verify(portfolioCounters).loansAdded(added.capture());
+        assertThat(added.getValue().count()).isEqualTo(2);
+        assertThat(added.getValue().toStats().getOverall().getTotalPrincipal()).isEqualByComparingTo("30000");
+    }
+
+    private LoanImportService importService(boolean strictPayments) {
+        return importService(strictPayments, 50000);
+    }
+
+    private LoanImportService importService(boolean strictPayments, int chunkSize) {
+        return new LoanImportService(dataSource, transactionManager, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new PaymentCalculator(strictPayments, new BigDecimal("0.01")), portfolioCounters, chunkSize);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
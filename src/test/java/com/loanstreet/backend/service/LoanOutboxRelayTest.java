@@ -0,0 +1,212 @@
+package com.loanstreet.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.loanstreet.backend.dto.LoanChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The outbox triggers and relay against Postgres, with the schema from the Flyway
+ * migrations. Relays are driven by hand instead of on their schedule.
+ */
+class LoanOutboxRelayTest {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO loans (amount, interest_rate, length_in_months, monthly_payment_amount)
+            VALUES (10000, 0.05, 12, 856.07) RETURNING id
+            """;
+
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        postgres.close();
+    }
+
+    @BeforeEach
+    void clearTables() {
+        jdbcTemplate.execute("TRUNCATE loans, loan_outbox");
+    }
+
+    @Test
+    void publishesInsertsAndUpdatesInOrder() {
+        UUID first = insertLoan();
+        UUID second = insertLoan();
+        jdbcTemplate.update("UPDATE loans SET amount = 20000, version = version + 1 WHERE id = ?", first);
+        InMemoryLoanEventSink sink = new InMemoryLoanEventSink(100);
+
+        relay(sink, 10).relay();
+
+        List<LoanEvent> events = sink.events();
+        assertThat(events).extracting(event -> event.loan().getId()).containsExactly(first, second, first);
+        assertThat(events).extracting(LoanEvent::type).containsExactly(
+                LoanChange.TypeEnum.CREATED, LoanChange.TypeEnum.CREATED, LoanChange.TypeEnum.UPDATED);
+        assertThat(events.getLast().loan().getVersion()).isEqualTo(1);
+        assertThat(events.getLast().loan().getAmount()).isEqualByComparingTo("20000");
+        assertThat(outboxSize()).isZero();
+        assertThat(meterRegistry.get("loan.outbox.published").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("loan.outbox.lag").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void drainsInBatches() {
+        jdbcTemplate.update("""
+                INSERT INTO loans (amount, interest_rate, length_in_months, monthly_payment_amount)
+                SELECT 1000 + i, 0.05, 12, 85.61 FROM generate_series(1, 25) i
+                """);
+        InMemoryLoanEventSink sink = new InMemoryLoanEventSink(100);
+
+        relay(sink, 10).relay();
+
+        assertThat(sink.events()).hasSize(25);
+        assertThat(sink.events()).extracting(LoanEvent::id).isSorted();
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void rolledBackWriteLeavesNoEvent() {
+        try {
+            jdbcTemplate.execute("""
+                    DO $$
+                    BEGIN
+                        INSERT INTO loans (amount, interest_rate, length_in_months, monthly_payment_amount)
+                        VALUES (10000, 0.05, 12, 856.07);
+                        RAISE EXCEPTION 'rolled back';
+                    END
+                    $$
+                    """);
+        } catch (RuntimeException e) {
+            // Expected
+        }
+
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void failedBatchIsRetried() {
+        insertLoan();
+        insertLoan();
+        InMemoryLoanEventSink delegate = new InMemoryLoanEventSink(100);
+        boolean[] failNext = {true};
+        LoanOutboxRelay relay = relay(events -> {
+            if (failNext[0]) {
+                failNext[0] = false;
+                throw new IllegalStateException("sink unavailable");
+            }
+            delegate.publish(events);
+        }, 10);
+
+        relay.relay();
+
+        assertThat(delegate.events()).isEmpty();
+        assertThat(outboxSize()).isEqualTo(2);
+        assertThat(meterRegistry.get("loan.outbox.failures").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("loan.outbox.backlog.age").gauge().value()).isGreaterThanOrEqualTo(0);
+
+        relay.relay();
+
+        assertThat(delegate.events()).hasSize(2);
+        assertThat(outboxSize()).isZero();
+        assertThat(meterRegistry.get("loan.outbox.backlog.age").gauge().value()).isZero();
+    }
+
+    @Test
+    void concurrentRelaysClaimDifferentBatches() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            insertLoan();
+        }
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryLoanEventSink slowSink = new InMemoryLoanEventSink(100);
+        LoanOutboxRelay slow = relay(events -> {
+            claimed.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowSink.publish(events);
+        }, 2);
+        InMemoryLoanEventSink fastSink = new InMemoryLoanEventSink(100);
+        LoanOutboxRelay fast = relay(fastSink, 2);
+
+        CompletableFuture<Integer> slowBatch = CompletableFuture.supplyAsync(slow::relayBatch);
+        assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(fast.relayBatch()).isEqualTo(2);
+        release.countDown();
+        assertThat(slowBatch.get(10, TimeUnit.SECONDS)).isEqualTo(2);
+
+        assertThat(slowSink.events()).extracting(LoanEvent::id)
+                .doesNotContainAnyElementsOf(fastSink.events().stream().map(LoanEvent::id).toList());
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void fileSinkAppendsNdjson(@TempDir Path dir) throws IOException {
+        UUID id = insertLoan();
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Path file = dir.resolve("events/loan-events.ndjson");
+
+        try (FileLoanEventSink sink = new FileLoanEventSink(file, objectMapper.writer())) {
+            relay(sink, 10).relay();
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(1);
+        assertThat(objectMapper.readTree(lines.getFirst()).at("/loan/id").asText()).isEqualTo(id.toString());
+        assertThat(objectMapper.readTree(lines.getFirst()).at("/type").asText()).isEqualTo("created");
+    }
+
+    private LoanOutboxRelay relay(LoanEventSink sink, int batchSize) {
+        return new LoanOutboxRelay(dataSource, new DataSourceTransactionManager(dataSource), sink, meterRegistry,
+                batchSize);
+    }
+
+    private static UUID insertLoan() {
+        return jdbcTemplate.queryForObject(INSERT_SQL, UUID.class);
+    }
+
+    private static long outboxSize() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM loan_outbox", Long.class);
+    }
+}
@@ -2,23 +2,46 @@ package com.loanstreet.backend.service;
 
 import com.loanstreet.backend.dto.Loan;
 import com.loanstreet.backend.dto.LoanCreateRequest;
+import com.loanstreet.backend.dto.LoanPage;
 import com.loanstreet.backend.dto.LoanUpdateRequest;
+import com.loanstreet.backend.dto.ScheduleEntry;
+import com.loanstreet.backend.exception.InvalidCursorException;
+import com.loanstreet.backend.exception.InvalidScheduleRangeException;
+import com.loanstreet.backend.exception.InvalidSearchException;
+import com.loanstreet.backend.exception.BatchPaymentMismatchException;
+import com.loanstreet.backend.exception.PaymentMismatchException;
+import com.loanstreet.backend.exception.PreconditionFailedException;
 import com.loanstreet.backend.model.LoanEntity;
 import com.loanstreet.backend.repository.LoanRepository;
+import com.loanstreet.backend.repository.LoanSearch;
+import com.loanstreet.backend.repository.LoanUpdate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +50,21 @@ class LoanServiceTest {
     @Mock
     private LoanRepository loanRepository;
 
+    @Spy
+    private LoanCache loanCache = new LoanCache(100, Duration.ofMinutes(5), true, new SimpleMeterRegistry());
+
+    @Spy
+    private PaymentCalculator paymentCalculator = new PaymentCalculator(false, new BigDecimal("0.01"));
+
+    @Mock
+    private PortfolioCounters portfolioCounters;
+
+    @Mock
+    private LoanCreateRequests createRequests;
+
+    @Spy
+    private LoanReads loanReads = new LoanReads(null, List.of(), Duration.ofSeconds(5), 100);
+
     @InjectMocks
     private LoanService loanService;
 
@@ -67,7 +105,7 @@ class LoanServiceTest {
     @Test
     void create_mapsAllFieldsToEntity() {
         LoanCreateRequest request = new LoanCreateRequest()
-                .amount(new BigDecimal("25000.00"))
+                .amount(new BigDecimal("250000.00"))
                 .interestRate(new BigDecimal("0.065"))
                 .lengthInMonths(360)
                 .monthlyPaymentAmount(new BigDecimal("1580.17"));
@@ -80,13 +118,140 @@ class LoanServiceTest {
         verify(loanRepository).save(captor.capture());
 
         LoanEntity saved = captor.getValue();
-        assertThat(saved.getAmount()).isEqualByComparingTo("25000.00");
+        assertThat(saved.getAmount()).isEqualByComparingTo("250000.00");
         assertThat(saved.getInterestRate()).isEqualByComparingTo("0.065");
         assertThat(saved.getLengthInMonths()).isEqualTo(360);
         assertThat(saved.getMonthlyPaymentAmount()).isEqualByComparingTo("1580.17");
         assertThat(saved.getId()).isNull();
     }
 
+    @Test
+    void create_addsLoanToPortfolioCounters() {
+        when(loanRepository.save(any(LoanEntity.class))).thenReturn(testEntity);
+
+        loanService.create(new LoanCreateRequest()
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("188.71")));
+
+        verify(portfolioCounters).loanCreated(testEntity);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void create_withRequestId_createsOnlyThroughCreateRequests() {
+        UUID requestId = UUID.randomUUID();
+        LoanCreateRequest request = new LoanCreateRequest()
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("188.71"));
+        when(loanRepository.save(any(LoanEntity.class))).thenReturn(testEntity);
+        when(createRequests.createOnce(eq(requestId), any()))
+                .thenAnswer(invocation -> ((Supplier<Loan>) invocation.getArgument(1)).get());
+
+        Loan result = loanService.create(request, requestId);
+
+        assertThat(result.getId()).isEqualTo(testId);
+        verify(loanRepository).save(any(LoanEntity.class));
+    }
+
+    @Test
+    void create_withoutRequestId_bypassesCreateRequests() {
+        when(loanRepository.save(any(LoanEntity.class))).thenReturn(testEntity);
+
+        loanService.create(new LoanCreateRequest()
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("188.71")), null);
+
+        verifyNoInteractions(createRequests);
+        verify(loanRepository).save(any(LoanEntity.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createAll_insertsAllEntitiesInOneCallAndPreservesOrder() {
+        List<LoanCreateRequest> requests = List.of(
+                new LoanCreateRequest()
+                        .amount(new BigDecimal("10000.00"))
+                        .interestRate(new BigDecimal("0.05"))
+                        .lengthInMonths(60)
+                        .monthlyPaymentAmount(new BigDecimal("188.71")),
+                new LoanCreateRequest()
+                        .amount(new BigDecimal("25000.00"))
+                        .interestRate(new BigDecimal("0.065"))
+                        .lengthInMonths(360)
+                        .monthlyPaymentAmount(new BigDecimal("158.02")));
+
+        when(loanRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<LoanEntity> entities = invocation.getArgument(0);
+            entities.forEach(entity -> entity.setId(UUID.randomUUID()));
+            return entities;
+        });
+
+        List<Loan> result = loanService.createAll(requests);
+
+        ArgumentCaptor<List<LoanEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(loanRepository).insertAll(captor.capture());
+        verify(loanRepository, never()).save(any());
+
+        assertThat(captor.getValue()).hasSize(2);
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getAmount()).isEqualByComparingTo("10000.00");
+        assertThat(result.get(1).getAmount()).isEqualByComparingTo("25000.00");
+        assertThat(result.get(1).getLengthInMonths()).isEqualTo(360);
+        assertThat(result).allSatisfy(loan -> assertThat(loan.getId()).isNotNull());
+    }
+
+    @Test
+    void createAll_cachesCreatedLoans() {
+        LoanCreateRequest request = new LoanCreateRequest()
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("188.71"));
+        when(loanRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<LoanEntity> entities = invocation.getArgument(0);
+            entities.forEach(entity -> {
+                entity.setId(UUID.randomUUID());
+                entity.setVersion(0L);
+            });
+            return entities;
+        });
+        when(loanRepository.findVersionById(any())).thenReturn(Optional.of(0L));
+
+        List<Loan> created = loanService.createAll(List.of(request, request));
+
+        assertThat(created).allSatisfy(loan ->
+                assertThat(loanService.findById(loan.getId())).containsSame(loan));
+        verify(loanRepository, never()).findById(any());
+    }
+
+    @Test
+    void createAll_reportsEveryPaymentMismatchByIndexAndSavesNothing() {
+        LoanService strictService = new LoanService(loanRepository, loanCache,
+                new PaymentCalculator(true, new BigDecimal("0.01")), portfolioCounters, createRequests, loanReads);
+        LoanCreateRequest consistent = new LoanCreateRequest()
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("188.71"));
+        LoanCreateRequest mismatched = new LoanCreateRequest()
+                .amount(new BigDecimal("10000.00"))
+                .interestRate(new BigDecimal("0.05"))
+                .lengthInMonths(60)
+                .monthlyPaymentAmount(new BigDecimal("1.00"));
+
+        assertThatThrownBy(() -> strictService.createAll(List.of(consistent, mismatched, consistent, mismatched)))
+                .isInstanceOfSatisfying(BatchPaymentMismatchException.class, e ->
+                        assertThat(e.getMismatches()).extracting(PaymentMismatchException::getIndex)
+                                .containsExactly(1, 3));
+        verify(loanRepository, never()).insertAll(anyList());
+    }
+
     @Test
     void findById_returnsLoanWhenFound() {
         when(loanRepository.findById(testId)).thenReturn(Optional.of(testEntity));
@@ -112,66 +277,341 @@ class LoanServiceTest {
     }
 
     @Test
-    void update_returnsUpdatedLoanWhenFound() {
-        LoanUpdateRequest request = new LoanUpdateRequest()
-                .amount(new BigDecimal("15000.00"))
-                .interestRate(new BigDecimal("0.045"))
-                .lengthInMonths(72)
-                .monthlyPaymentAmount(new BigDecimal("220.00"));
+    void findById_servesRepeatReadFromCacheWhenVersionIsCurrent() {
+        testEntity.setVersion(3L);
+        when(loanRepository.findById(testId)).thenReturn(Optional.of(testEntity));
+        when(loanRepository.findVersionById(testId)).thenReturn(Optional.of(3L));
+
+        Loan first = loanService.findById(testId).orElseThrow();
+        Loan second = loanService.findById(testId).orElseThrow();
 
+        assertThat(second).isSameAs(first);
+        verify(loanRepository, times(1)).findById(testId);
+    }
+
+    @Test
+    void findById_reloadsWhenCachedVersionIsStale() {
+        testEntity.setVersion(3L);
+        when(loanRepository.findById(testId)).thenReturn(Optional.of(testEntity));
+        loanService.findById(testId);
+
+        testEntity.setVersion(4L);
+        testEntity.setAmount(new BigDecimal("12000.0000"));
+        when(loanRepository.findVersionById(testId)).thenReturn(Optional.of(4L));
+
+        Loan result = loanService.findById(testId).orElseThrow();
+
+        assertThat(result.getAmount()).isEqualByComparingTo("12000.00");
+        verify(loanRepository, times(2)).findById(testId);
+    }
+
+    @Test
+    void findById_returnsEmptyWhenCachedLoanWasDeleted() {
+        testEntity.setVersion(0L);
+        when(loanRepository.findById(testId))
+                .thenReturn(Optional.of(testEntity))
+                .thenReturn(Optional.empty());
+        loanService.findById(testId);
+        when(loanRepository.findVersionById(testId)).thenReturn(Optional.empty());
+
+        assertThat(loanService.findById(testId)).isEmpty();
+    }
+
+    @Test
+    void findPage_withoutCursor_returnsFirstPageAndNextCursor() {
+        LoanEntity first = pagedEntity(Instant.parse("2026-01-01T00:00:00.000001Z"));
+        LoanEntity second = pagedEntity(Instant.parse("2026-01-01T00:00:00.000002Z"));
+        LoanEntity extra = pagedEntity(Instant.parse("2026-01-01T00:00:00.000003Z"));
+        when(loanRepository.findFirstPage(Limit.of(3))).thenReturn(List.of(first, second, extra));
+
+        LoanPage page = loanService.findPage(null, 2);
+
+        assertThat(page.getItems()).extracting(Loan::getId).containsExactly(first.getId(), second.getId());
+        assertThat(page.getNextCursor()).isNotNull();
+
+        LoanCursor cursor = LoanCursor.decode(page.getNextCursor());
+        assertThat(cursor.createdAt()).isEqualTo(second.getCreatedAt());
+        assertThat(cursor.id()).isEqualTo(second.getId());
+    }
+
+    @Test
+    void findPage_withCursor_queriesAfterKeyAndOmitsCursorOnLastPage() {
+        LoanEntity previous = pagedEntity(Instant.parse("2026-01-01T00:00:00Z"));
+        LoanEntity next = pagedEntity(Instant.parse("2026-01-02T00:00:00Z"));
+        String token = new LoanCursor(previous.getCreatedAt(), previous.getId()).encode();
+        when(loanRepository.findPageAfter(previous.getCreatedAt(), previous.getId(), Limit.of(11)))
+                .thenReturn(List.of(next));
+
+        LoanPage page = loanService.findPage(token, 10);
+
+        assertThat(page.getItems()).extracting(Loan::getId).containsExactly(next.getId());
+        assertThat(page.getNextCursor()).isNull();
+        verify(loanRepository, never()).findFirstPage(any());
+    }
+
+    @Test
+    void findPage_withMalformedCursor_throwsInvalidCursor() {
+        assertThatThrownBy(() -> loanService.findPage("not a cursor!", 10))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> loanService.findPage("AAAA", 10))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void search_withCursor_continuesAfterKeyAndReturnsNextCursor() {
+        LoanSearch search = new LoanSearch(new BigDecimal("1000"), new BigDecimal("2000"), null, null, 60, null, null);
+        LoanEntity previous = pagedEntity(Instant.parse("2026-01-01T00:00:00Z"));
+        LoanEntity next = pagedEntity(Instant.parse("2026-01-02T00:00:00Z"));
+        LoanEntity extra = pagedEntity(Instant.parse("2026-01-03T00:00:00Z"));
+        String token = new LoanCursor(previous.getCreatedAt(), previous.getId()).encode();
+        when(loanRepository.search(search, previous.getCreatedAt(), previous.getId(), 2))
+                .thenReturn(List.of(next, extra));
+
+        LoanPage page = loanService.search(search, token, 1);
+
+        assertThat(page.getItems()).extracting(Loan::getId).containsExactly(next.getId());
+        assertThat(LoanCursor.decode(page.getNextCursor()).id()).isEqualTo(next.getId());
+    }
+
+    @Test
+    void search_rejectsMinimumsAboveMaximums() {
+        Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        assertThatThrownBy(() -> loanService.search(new LoanSearch(new BigDecimal("2000"), new BigDecimal("1000"),
+                null, null, null, null, null), null, 10))
+                .isInstanceOf(InvalidSearchException.class)
+                .hasMessage("minAmount must not exceed maxAmount");
+        assertThatThrownBy(() -> loanService.search(new LoanSearch(null, null, new BigDecimal("0.06"),
+                new BigDecimal("0.05"), null, null, null), null, 10))
+                .isInstanceOf(InvalidSearchException.class)
+                .hasMessage("minInterestRate must not exceed maxInterestRate");
+        assertThatThrownBy(() -> loanService.search(new LoanSearch(null, null, null, null, null,
+                now, now.minusSeconds(1)), null, 10))
+                .isInstanceOf(InvalidSearchException.class)
+                .hasMessage("createdFrom must not be after createdTo");
+        verifyNoInteractions(loanRepository);
+    }
+
+    @Test
+    void findSchedule_clampsToMonthToEndOfTerm() {
+        when(loanRepository.findById(testId)).thenReturn(Optional.of(testEntity));
+
+        LoanSchedule schedule = loanService.findSchedule(testId, 58, 100).orElseThrow();
+
+        assertThat(schedule.loanId()).isEqualTo(testId);
+        assertThat(schedule.lengthInMonths()).isEqualTo(60);
+        assertThat(schedule.monthlyPayment()).isEqualByComparingTo("188.71");
+        assertThat(schedule.entries()).extracting(ScheduleEntry::getMonth).containsExactly(58, 59, 60);
+    }
+
+    @Test
+    void findSchedule_defaultsToWholeTerm() {
+        when(loanRepository.findById(testId)).thenReturn(Optional.of(testEntity));
+
+        LoanSchedule schedule = loanService.findSchedule(testId, 1, null).orElseThrow();
+
+        assertThat(schedule.entries()).hasSize(60);
+    }
+
+    @Test
+    void findSchedule_rejectsRangeOutsideTerm() {
+        when(loanRepository.findById(testId)).thenReturn(Optional.of(testEntity));
+
+        assertThatThrownBy(() -> loanService.findSchedule(testId, 61, null))
+                .isInstanceOf(InvalidScheduleRangeException.class);
+        assertThatThrownBy(() -> loanService.findSchedule(testId, 30, 20))
+                .isInstanceOf(InvalidScheduleRangeException.class);
+    }
+
+    @Test
+    void findSchedule_returnsEmptyWhenNotFound() {
+        UUID missingId = UUID.randomUUID();
+        when(loanRepository.findById(missingId)).thenReturn(Optional.empty());
+
+        assertThat(loanService.findSchedule(missingId, 1, null)).isEmpty();
+    }
+
+    @Test
+    void update_returnsUpdatedLoanWhenFound() {
         LoanEntity updatedEntity = new LoanEntity();
         updatedEntity.setId(testId);
         updatedEntity.setAmount(new BigDecimal("15000.0000"));
         updatedEntity.setInterestRate(new BigDecimal("0.045000"));
         updatedEntity.setLengthInMonths(72);
-        updatedEntity.setMonthlyPaymentAmount(new BigDecimal("220.0000"));
+        updatedEntity.setMonthlyPaymentAmount(new BigDecimal("238.1100"));
+        updatedEntity.setVersion(1L);
 
-        when(loanRepository.findById(testId)).thenReturn(Optional.of(testEntity));
-        when(loanRepository.save(testEntity)).thenReturn(updatedEntity);
+        when(loanRepository.updateReturning(eq(testId), any(), any(), anyInt(), any(), isNull()))
+                .thenReturn(Optional.of(new LoanUpdate(testEntity, updatedEntity)));
 
-        Optional<Loan> result = loanService.update(testId, request);
+        Optional<Loan> result = loanService.update(testId, consistentUpdate());
 
         assertThat(result).isPresent();
         assertThat(result.get().getAmount()).isEqualByComparingTo("15000.00");
         assertThat(result.get().getInterestRate()).isEqualByComparingTo("0.045");
         assertThat(result.get().getLengthInMonths()).isEqualTo(72);
-        assertThat(result.get().getMonthlyPaymentAmount()).isEqualByComparingTo("220.00");
+        assertThat(result.get().getMonthlyPaymentAmount()).isEqualByComparingTo("238.11");
+        assertThat(result.get().getVersion()).isEqualTo(1L);
     }
 
     @Test
-    void update_mutatesExistingEntityBeforeSaving() {
+    void update_writesResolvedTermsInOneStatementWithoutLoading() {
         LoanUpdateRequest request = new LoanUpdateRequest()
                 .amount(new BigDecimal("15000.00"))
                 .interestRate(new BigDecimal("0.045"))
                 .lengthInMonths(72)
                 .monthlyPaymentAmount(new BigDecimal("220.00"));
+        when(loanRepository.updateReturning(any(), any(), any(), anyInt(), any(), any()))
+                .thenReturn(Optional.of(new LoanUpdate(testEntity, testEntity)));
 
+        loanService.update(testId, request);
+
+        // Lenient mode replaces the submitted payment with the calculated one
+        verify(loanRepository).updateReturning(eq(testId), eq(new BigDecimal("15000.00")),
+                eq(new BigDecimal("0.045")), eq(72), eq(new BigDecimal("238.11")), isNull());
+        verify(loanRepository, never()).findById(any());
+        verify(loanRepository, never()).findVersionById(any());
+    }
+
+    @Test
+    void update_refreshesCachedLoan() {
+        testEntity.setVersion(1L);
         when(loanRepository.findById(testId)).thenReturn(Optional.of(testEntity));
-        when(loanRepository.save(any(LoanEntity.class))).thenReturn(testEntity);
+        loanService.findById(testId);
 
-        loanService.update(testId, request);
+        LoanEntity updatedEntity = new LoanEntity();
+        updatedEntity.setId(testId);
+        updatedEntity.setAmount(new BigDecimal("15000.0000"));
+        updatedEntity.setInterestRate(new BigDecimal("0.045000"));
+        updatedEntity.setLengthInMonths(72);
+        updatedEntity.setMonthlyPaymentAmount(new BigDecimal("238.1100"));
+        updatedEntity.setVersion(2L);
+        when(loanRepository.updateReturning(eq(testId), any(), any(), anyInt(), any(), isNull()))
+                .thenReturn(Optional.of(new LoanUpdate(testEntity, updatedEntity)));
+        loanService.update(testId, consistentUpdate());
+
+        when(loanRepository.findVersionById(testId)).thenReturn(Optional.of(2L));
+        Loan result = loanService.findById(testId).orElseThrow();
+
+        assertThat(result.getAmount()).isEqualByComparingTo("15000.00");
+        verify(loanRepository, times(1)).findById(testId);
+    }
+
+    @Test
+    void findById_withoutVersionCheck_servesRepeatReadsAndOwnUpdatesWithoutQuerying() {
+        LoanService service = new LoanService(loanRepository,
+                new LoanCache(100, Duration.ofSeconds(5), false, new SimpleMeterRegistry()),
+                paymentCalculator, portfolioCounters, createRequests, loanReads);
+        testEntity.setVersion(1L);
+        when(loanRepository.findById(testId)).thenReturn(Optional.of(testEntity));
+        service.findById(testId);
+        service.findById(testId);
+
+        LoanEntity updatedEntity = new LoanEntity();
+        updatedEntity.setId(testId);
+        updatedEntity.setAmount(new BigDecimal("15000.0000"));
+        updatedEntity.setInterestRate(new BigDecimal("0.045000"));
+        updatedEntity.setLengthInMonths(72);
+        updatedEntity.setMonthlyPaymentAmount(new BigDecimal("238.1100"));
+        updatedEntity.setVersion(2L);
+        when(loanRepository.updateReturning(eq(testId), any(), any(), anyInt(), any(), isNull()))
+                .thenReturn(Optional.of(new LoanUpdate(testEntity, updatedEntity)));
+        service.update(testId, consistentUpdate());
+
+        Loan result = service.findById(testId).orElseThrow();
+
+        assertThat(result.getAmount()).isEqualByComparingTo("15000.00");
+        verify(loanRepository, times(1)).findById(testId);
+        verify(loanRepository, never()).findVersionById(any());
+    }
+
+    @Test
+    void update_withMatchingVersionPassesVersionsToStatement() {
+        testEntity.setVersion(5L);
+        when(loanRepository.updateReturning(eq(testId), any(), any(), anyInt(), any(), eq(Set.of(3L, 4L))))
+                .thenReturn(Optional.of(new LoanUpdate(testEntity, testEntity)));
 
-        assertThat(testEntity.getAmount()).isEqualByComparingTo("15000.00");
-        assertThat(testEntity.getInterestRate()).isEqualByComparingTo("0.045");
-        assertThat(testEntity.getLengthInMonths()).isEqualTo(72);
-        assertThat(testEntity.getMonthlyPaymentAmount()).isEqualByComparingTo("220.00");
-        verify(loanRepository).save(testEntity);
+        Loan result = loanService.update(testId, consistentUpdate(), Set.of(3L, 4L)).orElseThrow();
+
+        assertThat(result.getVersion()).isEqualTo(5L);
+        verify(loanRepository, never()).findVersionById(any());
+    }
+
+    @Test
+    void update_withStaleVersionThrowsPreconditionFailure() {
+        when(loanRepository.updateReturning(eq(testId), any(), any(), anyInt(), any(), eq(Set.of(3L))))
+                .thenReturn(Optional.empty());
+        when(loanRepository.findVersionById(testId)).thenReturn(Optional.of(4L));
+
+        assertThatThrownBy(() -> loanService.update(testId, consistentUpdate(), Set.of(3L)))
+                .isInstanceOfSatisfying(PreconditionFailedException.class,
+                        e -> assertThat(e.getCurrentVersion()).isEqualTo(4L));
+    }
+
+    @Test
+    void update_conditionalOnMissingLoanReturnsEmpty() {
+        when(loanRepository.updateReturning(eq(testId), any(), any(), anyInt(), any(), eq(Set.of(3L))))
+                .thenReturn(Optional.empty());
+        when(loanRepository.findVersionById(testId)).thenReturn(Optional.empty());
+
+        assertThat(loanService.update(testId, consistentUpdate(), Set.of(3L))).isEmpty();
     }
 
     @Test
     void update_returnsEmptyWhenNotFound() {
         UUID missingId = UUID.randomUUID();
-        LoanUpdateRequest request = new LoanUpdateRequest()
+        when(loanRepository.updateReturning(eq(missingId), any(), any(), anyInt(), any(), isNull()))
+                .thenReturn(Optional.empty());
+
+        Optional<Loan> result = loanService.update(missingId, consistentUpdate());
+
+        assertThat(result).isEmpty();
+        verify(loanRepository, never()).findVersionById(any());
+        verify(loanCache, never()).put(any(), any(), any());
+        verifyNoInteractions(portfolioCounters);
+    }
+
+    @Test
+    void update_movesLoanBetweenPortfolioCountersUsingPreviousTerms() {
+        LoanEntity updatedEntity = new LoanEntity();
+        updatedEntity.setId(testId);
+        updatedEntity.setAmount(new BigDecimal("15000.0000"));
+        updatedEntity.setInterestRate(new BigDecimal("0.045000"));
+        updatedEntity.setLengthInMonths(72);
+        updatedEntity.setMonthlyPaymentAmount(new BigDecimal("238.1100"));
+        updatedEntity.setVersion(1L);
+        when(loanRepository.updateReturning(eq(testId), any(), any(), anyInt(), any(), isNull()))
+                .thenReturn(Optional.of(new LoanUpdate(testEntity, updatedEntity)));
+
+        loanService.update(testId, consistentUpdate());
+
+        verify(portfolioCounters).loanUpdated(testEntity, updatedEntity);
+    }
+
+    @Test
+    void findVersion_readsVersionColumnOnly() {
+        when(loanRepository.findVersionById(testId)).thenReturn(Optional.of(7L));
+
+        assertThat(loanService.findVersion(testId)).contains(7L);
+        verify(loanRepository, never()).findById(any());
+    }
+
+    private static LoanUpdateRequest consistentUpdate() {
+        return new LoanUpdateRequest()
                 .amount(new BigDecimal("15000.00"))
                 .interestRate(new BigDecimal("0.045"))
                 .lengthInMonths(72)
-                .monthlyPaymentAmount(new BigDecimal("220.00"));
-
-        when(loanRepository.findById(missingId)).thenReturn(Optional.empty());
-
-        Optional<Loan> result = loanService.update(missingId, request);
+                .monthlyPaymentAmount(new BigDecimal("238.11"));
+    }
 
-        assertThat(result).isEmpty();
-        verify(loanRepository, never()).save(any());
+    private LoanEntity pagedEntity(Instant createdAt) {
+        LoanEntity entity = new LoanEntity();
+        entity.setId(UUID.randomUUID());
+        entity.setAmount(new BigDecimal("10000.0000"));
+        entity.setInterestRate(new BigDecimal("0.050000"));
+        entity.setLengthInMonths(60);
+        entity.setMonthlyPaymentAmount(new BigDecimal("188.7100"));
+        entity.setCreatedAt(createdAt);
+        return entity;
     }
 }
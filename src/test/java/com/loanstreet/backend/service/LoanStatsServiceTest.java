@@ -0,0 +1,117 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.LoanStats;
+import com.loanstreet.backend.dto.LoanStatsBucket;
+import com.loanstreet.backend.model.LoanEntity;
+import com.loanstreet.backend.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class LoanStatsServiceTest {
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private LoanStatsService statsService;
+
+    @BeforeEach
+    void setUp() {
+        statsService = new LoanStatsService(dataSource);
+        loanRepository.deleteAll();
+    }
+
+    @Test
+    void stats_rollsUpOverallAndPerBucketTotals() {
+        save("10000.00", "0.05", 36);
+        save("30000.00", "0.07", 60);
+        save("5000.00", "0.02", 12);
+        save("1000.00", "0.20", 600);
+        loanRepository.flush();
+
+        LoanStats stats = statsService.stats();
+
+        LoanStatsBucket overall = stats.getOverall();
+        assertThat(overall.getCount()).isEqualTo(4);
+        assertThat(overall.getTotalPrincipal()).isEqualByComparingTo("46000.00");
+        // (500 + 2100 + 100 + 200) / 46000
+        assertThat(overall.getWeightedAverageInterestRate()).isEqualByComparingTo("0.063043");
+        assertThat(overall.getAverageLengthInMonths()).isEqualByComparingTo("177.00");
+
+        assertThat(stats.getByTerm()).extracting(LoanStatsBucket::getCount)
+                .containsExactly(1L, 1L, 1L, 0L, 0L, 0L, 1L);
+        LoanStatsBucket shortTerm = stats.getByTerm().get(0);
+        assertThat(shortTerm.getMinLengthInMonths()).isEqualTo(1);
+        assertThat(shortTerm.getMaxLengthInMonths()).isEqualTo(12);
+        assertThat(shortTerm.getTotalPrincipal()).isEqualByComparingTo("5000.00");
+        assertThat(stats.getByTerm().get(1).getMinLengthInMonths()).isEqualTo(13);
+
+        // 0.07 is the lower bound of its band, not the upper bound of the one below
+        assertThat(stats.getByRateBand()).extracting(LoanStatsBucket::getCount)
+                .containsExactly(1L, 0L, 1L, 1L, 0L, 1L);
+        LoanStatsBucket topBand = stats.getByRateBand().get(5);
+        assertThat(topBand.getMinInterestRate()).isEqualByComparingTo("0.15");
+        assertThat(topBand.getMaxInterestRate()).isNull();
+        assertThat(topBand.getWeightedAverageInterestRate()).isEqualByComparingTo("0.20");
+    }
+
+    @Test
+    void stats_emptyBucketsHaveZeroTotalsAndNoAverages() {
+        LoanStats stats = statsService.stats();
+
+        assertThat(stats.getOverall().getCount()).isZero();
+        assertThat(stats.getOverall().getTotalPrincipal()).isEqualByComparingTo("0");
+        assertThat(stats.getOverall().getWeightedAverageInterestRate()).isNull();
+        assertThat(stats.getOverall().getAverageLengthInMonths()).isNull();
+        assertThat(stats.getByTerm()).hasSize(LoanStatsService.TERM_BOUNDS.length);
+        assertThat(stats.getByRateBand()).hasSize(LoanStatsService.RATE_BOUNDS.length + 1);
+    }
+
+    @Test
+    void bucketBounds_matchRollupMigration() throws Exception {
+        String migration = new ClassPathResource("db/migration/V5__create_loan_stats_rollup.sql")
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        List<Integer> termBounds = matches(migration, "WHEN months <= (\\d+)").stream()
+                .map(Integer::valueOf).toList();
+        List<BigDecimal> rateBounds = matches(migration, "WHEN rate < ([0-9.]+)").stream()
+                .map(BigDecimal::new).toList();
+
+        // The last term bucket is the ELSE branch
+        assertThat(termBounds).containsExactlyElementsOf(Arrays.stream(LoanStatsService.TERM_BOUNDS)
+                .limit(LoanStatsService.TERM_BOUNDS.length - 1).boxed().toList());
+        assertThat(rateBounds).containsExactly(LoanStatsService.RATE_BOUNDS);
+    }
+
+    private static List<String> matches(String text, String regex) {
+        Matcher matcher = Pattern.compile(regex).matcher(text);
+        return matcher.results().map(result -> result.group(1)).toList();
+    }
+
+    private void save(String amount, String interestRate, int lengthInMonths) {
+        LoanEntity entity = new LoanEntity();
+        entity.setAmount(new BigDecimal(amount));
+        entity.setInterestRate(new BigDecimal(interestRate));
+        entity.setLengthInMonths(lengthInMonths);
+        entity.setMonthlyPaymentAmount(BigDecimal.ONE);
+        loanRepository.save(entity);
+    }
+}
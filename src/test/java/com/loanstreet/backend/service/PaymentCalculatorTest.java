@@ -0,0 +1,86 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.exception.PaymentMismatchException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentCalculatorTest {
+
+    private final PaymentCalculator calculator = new PaymentCalculator(false, new BigDecimal("0.01"));
+
+    @ParameterizedTest
+    @CsvSource({
+            "10000.00, 0.05, 36, 299.71",
+            "10000.00, 0.05, 60, 188.71",
+            "200000.00, 0.065, 360, 1264.14",
+            "250000.00, 0.065, 360, 1580.17",
+            "1200.00, 0.000001, 12, 100.00",
+            "500.00, 1.0, 1, 541.67"
+    })
+    void monthlyPayment_matchesAnnuityFormula(String amount, String rate, int months, String expected) {
+        BigDecimal payment = calculator.monthlyPayment(new BigDecimal(amount), new BigDecimal(rate), months);
+
+        assertThat(payment).isEqualByComparingTo(expected);
+        assertThat(payment.scale()).isEqualTo(2);
+    }
+
+    @Test
+    void monthlyPayment_agreesWithExactArithmetic() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(100, 1_000_000_000_00L), 2);
+            BigDecimal rate = BigDecimal.valueOf(random.nextInt(1, 1_000_000), 6);
+            int months = random.nextInt(1, 601);
+
+            assertThat(calculator.monthlyPayment(amount, rate, months))
+                    .as("amount=%s rate=%s months=%d", amount, rate, months)
+                    .isEqualTo(calculator.exactMonthlyPayment(amount, rate, months));
+        }
+    }
+
+    @Test
+    void monthlyPayment_fallsBackToExactArithmeticForHugeAmounts() {
+        BigDecimal amount = new BigDecimal("999999999999999.9999");
+        BigDecimal rate = new BigDecimal("0.05");
+
+        assertThat(calculator.monthlyPayment(amount, rate, 360))
+                .isEqualTo(calculator.exactMonthlyPayment(amount, rate, 360));
+    }
+
+    @Test
+    void monthlyPayment_withZeroRateSplitsAmountEvenly() {
+        assertThat(calculator.monthlyPayment(new BigDecimal("1000.00"), BigDecimal.ZERO, 3))
+                .isEqualByComparingTo("333.33");
+    }
+
+    @Test
+    void resolve_returnsCalculatedPaymentWhenNotStrict() {
+        assertThat(calculator.resolve(new BigDecimal("10000.00"), new BigDecimal("0.05"), 36, new BigDecimal("1.00")))
+                .isEqualByComparingTo("299.71");
+    }
+
+    @Test
+    void resolve_inStrictMode_acceptsPaymentWithinTolerance() {
+        PaymentCalculator strict = new PaymentCalculator(true, new BigDecimal("0.01"));
+
+        assertThat(strict.resolve(new BigDecimal("10000.00"), new BigDecimal("0.05"), 36, new BigDecimal("299.70")))
+                .isEqualByComparingTo("299.71");
+    }
+
+    @Test
+    void resolve_inStrictMode_rejectsPaymentOutsideTolerance() {
+        PaymentCalculator strict = new PaymentCalculator(true, new BigDecimal("0.01"));
+
+        assertThatThrownBy(() -> strict.resolve(
+                new BigDecimal("10000.00"), new BigDecimal("0.05"), 36, new BigDecimal("299.69")))
+                .isInstanceOf(PaymentMismatchException.class)
+                .hasMessage("must be within 0.01 of the calculated payment 299.71");
+    }
+}
@@ -0,0 +1,192 @@
+package com.loanstreet.backend.service;
+
+import com.loanstreet.backend.dto.LoanStats;
+import com.loanstreet.backend.model.LoanEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PortfolioCountersTest {
+
+    private LoanStatsService loanStatsService;
+    private SimpleMeterRegistry meterRegistry;
+    private PortfolioCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        loanStatsService = mock(LoanStatsService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        counters = new PortfolioCounters(loanStatsService, meterRegistry);
+    }
+
+    @Test
+    void startup_loadsTotalsFromDatabase() {
+        when(loanStatsService.totals()).thenReturn(totals(loan("10000", "0.05", 60), loan("20000", "0.08", 120)));
+
+        counters.afterSingletonsInstantiated();
+
+        LoanStats stats = counters.stats();
+        assertThat(stats.getOverall().getCount()).isEqualTo(2);
+        assertThat(stats.getOverall().getTotalPrincipal()).isEqualByComparingTo("30000");
+    }
+
+    @Test
+    void writes_matchTotalsBuiltFromFinalRows() {
+        when(loanStatsService.totals()).thenReturn(new PortfolioTotals());
+        counters.afterSingletonsInstantiated();
+        LoanEntity first = loan("10000", "0.05", 60);
+        LoanEntity second = loan("20000", "0.08", 120);
+        LoanEntity secondUpdated = loan("25000.00", "0.12", 360);
+
+        counters.loanCreated(first);
+        counters.loanCreated(second);
+        counters.loanUpdated(second, secondUpdated);
+
+        assertThat(counters.snapshot().sameAs(totals(first, secondUpdated))).isTrue();
+        LoanStats stats = counters.stats();
+        assertThat(stats.getOverall().getCount()).isEqualTo(2);
+        assertThat(stats.getOverall().getTotalPrincipal()).isEqualByComparingTo("35000");
+        assertThat(stats.getByTerm().get(PortfolioTotals.termBucket(120)).getCount()).isZero();
+        assertThat(stats.getByTerm().get(PortfolioTotals.termBucket(360)).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reconcile_replacesDriftedTotalsAndCountsCorrection() {
+        when(loanStatsService.totals()).thenReturn(new PortfolioTotals());
+        counters.afterSingletonsInstantiated();
+        counters.loanCreated(loan("10000", "0.05", 60));
+
+        // Another instance wrote a loan this one never saw
+        PortfolioTotals actual = totals(loan("10000", "0.05", 60), loan("5000", "0.03", 12));
+        when(loanStatsService.totals()).thenReturn(actual);
+        counters.reconcile();
+
+        assertThat(counters.snapshot().sameAs(actual)).isTrue();
+        assertThat(meterRegistry.get("portfolio.reconcile.corrections").counter().count()).isEqualTo(1);
+
+        counters.reconcile();
+        assertThat(meterRegistry.get("portfolio.reconcile.corrections").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reconcile_keepsWritesAppliedWhileReading() {
+        when(loanStatsService.totals()).thenReturn(new PortfolioTotals());
+        counters.afterSingletonsInstantiated();
+        LoanEntity loan = loan("10000", "0.05", 60);
+
+        // A write that commits after the read began is not in what it returns
+        when(loanStatsService.totals()).thenAnswer(invocation -> {
+            counters.loanCreated(loan);
+            return new PortfolioTotals();
+        });
+        counters.reconcile();
+
+        assertThat(counters.snapshot().sameAs(totals(loan))).isTrue();
+        assertThat(meterRegistry.get("portfolio.reconcile.corrections").counter().count()).isZero();
+    }
+
+    @Test
+    void reconcile_correctsDriftWhileWritesKeepArriving() {
+        when(loanStatsService.totals()).thenReturn(new PortfolioTotals());
+        counters.afterSingletonsInstantiated();
+        LoanEntity local = loan("10000", "0.05", 60);
+        LoanEntity remote = loan("5000", "0.03", 12);
+        counters.loanCreated(local);
+
+        // Every read overlaps a local write, and another instance has written a loan
+        List<LoanEntity> written = new ArrayList<>(List.of(local));
+        for (int round = 0; round < 3; round++) {
+            PortfolioTotals committed = totals(written.toArray(LoanEntity[]::new));
+            committed.addAll(totals(remote));
+            doAnswer(invocation -> {
+                LoanEntity during = loan("2000", "0.07", 24);
+                counters.loanCreated(during);
+                written.add(during);
+                return committed;
+            }).when(loanStatsService).totals();
+            counters.reconcile();
+        }
+
+        PortfolioTotals expected = totals(written.toArray(LoanEntity[]::new));
+        expected.addAll(totals(remote));
+        assertThat(counters.snapshot().sameAs(expected)).isTrue();
+        assertThat(meterRegistry.get("portfolio.reconcile.corrections").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("portfolio.reconcile.skipped").counter().count()).isZero();
+    }
+
+    @Test
+    void reconcile_countsFailedRead() {
+        when(loanStatsService.totals()).thenReturn(new PortfolioTotals());
+        counters.afterSingletonsInstantiated();
+        when(loanStatsService.totals()).thenThrow(new IllegalStateException("database down"));
+
+        counters.reconcile();
+        LoanEntity loan = loan("10000", "0.05", 60);
+        counters.loanCreated(loan);
+        doReturn(totals(loan)).when(loanStatsService).totals();
+        counters.reconcile();
+
+        assertThat(meterRegistry.get("portfolio.reconcile.skipped").counter().count()).isEqualTo(1);
+        assertThat(counters.snapshot().sameAs(totals(loan))).isTrue();
+        assertThat(meterRegistry.get("portfolio.reconcile.corrections").counter().count()).isZero();
+    }
+
+    @Test
+    void concurrentWriters_loseNoUpdates() throws Exception {
+        when(loanStatsService.totals()).thenReturn(new PortfolioTotals());
+        counters.afterSingletonsInstantiated();
+        int threads = 8;
+        int perThread = 2000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        counters.loanCreated(loan("100.50", "0.05", 36));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        LoanStats stats = counters.stats();
+        assertThat(stats.getOverall().getCount()).isEqualTo(threads * perThread);
+        assertThat(stats.getOverall().getTotalPrincipal())
+                .isEqualByComparingTo(new BigDecimal("100.50").multiply(BigDecimal.valueOf(threads * perThread)));
+    }
+
+    private static PortfolioTotals totals(LoanEntity... loans) {
+        PortfolioTotals totals = new PortfolioTotals();
+        for (LoanEntity loan : loans) {
+            totals.add(loan.getAmount(), loan.getInterestRate(), loan.getLengthInMonths(), 1);
+        }
+        return totals;
+    }
+
+    private static LoanEntity loan(String amount, String interestRate, int lengthInMonths) {
+        LoanEntity entity = new LoanEntity();
+        entity.setAmount(new BigDecimal(amount));
+        entity.setInterestRate(new BigDecimal(interestRate));
+        entity.setLengthInMonths(lengthInMonths);
+        return entity;
+    }
+}
@@ -0,0 +1,62 @@
+package com.loanstreet.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidsTest {
+
+    @Test
+    void isValid_acceptsCanonicalUuidsInEitherCase() {
+        String uuid = UUID.randomUUID().toString();
+
+        assertThat(Uuids.isValid(uuid)).isTrue();
+        assertThat(Uuids.isValid(uuid.toUpperCase())).isTrue();
+        assertThat(Uuids.isValid("00000000-0000-0000-0000-000000000000")).isTrue();
+    }
+
+    @Test
+    void isValid_rejectsAnythingElseWithoutThrowing() {
+        assertThat(Uuids.isValid(null)).isFalse();
+        assertThat(Uuids.isValid("")).isFalse();
+        assertThat(Uuids.isValid("not-a-valid-uuid")).isFalse();
+        // UUID.fromString accepts these shortened forms
+        assertThat(Uuids.isValid("1-2-3-4-5")).isFalse();
+        assertThat(Uuids.isValid("0001-0002-0003-0004-000000000005")).isFalse();
+        assertThat(Uuids.isValid("3fa85f64-5717-4562-b3fc-2c963f66afa")).isFalse();
+        assertThat(Uuids.isValid("3fa85f64-5717-4562-b3fc-2c963f66afa6a")).isFalse();
+        assertThat(Uuids.isValid("3fa85f64_5717-4562-b3fc-2c963f66afa6")).isFalse();
+        assertThat(Uuids.isValid("3fa85f64-5717-4562-b3fc-2c963f66afg6")).isFalse();
+        assertThat(Uuids.isValid("{fa85f64-5717-4562-b3fc-2c963f66afa6")).isFalse();
+    }
+
+    @Test
+    void timeOrdered_isVersion7WithTheRfcVariant() {
+        UUID uuid = Uuids.timeOrdered();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(Uuids.isValid(uuid.toString())).isTrue();
+    }
+
+    @Test
+    void timeOrdered_carriesTheTimestampInItsLeadingBits() {
+        long millis = 1_760_000_000_123L;
+
+        UUID uuid = Uuids.timeOrdered(millis, new Random(42));
+
+        assertThat(uuid.getMostSignificantBits() >>> 16).isEqualTo(millis);
+    }
+
+    @Test
+    void timeOrdered_sortsByMillisecond() {
+        Random random = new Random(42);
+        UUID earlier = Uuids.timeOrdered(1_760_000_000_000L, random);
+        UUID later = Uuids.timeOrdered(1_760_000_000_001L, random);
+
+        assertThat(earlier.toString()).isLessThan(later.toString());
+    }
+}